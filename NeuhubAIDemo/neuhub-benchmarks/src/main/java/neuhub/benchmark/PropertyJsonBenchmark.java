@@ -0,0 +1,83 @@
+package neuhub.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import neuhub.properties.AsrEncode;
+import neuhub.properties.AsrHeaders;
+import neuhub.properties.AsrProperty;
+import neuhub.properties.Sentiment;
+import neuhub.properties.TtsParameters;
+import neuhub.properties.TtsProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求头和请求体中json的生成
+ * <ul>
+ * <li>xxxToString调用各类的toString，每次新建一个ObjectMapper，与示例中的用法相同</li>
+ * <li>xxxSharedMapper使用同一个ObjectMapper，两者的差值就是每次新建ObjectMapper的开销</li>
+ * <li>asrHeaders生成一次语音识别请求的全部请求头</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PropertyJsonBenchmark {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final AsrProperty asrProperty = new AsrProperty(false, new AsrEncode(1, "wav", 16000), "Linux", "0.0.0.1");
+    private final TtsProperty ttsProperty = new TtsProperty("Linux", "0.0.0.1",
+            new TtsParameters("1", "1", "0", "2.0", "1.0", "24000"));
+    private final Sentiment sentiment = new Sentiment(1, "这家店的菜很好吃，服务也很周到");
+    private final AsrHeaders asrHeaders = new AsrHeaders("search", "search-app", "56a847e6-84c0-4c01-bf4b-d566f2d2dd11-app",
+            -1, 1, 2, 1, asrProperty);
+
+    @Benchmark
+    public String asrPropertyToString() {
+        return asrProperty.toString();
+    }
+
+    @Benchmark
+    public String asrPropertySharedMapper() throws JsonProcessingException {
+        return OBJECT_MAPPER.writeValueAsString(asrProperty);
+    }
+
+    @Benchmark
+    public String ttsPropertyToString() {
+        return ttsProperty.toString();
+    }
+
+    @Benchmark
+    public String ttsPropertySharedMapper() throws JsonProcessingException {
+        return OBJECT_MAPPER.writeValueAsString(ttsProperty);
+    }
+
+    @Benchmark
+    public String sentimentToString() {
+        return sentiment.toString();
+    }
+
+    @Benchmark
+    public String sentimentSharedMapper() throws JsonProcessingException {
+        return OBJECT_MAPPER.writeValueAsString(sentiment);
+    }
+
+    @Benchmark
+    public HttpHeaders asrHeaders() {
+        return asrHeaders.toHttpHeaders();
+    }
+}
@@ -0,0 +1,102 @@
+package neuhub.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import neuhub.response.FieldProjection;
+import neuhub.response.NeuhubResponse;
+import neuhub.response.NeuhubResponseDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文本类接口的请求体生成和响应处理，短文本约20个字，长文本约2万字
+ * <ul>
+ * <li>请求体：词法分析的{text, type}经json转换器写出的内容</li>
+ * <li>响应：词法分析的结果，每个词一个对象；对比读成String后再解析、从流直接解析为NeuhubResponse和只取部分字段</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextPayloadBenchmark {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String SENTENCE = "这家店的菜很好吃，服务也很周到。";
+
+    @Param({"short", "long"})
+    private String length;
+
+    private String text;
+    private byte[] response;
+    private final FieldProjection projection = new FieldProjection("code", "remain");
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        int sentences = length.equals("short") ? 1 : 1250;
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < sentences; i++) {
+            builder.append(SENTENCE);
+        }
+        text = builder.toString();
+        StringBuilder tokens = new StringBuilder();
+        for (int i = 0; i < text.length(); i += 2) {
+            if (i > 0) {
+                tokens.append(',');
+            }
+            String word = text.substring(i, Math.min(text.length(), i + 2));
+            tokens.append("{\"word\":").append(OBJECT_MAPPER.writeValueAsString(word))
+                    .append(",\"pos\":\"n\",\"offset\":").append(i).append(",\"length\":").append(word.length()).append('}');
+        }
+        response = ("{\"code\":\"10000\",\"charge\":false,\"remain\":9999,\"remainTimes\":9999,\"remainSeconds\":-1,"
+                + "\"msg\":\"查询成功\",\"result\":{\"tokens\":[" + tokens + "]}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] lexerRequest() throws JsonProcessingException {
+        Map<String, Object> map = new HashMap<>();
+        map.put("text", text);
+        map.put("type", 0);
+        return OBJECT_MAPPER.writeValueAsBytes(map);
+    }
+
+    @Benchmark
+    public String responseAsString() {
+        return new String(response, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public JsonNode responseStringThenTree() throws IOException {
+        return OBJECT_MAPPER.readTree(new String(response, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public NeuhubResponse<JsonNode> responseDecoded() throws IOException {
+        return NeuhubResponseDecoder.decode(new ByteArrayInputStream(response), JsonNode.class);
+    }
+
+    @Benchmark
+    public Map<String, JsonNode> responseProjected() throws IOException {
+        return projection.decode(new ByteArrayInputStream(response));
+    }
+}
@@ -0,0 +1,121 @@
+package neuhub.benchmark;
+
+import neuhub.http.Base64FormBody;
+import neuhub.http.FileBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.stream.FileImageInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片上传请求体的各个步骤，图片大小为10KB、1MB和10MB
+ * <ul>
+ * <li>dataBinary与{@link neuhub.NeuhubAIDemoTester}中的实现相同，readAllBytes作为对比</li>
+ * <li>imageBase64和formatForm分别是Base64编码和String.format拼接表单，输入已提前准备好</li>
+ * <li>base64FormBody和fileBody从文件直接写出请求体，写入丢弃数据的输出流，不含网络</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UploadPayloadBenchmark {
+
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Param({"10240", "1048576", "10485760"})
+    private int size;
+
+    private Path file;
+    private byte[] image;
+    private String base64;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("neuhub-benchmark", ".jpg");
+        image = new byte[size];
+        new Random(size).nextBytes(image);
+        Files.write(file, image);
+        base64 = Base64.getEncoder().encodeToString(image);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public byte[] dataBinary() throws IOException {
+        byte[] data;
+        try (FileImageInputStream input = new FileImageInputStream(new File(file.toString()))) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buf = new byte[1024];
+            int numBytesRead;
+            while ((numBytesRead = input.read(buf)) != -1) {
+                output.write(buf, 0, numBytesRead);
+            }
+            data = output.toByteArray();
+        }
+        return data;
+    }
+
+    @Benchmark
+    public byte[] readAllBytes() throws IOException {
+        return Files.readAllBytes(file);
+    }
+
+    @Benchmark
+    public String imageBase64() {
+        return Base64.getEncoder().encodeToString(image);
+    }
+
+    @Benchmark
+    public String formatForm() {
+        return String.format("imageBase64=%s", base64);
+    }
+
+    @Benchmark
+    public String concatForm() {
+        return "imageBase64=" + base64;
+    }
+
+    @Benchmark
+    public void base64FormBody() throws IOException {
+        new Base64FormBody().addBase64File("imageBase64", file).writeTo(DISCARD);
+    }
+
+    @Benchmark
+    public void fileBody() throws IOException {
+        new FileBody(file).writeTo(DISCARD);
+    }
+}
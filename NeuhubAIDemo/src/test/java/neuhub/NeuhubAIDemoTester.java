@@ -1,8 +1,37 @@
 package neuhub;
 
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import neuhub.asr.AsrStreamer;
+import neuhub.bulk.BulkExecutor;
+import neuhub.bulk.BulkResult;
+import neuhub.client.NeuhubAsyncClient;
+import neuhub.client.NeuhubEndpoint;
+import neuhub.client.NeuhubRestTemplate;
+import neuhub.corpus.CorpusCheckpoint;
+import neuhub.corpus.CorpusPipeline;
+import neuhub.execution.BlockingCallExecutor;
+import neuhub.face.EnrollmentReport;
+import neuhub.face.FaceEnrollment;
+import neuhub.face.FaceIndex;
+import neuhub.face.FaceIndexReconciler;
+import neuhub.http.Base64FormBody;
+import neuhub.http.FileBody;
+import neuhub.image.ImagePreprocessor;
+import neuhub.image.ModerationDeduplicator;
+import neuhub.load.LoadGenerator;
+import neuhub.load.LoadReport;
+import neuhub.metrics.NeuhubMetrics;
 import neuhub.properties.*;
+import neuhub.response.FieldProjection;
+import neuhub.response.NeuhubResponse;
+import neuhub.similarity.SimilarityMatrix;
+import neuhub.similarity.SimilarityMatrixEngine;
+import neuhub.tts.LongTextSynthesizer;
+import neuhub.tts.TtsStreamer;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -11,20 +40,36 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.client.token.grant.client.ClientCredentialsResourceDetails;
 import org.springframework.test.context.junit4.SpringRunner;
-import org.springframework.web.client.RestTemplate;
 
+import javax.imageio.ImageIO;
 import javax.imageio.stream.FileImageInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 /**
  * {@link NeuhubAIDemoTester#asr()} 语音识别接口
@@ -56,25 +101,184 @@ import java.util.Map;
  * {@link NeuhubAIDemoTester#tts()} 语音合成接口
  * {@link NeuhubAIDemoTester#universal()} 通用文字识别接口
  * {@link NeuhubAIDemoTester#vehicle()} 行驶证识别接口
+ * {@link NeuhubAIDemoTester#humanDetectAsync()} 使用异步客户端并发调用人体检测接口
+ * {@link NeuhubAIDemoTester#faceCompareScore()} 人脸对比接口，只从响应中取出相似度和剩余额度
+ * {@link NeuhubAIDemoTester#lexerTyped()} 词法分析接口，响应直接解析为NeuhubResponse
+ * {@link NeuhubAIDemoTester#humanDetectBulk()} 批量调用人体检测接口，处理测试图片所在目录下的所有jpg图片
+ * {@link NeuhubAIDemoTester#faceIndex()} 同步人脸分组列表，在本地判断分组和人脸是否存在
+ * {@link NeuhubAIDemoTester#asrStreaming()} 流式语音识别，音频分段发送，每个分段返回后输出识别结果
+ * {@link NeuhubAIDemoTester#ttsStreaming()} 语音合成接口，音频边接收边写入文件
+ * {@link NeuhubAIDemoTester#ttsLongText()} 长文本语音合成，按句子切分后并发合成，按顺序写入文件
+ * {@link NeuhubAIDemoTester#foodPreprocessed()} 菜品识别接口，上传前缩小图片
+ * {@link NeuhubAIDemoTester#loadTest()} 以固定速率调用词法分析接口，输出延迟的分位数，可以配合stub profile离线运行
+ * {@link NeuhubAIDemoTester#latencyBudget()} 并发调用几个文本接口，按累计耗时从大到小输出各接口的指标
+ * {@link NeuhubAIDemoTester#corpus()} 批量分析jsonl语料，结果按顺序写入文件，再次运行时从检查点继续
+ * {@link NeuhubAIDemoTester#similarityMatrix()} 计算一组文本两两之间的相似度，相同的文本和字面差别大的文本对不调用接口
+ * {@link NeuhubAIDemoTester#lexerConcurrent()} 用同步客户端并发调用词法分析接口，可以用 mvn -Pjdk21 在虚拟线程中运行
+ * {@link NeuhubAIDemoTester#sexyPostDeduplicated()} 智能鉴黄接口，重复上传和重新压缩过的图片返回之前的审核结果
+ * {@link NeuhubAIDemoTester#faceEnrollment()} 从目录批量创建人脸，再次运行时跳过已创建的人脸
  */
 @RunWith(SpringRunner.class)
 @SpringBootTest(classes = NeuhubAIDemoApplication.class)
 public class NeuhubAIDemoTester {
 
     private Logger logger = LoggerFactory.getLogger(NeuhubAIDemoTester.class);
-    private RestTemplate restTemplate;
+    private NeuhubRestTemplate restTemplate;
+    private NeuhubAsyncClient neuhubAsyncClient;
+    private BulkExecutor bulkExecutor;
+    private FaceIndex faceIndex;
+    private FaceIndexReconciler faceIndexReconciler;
+    private AsrStreamer asrStreamer;
+    private TtsStreamer ttsStreamer;
+    private LongTextSynthesizer longTextSynthesizer;
+    private ImagePreprocessor imagePreprocessor;
+    private NeuhubMetrics neuhubMetrics;
+    private CorpusPipeline corpusPipeline;
+    private SimilarityMatrixEngine similarityMatrixEngine;
+    private BlockingCallExecutor blockingCallExecutor;
+    private ModerationDeduplicator moderationDeduplicator;
+    private FaceEnrollment faceEnrollment;
     private ClientCredentialsResourceDetails clientCredentialsResourceDetails;
 
     /**
-     * 这不是一个普通的RestTemplate，而是引用的OAuth2RestTemplate
+     * 这不是一个普通的RestTemplate，而是引用的OAuth2RestTemplate，并且可以直接指定ResponseExtractor
      *
      * @param restTemplate
      */
     @Autowired
-    public void setRestTemplate(RestTemplate restTemplate) {
+    public void setRestTemplate(NeuhubRestTemplate restTemplate) {
         this.restTemplate = restTemplate;
     }
 
+    /**
+     * 异步客户端，每个接口对应一个返回CompletableFuture的方法
+     *
+     * @param neuhubAsyncClient
+     */
+    @Autowired
+    public void setNeuhubAsyncClient(NeuhubAsyncClient neuhubAsyncClient) {
+        this.neuhubAsyncClient = neuhubAsyncClient;
+    }
+
+    /**
+     * 批量调用，并发上限在配置文件中进行修改
+     *
+     * @param bulkExecutor
+     */
+    @Autowired
+    public void setBulkExecutor(BulkExecutor bulkExecutor) {
+        this.bulkExecutor = bulkExecutor;
+    }
+
+    /**
+     * 人脸分组和人脸的本地索引，调用创建、删除分组和人脸的接口后自动更新
+     *
+     * @param faceIndex
+     */
+    @Autowired
+    public void setFaceIndex(FaceIndex faceIndex) {
+        this.faceIndex = faceIndex;
+    }
+
+    @Autowired
+    public void setFaceIndexReconciler(FaceIndexReconciler faceIndexReconciler) {
+        this.faceIndexReconciler = faceIndexReconciler;
+    }
+
+    /**
+     * 流式语音识别，分段大小在配置文件中进行修改
+     *
+     * @param asrStreamer
+     */
+    @Autowired
+    public void setAsrStreamer(AsrStreamer asrStreamer) {
+        this.asrStreamer = asrStreamer;
+    }
+
+    @Autowired
+    public void setTtsStreamer(TtsStreamer ttsStreamer) {
+        this.ttsStreamer = ttsStreamer;
+    }
+
+    /**
+     * 长文本语音合成，分段字符数和并发数在配置文件中进行修改
+     *
+     * @param longTextSynthesizer
+     */
+    @Autowired
+    public void setLongTextSynthesizer(LongTextSynthesizer longTextSynthesizer) {
+        this.longTextSynthesizer = longTextSynthesizer;
+    }
+
+    /**
+     * 图片预处理，启用的接口和像素上限在配置文件中进行修改
+     *
+     * @param imagePreprocessor
+     */
+    @Autowired
+    public void setImagePreprocessor(ImagePreprocessor imagePreprocessor) {
+        this.imagePreprocessor = imagePreprocessor;
+    }
+
+    /**
+     * 客户端指标，同时通过actuator的/metrics和/prometheus输出
+     *
+     * @param neuhubMetrics
+     */
+    @Autowired
+    public void setNeuhubMetrics(NeuhubMetrics neuhubMetrics) {
+        this.neuhubMetrics = neuhubMetrics;
+    }
+
+    /**
+     * 批量文本分析，结果按输入顺序写出，中断后从检查点继续
+     *
+     * @param corpusPipeline
+     */
+    @Autowired
+    public void setCorpusPipeline(CorpusPipeline corpusPipeline) {
+        this.corpusPipeline = corpusPipeline;
+    }
+
+    /**
+     * 相似度矩阵，一组文本两两调用短文本相似度接口
+     *
+     * @param similarityMatrixEngine
+     */
+    @Autowired
+    public void setSimilarityMatrixEngine(SimilarityMatrixEngine similarityMatrixEngine) {
+        this.similarityMatrixEngine = similarityMatrixEngine;
+    }
+
+    /**
+     * 在平台线程池或虚拟线程中执行同步调用
+     *
+     * @param blockingCallExecutor
+     */
+    @Autowired
+    public void setBlockingCallExecutor(BlockingCallExecutor blockingCallExecutor) {
+        this.blockingCallExecutor = blockingCallExecutor;
+    }
+
+    /**
+     * 智能鉴黄接口的近似重复图片去重
+     *
+     * @param moderationDeduplicator
+     */
+    @Autowired
+    public void setModerationDeduplicator(ModerationDeduplicator moderationDeduplicator) {
+        this.moderationDeduplicator = moderationDeduplicator;
+    }
+
+    /**
+     * 批量创建人脸，中断后可以重新运行
+     *
+     * @param faceEnrollment
+     */
+    @Autowired
+    public void setFaceEnrollment(FaceEnrollment faceEnrollment) {
+        this.faceEnrollment = faceEnrollment;
+    }
 
     @Autowired
     public void setClientCredentialsResourceDetails(ClientCredentialsResourceDetails clientCredentialsResourceDetails) {
@@ -131,7 +335,8 @@ public class NeuhubAIDemoTester {
 
     @Test
     public void humanDetect() {
-        byte[] data = dataBinary(picture);
+        //直接从文件发送，不会把图片读成byte[]
+        FileBody data = new FileBody(Paths.get(picture));
         HttpEntity<Object> requestEntity = new HttpEntity<>(data);
         //以下参数仅为示例值
         String requestUrl = gatewayUrl + "/neuhub/human_detect";
@@ -147,7 +352,8 @@ public class NeuhubAIDemoTester {
 
     @Test
     public void poseEstimation() {
-        byte[] data = dataBinary(picture);
+        //直接从文件发送，不会把图片读成byte[]
+        FileBody data = new FileBody(Paths.get(picture));
         HttpEntity<Object> requestEntity = new HttpEntity<>(data);
         //muti_det为单人姿态(1)或多人姿态(2)
         int muti_det = 1;
@@ -164,10 +370,9 @@ public class NeuhubAIDemoTester {
 
     @Test
     public void faceAntiSpoof() {
-        byte[] data = dataBinary(picture);
-        String encodedText = imageBase64(data);
-        String value = String.format("imageBase64=%s", encodedText);
-        HttpEntity<String> requestEntity = new HttpEntity<>(value);
+        //图片在发送时边读边做Base64编码，不会整个读入内存
+        Base64FormBody value = new Base64FormBody().addBase64File("imageBase64", Paths.get(picture));
+        HttpEntity<Base64FormBody> requestEntity = new HttpEntity<>(value);
         String requestUrl = gatewayUrl + "/neuhub/face_AntiSpoof";
         ResponseEntity<String> responseEntity = null;
         try {
@@ -181,12 +386,10 @@ public class NeuhubAIDemoTester {
 
     @Test
     public void faceCompare() {
-        byte[] face1Data = dataBinary(picture);
-        byte[] face2Data = dataBinary(pictureCompare);
-        String face1 = imageBase64(face1Data);
-        String face2 = imageBase64(face2Data);
-        String param = String.format("imageBase64_1=%s&imageBase64_2=%s", face1, face2);
-        HttpEntity<String> requestEntity = new HttpEntity<>(param);
+        Base64FormBody param = new Base64FormBody()
+                .addBase64File("imageBase64_1", Paths.get(picture))
+                .addBase64File("imageBase64_2", Paths.get(pictureCompare));
+        HttpEntity<Base64FormBody> requestEntity = new HttpEntity<>(param);
         String requestUrl = gatewayUrl + "/neuhub/face_compare";
         ResponseEntity<String> responseEntity = null;
         try {
@@ -200,10 +403,8 @@ public class NeuhubAIDemoTester {
 
     @Test
     public void faceDetectAttr() {
-        byte[] data = dataBinary(picture);
-        String encodedText = imageBase64(data);
-        String value = String.format("imageBase64=%s", encodedText);
-        HttpEntity<String> requestEntity = new HttpEntity<>(value);
+        Base64FormBody value = new Base64FormBody().addBase64File("imageBase64", Paths.get(picture));
+        HttpEntity<Base64FormBody> requestEntity = new HttpEntity<>(value);
         String requestUrl = gatewayUrl + "/neuhub/face_detect_attr";
         ResponseEntity<String> responseEntity = null;
         try {
@@ -236,9 +437,7 @@ public class NeuhubAIDemoTester {
 
     @Test
     public void faceCreate() {
-        byte[] data = dataBinary(picture);
-        String encodedText = imageBase64(data);
-        String param = String.format("imageBase64=%s", encodedText);
+        Base64FormBody param = new Base64FormBody().addBase64File("imageBase64", Paths.get(picture));
         HttpEntity<Object> requestEntity = new HttpEntity<>(param);
         /**
          *  groupId需要调接口去创建
@@ -322,9 +521,7 @@ public class NeuhubAIDemoTester {
 
     @Test
     public void searchFace() {
-        byte[] data = dataBinary(picture);
-        String encodedText = imageBase64(data);
-        String param = String.format("imageBase64=%s", encodedText);
+        Base64FormBody param = new Base64FormBody().addBase64File("imageBase64", Paths.get(picture));
         HttpEntity<Object> requestEntity = new HttpEntity<>(param);
         //groupId为分组ID
         String groupId = "5249f5d4-96ad-46b5-8e88-1e51be2d20c8";
@@ -355,7 +552,8 @@ public class NeuhubAIDemoTester {
 
     @Test
     public void sexyPost() {
-        byte[] data = dataBinary(picture);
+        //直接从文件发送，不会把图片读成byte[]
+        FileBody data = new FileBody(Paths.get(picture));
         HttpEntity<Object> requestEntity = new HttpEntity<>(data);
         String requestUrl = gatewayUrl + "/neuhub/localCvImage";
         ResponseEntity<String> responseEntity = null;
@@ -390,7 +588,8 @@ public class NeuhubAIDemoTester {
 
     @Test
     public void leaderRec() {
-        byte[] data = dataBinary(picture);
+        //直接从文件发送，不会把图片读成byte[]
+        FileBody data = new FileBody(Paths.get(picture));
         HttpEntity<Object> requestEntity = new HttpEntity<>(data);
         //以下参数仅为示例值
         String requestUrl = gatewayUrl + "/neuhub/PoliticiansRecognition";
@@ -426,13 +625,13 @@ public class NeuhubAIDemoTester {
 
     @Test
     public void snapShop() {
-        byte[] data = dataBinary(picture);
-        String encodedText = imageBase64(data);
         //以下参数仅为示例值
         //todo channel_id 为test 需向管理员申请一个专属的
         String channelId = "test";
-        String request = String.format("channel_id=%s&&imgBase64=%s", channelId, encodedText);
-        HttpEntity<String> requestEntity = new HttpEntity<>(request);
+        Base64FormBody request = new Base64FormBody()
+                .addField("channel_id", channelId)
+                .addBase64File("imgBase64", Paths.get(picture));
+        HttpEntity<Base64FormBody> requestEntity = new HttpEntity<>(request);
         String requestUrl = gatewayUrl + "/neuhub/snapshop";
         ResponseEntity<String> responseEntity = null;
         try {
@@ -551,7 +750,8 @@ public class NeuhubAIDemoTester {
     @Test
     public void idCard() {
         //需要传一张真实的身份证的照片
-        byte[] data = dataBinary(picture);
+        //直接从文件发送，不会把图片读成byte[]
+        FileBody data = new FileBody(Paths.get(picture));
         HttpEntity<Object> requestEntity = new HttpEntity<>(data);
         String requestUrl = gatewayUrl + "/neuhub/ocr_idcard";
         ResponseEntity<String> responseEntity = null;
@@ -566,7 +766,8 @@ public class NeuhubAIDemoTester {
 
     @Test
     public void invoice() {
-        byte[] data = dataBinary(picture);
+        //直接从文件发送，不会把图片读成byte[]
+        FileBody data = new FileBody(Paths.get(picture));
         HttpEntity<Object> requestEntity = new HttpEntity<>(data);
         String requestUrl = gatewayUrl + "/neuhub/ocr_invoice";
         ResponseEntity<String> responseEntity = null;
@@ -581,7 +782,8 @@ public class NeuhubAIDemoTester {
 
     @Test
     public void universal() {
-        byte[] data = dataBinary(picture);
+        //直接从文件发送，不会把图片读成byte[]
+        FileBody data = new FileBody(Paths.get(picture));
         HttpEntity<Object> requestEntity = new HttpEntity<>(data);
         String requestUrl = gatewayUrl + "/neuhub/ocr_universal";
         ResponseEntity<String> responseEntity = null;
@@ -596,7 +798,8 @@ public class NeuhubAIDemoTester {
 
     @Test
     public void vehicle() {
-        byte[] data = dataBinary(picture);
+        //直接从文件发送，不会把图片读成byte[]
+        FileBody data = new FileBody(Paths.get(picture));
         HttpEntity<Object> requestEntity = new HttpEntity<>(data);
         String requestUrl = gatewayUrl + "/neuhub/ocr_vehicle_recognition";
         ResponseEntity<String> responseEntity = null;
@@ -626,7 +829,7 @@ public class NeuhubAIDemoTester {
         int asrProtocol = 1;
         int netState = 2;
         int applicator = 1;
-        byte[] data = dataBinary(picture);
+        FileBody data = new FileBody(Paths.get(picture));
         AsrEncode asrEncode = new AsrEncode(1, "wav", 16000);
         AsrProperty property = new AsrProperty(false, asrEncode, "Linux", "0.0.0.1");
         HttpHeaders httpHeaders = new HttpHeaders();
@@ -687,6 +890,379 @@ public class NeuhubAIDemoTester {
         result(responseEntity);
     }
 
+    /**
+     * 同一张图片并发调用10次，请求发出后不占用线程，全部返回后再逐个输出结果
+     */
+    @Test
+    public void humanDetectAsync() {
+        byte[] data = dataBinary(picture);
+        List<CompletableFuture<ResponseEntity<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(neuhubAsyncClient.humanDetect(data));
+        }
+        for (CompletableFuture<ResponseEntity<String>> future : futures) {
+            try {
+                result(future.join());
+            } catch (Exception e) {
+                //调用API失败，错误处理
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * 边读响应边解析，只取出result.score和remain，其余字段直接跳过
+     */
+    @Test
+    public void faceCompareScore() {
+        Base64FormBody param = new Base64FormBody()
+                .addBase64File("imageBase64_1", Paths.get(picture))
+                .addBase64File("imageBase64_2", Paths.get(pictureCompare));
+        HttpEntity<Base64FormBody> requestEntity = new HttpEntity<>(param);
+        String requestUrl = gatewayUrl + "/neuhub/face_compare";
+        Map<String, JsonNode> fields = null;
+        try {
+            fields = restTemplate.execute(requestUrl, HttpMethod.POST, requestEntity,
+                    new FieldProjection("result.score", "remain"));
+        } catch (Exception e) {
+            //调用API失败，错误处理
+            throw new RuntimeException(e);
+        }
+        logger.info("相似度: {}, 剩余额度: {}", fields.get("result.score"), fields.get("remain"));
+    }
+
+    /**
+     * 响应直接从流中解析为NeuhubResponse，不经过String
+     */
+    @Test
+    public void lexerTyped() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("text", comment);
+        map.put("type", 0);
+        HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(map);
+        String requestUrl = gatewayUrl + "/neuhub/lexer";
+        ResponseEntity<NeuhubResponse<JsonNode>> responseEntity = null;
+        try {
+            responseEntity = restTemplate.exchange(requestUrl, HttpMethod.POST, requestEntity,
+                    new ParameterizedTypeReference<NeuhubResponse<JsonNode>>() {
+                    });
+        } catch (Exception e) {
+            //调用API失败，错误处理
+            throw new RuntimeException(e);
+        }
+        NeuhubResponse<JsonNode> response = responseEntity.getBody();
+        logger.info("调用结果: {}, 剩余额度: {}, result: {}", response.getCode(), response.getRemain(), response.getResult());
+    }
+
+    /**
+     * 图片边处理边读取，同时发出的请求数不超过配置的并发上限，结果按完成顺序输出
+     */
+    @Test
+    public void humanDetectBulk() throws Exception {
+        Path directory = Paths.get(picture).toAbsolutePath().getParent();
+        int success = 0;
+        int failure = 0;
+        try (Stream<BulkResult<Path, ResponseEntity<String>>> results = bulkExecutor.execute(directory, "*.jpg",
+                file -> neuhubAsyncClient.exchange(NeuhubEndpoint.HUMAN_DETECT, new HttpEntity<>(new FileBody(file)), String.class))) {
+            Iterator<BulkResult<Path, ResponseEntity<String>>> iterator = results.iterator();
+            while (iterator.hasNext()) {
+                BulkResult<Path, ResponseEntity<String>> result = iterator.next();
+                if (result.isSuccess()) {
+                    success++;
+                    logger.info("{} 调用结果: {}", result.getInput(), result.getResult().getBody());
+                } else {
+                    failure++;
+                    logger.error("{} 调用失败", result.getInput(), result.getError());
+                }
+            }
+        }
+        logger.info("成功: {}, 失败: {}", success, failure);
+    }
+
+    /**
+     * 先从网关同步分组列表，之后的判断都在本地完成，不调用网关
+     */
+    @Test
+    public void faceIndex() {
+        String groupId = "c0a0ed2b-a355-48c7-a4f7-c702fda26308";
+        String outerId = "0726testFace1";
+        try {
+            faceIndexReconciler.reconcile();
+        } catch (Exception e) {
+            //调用API失败，错误处理
+            throw new RuntimeException(e);
+        }
+        logger.info("分组数: {}, 分组{}是否存在: {}, 人脸数: {}, 人脸{}: {}", faceIndex.groupCount(), groupId,
+                faceIndex.containsGroup(groupId), faceIndex.faceCount(groupId), outerId, faceIndex.containsFace(groupId, outerId));
+    }
+
+    /**
+     * 参数含义与{@link NeuhubAIDemoTester#asr()}相同，Request-Id和Sequence-Id由会话填写，
+     * 音频边读边按分段发送，不需要等整个文件读完
+     */
+    @Test
+    public void asrStreaming() {
+        AsrEncode asrEncode = new AsrEncode(1, "wav", 16000);
+        AsrProperty property = new AsrProperty(false, asrEncode, "Linux", "0.0.0.1");
+        AsrHeaders headers = new AsrHeaders("search", "search-app", null, 0, 1, 2, 1, property);
+        NeuhubResponse<JsonNode> response = null;
+        try (InputStream audio = Files.newInputStream(Paths.get(picture))) {
+            response = asrStreamer.recognize(headers, audio,
+                    (sequenceId, partial) -> logger.info("分段{}: {}", sequenceId, partial.getResult())).join();
+        } catch (Exception e) {
+            //调用API失败，错误处理
+            throw new RuntimeException(e);
+        }
+        logger.info("识别结果: {}", response.getResult());
+    }
+
+    /**
+     * 参数含义与{@link NeuhubAIDemoTester#tts()}相同，音频写入系统临时目录下的文件，收到第一段音频时就开始写
+     */
+    @Test
+    public void ttsStreaming() {
+        TtsParameters ttsParameters = new TtsParameters("1", "1", "0", "2.0", "1.0", "24000");
+        TtsProperty property = new TtsProperty("Linux", "0.0.0.1", ttsParameters);
+        TtsHeaders headers = new TtsHeaders("synthesis", "65845428-de85-11e8-9517-040973d59a1e", 1, 1, 1, 1, property);
+        Path audio = Paths.get(System.getProperty("java.io.tmpdir"), "neuhub-tts.pcm");
+        long written;
+        try (FileChannel channel = FileChannel.open(audio, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            written = ttsStreamer.synthesize(headers, comment, channel);
+        } catch (Exception e) {
+            //调用API失败，错误处理
+            throw new RuntimeException(e);
+        }
+        logger.info("音频已写入{}，共{}字节", audio, written);
+    }
+
+    /**
+     * 参数含义与{@link NeuhubAIDemoTester#tts()}相同，评论文本重复20次作为长文本，第1段合成完成后就开始写文件
+     */
+    @Test
+    public void ttsLongText() {
+        TtsParameters ttsParameters = new TtsParameters("1", "1", "0", "2.0", "1.0", "24000");
+        TtsProperty property = new TtsProperty("Linux", "0.0.0.1", ttsParameters);
+        TtsHeaders headers = new TtsHeaders("synthesis", "65845428-de85-11e8-9517-040973d59a1e", 1, 1, 1, 1, property);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            text.append(comment).append('。');
+        }
+        Path audio = Paths.get(System.getProperty("java.io.tmpdir"), "neuhub-tts-long.pcm");
+        long written;
+        try (FileChannel channel = FileChannel.open(audio, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            written = longTextSynthesizer.synthesize(headers, text.toString(), channel);
+        } catch (Exception e) {
+            //调用API失败，错误处理
+            throw new RuntimeException(e);
+        }
+        logger.info("音频已写入{}，共{}字节", audio, written);
+    }
+
+    /**
+     * 与{@link NeuhubAIDemoTester#food()}相同，Base64编码前先缩小图片，
+     * 需要在配置文件的neuhub.image.endpoints中启用FOOD，否则使用原图
+     */
+    @Test
+    public void foodPreprocessed() throws Exception {
+        byte[] data = imagePreprocessor.process(NeuhubEndpoint.FOOD, dataBinary(picture));
+        String value = new ObjectMapper().writeValueAsString(new Picture(imageBase64(data)));
+        HttpEntity<String> requestEntity = new HttpEntity<>(value);
+        String requestUrl = gatewayUrl + "/neuhub/FoodApi";
+        ResponseEntity<String> responseEntity = null;
+        try {
+            responseEntity = restTemplate.postForEntity(requestUrl, requestEntity, String.class);
+        } catch (Exception e) {
+            //调用API失败，错误处理
+            throw new RuntimeException(e);
+        }
+        result(responseEntity);
+        logger.info("上传{}字节，预处理累计少上传{}字节", data.length, imagePreprocessor.getBytesSaved());
+    }
+
+    /**
+     * 每秒200次调用词法分析接口，预热5秒后压测30秒，延迟从计划发出的时间开始计算；
+     * spring.profiles.active填写stub时调用本地模拟网关，不会消耗真实的调用次数
+     */
+    @Test
+    public void loadTest() {
+        LoadGenerator generator = new LoadGenerator(200, 1000);
+        LoadReport report = generator.run(() -> neuhubAsyncClient.lexer(comment, 0), 5, 30, TimeUnit.SECONDS);
+        logger.info("压测结果: {}", report);
+        ByteArrayOutputStream distribution = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(distribution)) {
+            report.outputPercentileDistribution(out);
+        }
+        logger.info("延迟分布(ms):\n{}", distribution);
+    }
+
+    /**
+     * 词法分析、情感分析、文本分类各调用20次，之后输出各接口的累计耗时、次数和p99，累计耗时最大的接口最值得优化
+     */
+    @Test
+    public void latencyBudget() {
+        List<CompletableFuture<ResponseEntity<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(neuhubAsyncClient.lexer(comment, 0));
+            futures.add(neuhubAsyncClient.sentiment(0, comment));
+            futures.add(neuhubAsyncClient.textClassification(comment));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (Exception e) {
+            //调用API失败，错误处理
+            throw new RuntimeException(e);
+        }
+        Map<String, Double> totals = neuhubMetrics.totalTimeByEndpoint(TimeUnit.MILLISECONDS);
+        double sum = totals.values().stream().mapToDouble(Double::doubleValue).sum();
+        for (Map.Entry<String, Double> entry : totals.entrySet()) {
+            logger.info("{}: 累计{}ms，占{}%", entry.getKey(), Math.round(entry.getValue()), Math.round(entry.getValue() * 100 / sum));
+        }
+        neuhubMetrics.getRegistry().find(NeuhubMetrics.REQUESTS).timers().forEach(timer -> logger.info("{} status={} code={}: {}次，p99 {}ms",
+                timer.getId().getTag("endpoint"), timer.getId().getTag("status"), timer.getId().getTag("code"), timer.count(),
+                Math.round(percentile(timer, 0.99))));
+    }
+
+    /**
+     * @return - 计时器发布的分位数，单位为毫秒，没有发布该分位数时返回NaN
+     */
+    private static double percentile(Timer timer, double percentile) {
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * 把测试文本写成200条记录的jsonl语料，调用配置的文本接口，结果写入临时目录下的corpus.out.jsonl；
+     * 第二次运行从检查点继续，所有记录都已处理，不会再调用接口
+     */
+    @Test
+    public void corpus() {
+        try {
+            Path directory = Files.createTempDirectory("corpus");
+            Path input = directory.resolve("corpus.jsonl");
+            ObjectMapper objectMapper = new ObjectMapper();
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                lines.add(objectMapper.createObjectNode().put("id", "c" + i).put("text", comment).toString());
+            }
+            Files.write(input, lines);
+            Path output = directory.resolve("corpus.out.jsonl");
+            CorpusCheckpoint checkpoint = corpusPipeline.run(input, output);
+            logger.info("{}，结果文件: {}", checkpoint, output);
+            checkpoint = corpusPipeline.run(input, output);
+            logger.info("再次运行: {}", checkpoint);
+        } catch (Exception e) {
+            //调用API失败，错误处理
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 测试文本、相似文本、只有大小写和空白不同的测试文本以及几条无关的文本，两两计算相似度
+     */
+    @Test
+    public void similarityMatrix() {
+        List<String> texts = new ArrayList<>();
+        texts.add(comment);
+        texts.add(commentCompare);
+        texts.add(" " + comment.toUpperCase() + " ");
+        texts.add("Apple iPhone 12 64GB 黑色 移动联通电信5G手机");
+        texts.add("apple iphone 12 64gb 黑色 全网通5G手机");
+        texts.add("小米 Redmi Note 9 Pro 5G 一亿像素");
+        SimilarityMatrix matrix = null;
+        try {
+            matrix = similarityMatrixEngine.compute(texts);
+        } catch (Exception e) {
+            //调用API失败，错误处理
+            throw new RuntimeException(e);
+        }
+        logger.info("{}", matrix);
+        for (int i = 0; i < texts.size(); i++) {
+            for (int j = i + 1; j < texts.size(); j++) {
+                logger.info("{} - {}: {}", texts.get(i), texts.get(j), matrix.get(i, j));
+            }
+        }
+    }
+
+    /**
+     * 与{@link #lexer()}相同的同步调用，并发执行1000次
+     */
+    @Test
+    public void lexerConcurrent() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("text", comment);
+        map.put("type", 0);
+        HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(map);
+        String requestUrl = gatewayUrl + "/neuhub/lexer";
+        List<Integer> inputs = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            inputs.add(i);
+        }
+        long start = System.currentTimeMillis();
+        List<ResponseEntity<String>> responses = null;
+        try {
+            responses = blockingCallExecutor.invokeAll(inputs, i -> restTemplate.postForEntity(requestUrl, requestEntity, String.class));
+        } catch (Exception e) {
+            //调用API失败，错误处理
+            throw new RuntimeException(e);
+        }
+        logger.info("{}线程，{}次调用耗时{}ms", blockingCallExecutor.isVirtual() ? "虚拟" : "平台", responses.size(),
+                System.currentTimeMillis() - start);
+        result(responses.get(0));
+    }
+
+    /**
+     * 测试图片上传两次，再重新压缩后上传一次，只有第一次调用网关
+     */
+    @Test
+    public void sexyPostDeduplicated() {
+        byte[] image = dataBinary(picture);
+        ResponseEntity<String> responseEntity = null;
+        try {
+            ByteArrayOutputStream recompressed = new ByteArrayOutputStream();
+            ImageIO.write(ImageIO.read(new ByteArrayInputStream(image)), "jpg", recompressed);
+            moderationDeduplicator.sexyPost(image).join();
+            moderationDeduplicator.sexyPost(image).join();
+            responseEntity = moderationDeduplicator.sexyPost(recompressed.toByteArray()).join();
+        } catch (Exception e) {
+            //调用API失败，错误处理
+            throw new RuntimeException(e);
+        }
+        logger.info("命中{}次，调用网关{}次，其中{}次因哈希信息太少没有去重", moderationDeduplicator.getHits(),
+                moderationDeduplicator.getMisses() + moderationDeduplicator.getDegenerate(), moderationDeduplicator.getDegenerate());
+        result(responseEntity);
+    }
+
+    /**
+     * 测试图片复制为20个文件，创建到同一个分组，再次运行时全部跳过
+     */
+    @Test
+    public void faceEnrollment() {
+        /**
+         *  groupId需要调接口去创建
+         */
+        String groupId = "c0a0ed2b-a355-48c7-a4f7-c702fda26308";
+        try {
+            Path directory = Files.createTempDirectory("enrollment");
+            for (int i = 0; i < 20; i++) {
+                Files.copy(Paths.get(picture), directory.resolve("face" + i + ".jpg"));
+            }
+            Path journal = directory.resolve("enrollment.log");
+            EnrollmentReport report = faceEnrollment.enroll(groupId, directory, "*.jpg", journal);
+            logger.info("{}，失败明细: {}，日志文件: {}", report, report.getFailures(), journal);
+            report = faceEnrollment.enroll(groupId, directory, "*.jpg", journal);
+            logger.info("再次运行: {}", report);
+        } catch (Exception e) {
+            //调用API失败，错误处理
+            throw new RuntimeException(e);
+        }
+    }
+
     private String imageBase64(byte[] data) {
         Base64.Encoder encoder = Base64.getEncoder();
         return encoder.encodeToString(data);
@@ -0,0 +1,17 @@
+package neuhub.asr;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import neuhub.response.NeuhubResponse;
+
+/**
+ * 接收流式语音识别每个分段的识别结果
+ */
+public interface AsrListener {
+
+    /**
+     * 在http客户端的io线程上调用，不能阻塞
+     * @param sequenceId - 分段号，最后一个分段为负数
+     * @param response - 该分段的响应，result为到目前为止的识别结果
+     */
+    void onResult(int sequenceId, NeuhubResponse<JsonNode> response);
+}
@@ -0,0 +1,189 @@
+package neuhub.asr;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import neuhub.client.NeuhubAsyncClient;
+import neuhub.client.NeuhubEndpoint;
+import neuhub.client.NeuhubFailures;
+import neuhub.properties.AsrHeaders;
+import neuhub.response.NeuhubResponse;
+import neuhub.routing.NeuhubRegion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 一次流式语音识别，音频边写入边按分段发送，所有分段使用同一个Request-Id
+ * <ul>
+ * <li>分段号从1开始递增，最后一个分段的分段号取负数</li>
+ * <li>写满一个分段时发送上一个分段，始终留一个分段在本地，{@link #finish()}时作为最后一个分段发送</li>
+ * <li>不等前一个分段返回就发送下一个，同时等待响应的分段数达到上限时write阻塞</li>
+ * <li>所有分段发往同一个地域，失败时不换地域；任一分段失败，整个识别失败</li>
+ * </ul>
+ * 由{@link AsrStreamer#open(AsrHeaders, AsrListener)}创建，write和finish可以在不同线程调用，但不能并发调用
+ */
+public class AsrSession {
+
+    private Logger logger = LoggerFactory.getLogger(AsrSession.class);
+
+    private final NeuhubAsyncClient client;
+    private final NeuhubRegion region;
+    private final AsrHeaders headers;
+    private final AsrListener listener;
+    private final Semaphore inFlight;
+    private final byte[] buffer;
+    private final List<CompletableFuture<NeuhubResponse<JsonNode>>> segments = new ArrayList<>();
+    private int length;
+    private byte[] pending;
+    private int nextSequenceId = 1;
+    private boolean finished;
+    private volatile Throwable failure;
+
+    AsrSession(NeuhubAsyncClient client, NeuhubRegion region, AsrHeaders headers, AsrListener listener, int segmentBytes,
+               int maxInFlight) {
+        this.client = client;
+        this.region = region;
+        this.headers = headers;
+        this.listener = listener;
+        this.inFlight = new Semaphore(Math.max(1, maxInFlight));
+        this.buffer = new byte[segmentBytes];
+    }
+
+    /**
+     * 写入音频，写满一个分段时发送
+     * @throws IOException - 已有分段识别失败，或等待发送时线程被中断
+     */
+    public synchronized void write(byte[] audio, int offset, int count) throws IOException {
+        checkOpen();
+        while (count > 0) {
+            int copied = Math.min(count, buffer.length - length);
+            System.arraycopy(audio, offset, buffer, length, copied);
+            length += copied;
+            offset += copied;
+            count -= copied;
+            if (length == buffer.length) {
+                rotate();
+            }
+        }
+    }
+
+    public synchronized void write(ByteBuffer audio) throws IOException {
+        checkOpen();
+        while (audio.hasRemaining()) {
+            int copied = Math.min(audio.remaining(), buffer.length - length);
+            audio.get(buffer, length, copied);
+            length += copied;
+            if (length == buffer.length) {
+                rotate();
+            }
+        }
+    }
+
+    /**
+     * 发送剩余的音频，最后一个分段的分段号取负数
+     * @return - 所有分段返回后完成，结果为最后一个分段的响应
+     * @throws IOException - 已有分段识别失败，或等待发送时线程被中断
+     * @throws IllegalStateException - 没有写入任何音频
+     */
+    public synchronized CompletableFuture<NeuhubResponse<JsonNode>> finish() throws IOException {
+        checkOpen();
+        finished = true;
+        if (length > 0) {
+            if (pending != null) {
+                send(pending, false);
+            }
+            send(Arrays.copyOf(buffer, length), true);
+        } else if (pending != null) {
+            send(pending, true);
+        } else {
+            throw new IllegalStateException("没有写入音频");
+        }
+        CompletableFuture<NeuhubResponse<JsonNode>> last = segments.get(segments.size() - 1);
+        return CompletableFuture.allOf(segments.toArray(new CompletableFuture<?>[0])).thenApply(v -> last.join());
+    }
+
+    public String getRequestId() {
+        return headers.getRequestId();
+    }
+
+    private void rotate() throws IOException {
+        if (pending != null) {
+            send(pending, false);
+        }
+        pending = buffer.clone();
+        length = 0;
+    }
+
+    private void send(byte[] segment, boolean last) throws IOException {
+        int sequenceId = last ? -nextSequenceId : nextSequenceId;
+        nextSequenceId++;
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待发送语音分段时线程被中断");
+        }
+        CompletableFuture<ResponseEntity<NeuhubResponse<JsonNode>>> exchange;
+        try {
+            checkFailure();
+            HttpHeaders httpHeaders = headers.toHttpHeaders();
+            httpHeaders.set("Sequence-Id", Integer.toString(sequenceId));
+            @SuppressWarnings("unchecked")
+            Class<NeuhubResponse<JsonNode>> responseType = (Class<NeuhubResponse<JsonNode>>) (Class<?>) NeuhubResponse.class;
+            exchange = client.exchange(region, NeuhubEndpoint.ASR, new HttpEntity<>(segment, httpHeaders), responseType);
+        } catch (IOException | RuntimeException e) {
+            // 请求没有发出，回调不会执行
+            inFlight.release();
+            throw e;
+        }
+        CompletableFuture<NeuhubResponse<JsonNode>> future = exchange
+                .handle((response, ex) -> {
+                    inFlight.release();
+                    return onResponse(sequenceId, response, ex);
+                });
+        segments.add(future);
+    }
+
+    private NeuhubResponse<JsonNode> onResponse(int sequenceId, ResponseEntity<NeuhubResponse<JsonNode>> response, Throwable ex) {
+        Throwable error = ex != null ? NeuhubFailures.unwrap(ex) : null;
+        NeuhubResponse<JsonNode> body = response == null ? null : response.getBody();
+        if (error == null && (body == null || !body.isSuccess())) {
+            error = new RestClientException(String.format("语音分段%d识别失败: %s", sequenceId, body == null ? null : body.getMsg()));
+        }
+        if (error != null) {
+            failure = error;
+            throw error instanceof RuntimeException ? (RuntimeException) error : new RestClientException(error.getMessage(), error);
+        }
+        try {
+            listener.onResult(sequenceId, body);
+        } catch (RuntimeException e) {
+            logger.warn("处理语音分段{}的识别结果失败", sequenceId, e);
+        }
+        return body;
+    }
+
+    private void checkOpen() throws IOException {
+        if (finished) {
+            throw new IllegalStateException("识别已结束");
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable error = failure;
+        if (error != null) {
+            throw new IOException("语音识别失败", error);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package neuhub.asr;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import neuhub.client.NeuhubAsyncClient;
+import neuhub.configuration.NeuhubAsrProperties;
+import neuhub.properties.AsrEncode;
+import neuhub.properties.AsrHeaders;
+import neuhub.response.NeuhubResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 流式语音识别，音频不需要全部读入内存，第一个分段发出后就能收到识别结果
+ * <ul>
+ * <li>wav和pcm格式按segment-duration和AsrEncode中的声道数、采样率计算分段大小，其他格式每段segment-bytes字节</li>
+ * <li>分段的发送和结果见{@link AsrSession}</li>
+ * </ul>
+ */
+public class AsrStreamer {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final NeuhubAsyncClient client;
+    private final NeuhubAsrProperties properties;
+
+    public AsrStreamer(NeuhubAsyncClient client, NeuhubAsrProperties properties) {
+        this.client = client;
+        this.properties = properties;
+    }
+
+    /**
+     * 开始一次识别，音频由调用方写入
+     * @param headers - 请求头，Sequence-Id由会话填写；requestId为空时生成一个
+     * @param listener - 接收每个分段的识别结果
+     * @return - 识别会话
+     */
+    public AsrSession open(AsrHeaders headers, AsrListener listener) {
+        if (headers.getRequestId() == null || headers.getRequestId().isEmpty()) {
+            headers.setRequestId(UUID.randomUUID().toString());
+        }
+        return new AsrSession(client, client.selectRegion(), headers, listener, segmentBytes(headers.getProperty().getEncode()),
+                properties.getMaxInFlight());
+    }
+
+    /**
+     * 从流中读取音频并识别，在当前线程读取，读到流结束时发送最后一个分段，不关闭流
+     * @return - 最后一个分段的响应
+     * @throws IOException - 读取音频失败或识别失败
+     */
+    public CompletableFuture<NeuhubResponse<JsonNode>> recognize(AsrHeaders headers, InputStream audio, AsrListener listener)
+            throws IOException {
+        AsrSession session = open(headers, listener);
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        int read;
+        while ((read = audio.read(buffer)) != -1) {
+            session.write(buffer, 0, read);
+        }
+        return session.finish();
+    }
+
+    /**
+     * 从通道中读取音频并识别，与{@link #recognize(AsrHeaders, InputStream, AsrListener)}相同
+     */
+    public CompletableFuture<NeuhubResponse<JsonNode>> recognize(AsrHeaders headers, ReadableByteChannel audio, AsrListener listener)
+            throws IOException {
+        AsrSession session = open(headers, listener);
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        while (audio.read(buffer) != -1) {
+            buffer.flip();
+            session.write(buffer);
+            buffer.clear();
+        }
+        return session.finish();
+    }
+
+    private int segmentBytes(AsrEncode encode) {
+        String format = encode.getFormat() == null ? "" : encode.getFormat().toLowerCase();
+        if (format.equals("wav") || format.equals("pcm")) {
+            long bytes = 2L * Math.max(1, encode.getChannel()) * encode.getSample_rate() * properties.getSegmentDuration() / 1000;
+            if (bytes > 0) {
+                return (int) bytes;
+            }
+        }
+        return properties.getSegmentBytes();
+    }
+}
@@ -0,0 +1,135 @@
+package neuhub.bulk;
+
+import neuhub.client.NeuhubFailures;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 以有限的并发把大量输入交给异步接口处理，结果以Stream的形式按完成顺序返回
+ * <ul>
+ * <li>同时发出的请求不超过concurrency个，输入在需要时才从迭代器中读取，不会一次性读入内存</li>
+ * <li>调用方从Stream中取走一个结果后才会发出下一个请求，处理结果慢时请求自然放缓</li>
+ * <li>单个输入失败不影响其他输入，失败原因记录在{@link BulkResult}中</li>
+ * <li>返回的Stream只能在一个线程中消费</li>
+ * </ul>
+ * 异步接口一般使用{@link neuhub.client.NeuhubAsyncClient}，如 executor.execute(files, file -&gt; client.humanDetect(...))
+ */
+public class BulkExecutor {
+
+    private final int concurrency;
+
+    /**
+     * @param concurrency - 同时发出的请求数上限
+     */
+    public BulkExecutor(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency必须大于0");
+        }
+        this.concurrency = concurrency;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * @param inputs - 输入
+     * @param call - 对单个输入发起异步调用
+     * @return - 按完成顺序排列的结果
+     */
+    public <I, R> Stream<BulkResult<I, R>> execute(Iterator<? extends I> inputs, Function<? super I, CompletableFuture<R>> call) {
+        Spliterator<BulkResult<I, R>> spliterator = Spliterators.spliteratorUnknownSize(
+                new ResultIterator<>(inputs, call), Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * 处理目录下的所有文件，不包含子目录，关闭返回的Stream时关闭目录
+     * @param directory - 目录
+     * @param glob - 文件名匹配规则，如 *.jpg
+     * @param call - 对单个文件发起异步调用
+     * @return - 按完成顺序排列的结果
+     * @throws IOException - 打开目录失败
+     */
+    public <R> Stream<BulkResult<Path, R>> execute(Path directory, String glob, Function<? super Path, CompletableFuture<R>> call)
+            throws IOException {
+        PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
+        DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                entry -> Files.isRegularFile(entry) && matcher.matches(entry.getFileName()));
+        return this.<Path, R>execute(files.iterator(), call).onClose(() -> {
+            try {
+                files.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * 取结果时先把请求补到并发上限，再等待任意一个请求完成
+     */
+    private class ResultIterator<I, R> implements Iterator<BulkResult<I, R>> {
+
+        private final Iterator<? extends I> inputs;
+        private final Function<? super I, CompletableFuture<R>> call;
+        private final BlockingQueue<BulkResult<I, R>> completed = new LinkedBlockingQueue<>();
+        private int inFlight;
+
+        private ResultIterator(Iterator<? extends I> inputs, Function<? super I, CompletableFuture<R>> call) {
+            this.inputs = inputs;
+            this.call = call;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (inFlight < concurrency && inputs.hasNext()) {
+                submit(inputs.next());
+            }
+            return inFlight > 0;
+        }
+
+        @Override
+        public BulkResult<I, R> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                BulkResult<I, R> result = completed.take();
+                inFlight--;
+                return result;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待结果时线程被中断", e);
+            }
+        }
+
+        private void submit(I input) {
+            inFlight++;
+            long start = System.currentTimeMillis();
+            CompletableFuture<R> future;
+            try {
+                future = call.apply(input);
+            } catch (RuntimeException e) {
+                completed.add(new BulkResult<>(input, null, e, 0));
+                return;
+            }
+            future.whenComplete((result, ex) -> completed.add(
+                    new BulkResult<>(input, result, NeuhubFailures.unwrap(ex), System.currentTimeMillis() - start)));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package neuhub.bulk;
+
+/**
+ * 批量调用中单个输入的结果，成功时error为null，失败时result为null
+ * @param <I> - 输入的类型
+ * @param <R> - 结果的类型
+ */
+public class BulkResult<I, R> {
+
+    private final I input;
+    private final R result;
+    private final Throwable error;
+    private final long elapsedMillis;
+
+    BulkResult(I input, R result, Throwable error, long elapsedMillis) {
+        this.input = input;
+        this.result = result;
+        this.error = error;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public I getInput() {
+        return input;
+    }
+
+    public R getResult() {
+        return result;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * @return - 从发出请求到得到结果的耗时，单位为毫秒
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkResult{" +
+                "input=" + input +
+                ", result=" + result +
+                ", error=" + error +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
@@ -0,0 +1,121 @@
+package neuhub.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 不发送的请求，只计算缓存的key
+ * <ul>
+ * <li>key是请求方法、路径和参数、请求头、请求体的SHA-256，不包含网关地址，不同地域的相同请求对应同一个key</li>
+ * <li>请求体边写边计算摘要，不保存在内存中</li>
+ * <li>token、Accept等与请求内容无关的请求头不参与计算</li>
+ * </ul>
+ * 同步客户端把RequestCallback写入这个请求，异步客户端直接写入已缓冲的请求体
+ */
+public class CacheKeyRequest implements ClientHttpRequest {
+
+    private static final Set<String> IGNORED_HEADERS = new HashSet<>(Arrays.asList(
+            "authorization", "accept", "accept-charset", "content-length", "transfer-encoding"));
+
+    private final HttpMethod method;
+    private final URI uri;
+    private final HttpHeaders headers = new HttpHeaders();
+    private final MessageDigest bodyDigest = sha256();
+    private final OutputStream body = new DigestOutputStream(new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }, bodyDigest);
+    private String key;
+
+    public CacheKeyRequest(HttpMethod method, URI uri) {
+        this.method = method;
+        this.uri = uri;
+    }
+
+    @Override
+    public HttpMethod getMethod() {
+        return method;
+    }
+
+    @Override
+    public URI getURI() {
+        return uri;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public OutputStream getBody() {
+        return body;
+    }
+
+    @Override
+    public ClientHttpResponse execute() {
+        throw new UnsupportedOperationException("只用于计算缓存的key");
+    }
+
+    /**
+     * @return - 16进制的key，调用后不能再写入请求体
+     */
+    public String getKey() {
+        if (key != null) {
+            return key;
+        }
+        MessageDigest digest = sha256();
+        StringBuilder meta = new StringBuilder();
+        meta.append(method).append(' ').append(uri.getRawPath());
+        if (uri.getRawQuery() != null) {
+            meta.append('?').append(uri.getRawQuery());
+        }
+        meta.append('\n');
+        Map<String, List<String>> sorted = new TreeMap<>();
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            String name = header.getKey().toLowerCase();
+            if (!IGNORED_HEADERS.contains(name)) {
+                sorted.put(name, header.getValue());
+            }
+        }
+        for (Map.Entry<String, List<String>> header : sorted.entrySet()) {
+            meta.append(header.getKey()).append(':').append(header.getValue()).append('\n');
+        }
+        digest.update(meta.toString().getBytes(StandardCharsets.UTF_8));
+        digest.update(bodyDigest.digest());
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        key = hex.toString();
+        return key;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
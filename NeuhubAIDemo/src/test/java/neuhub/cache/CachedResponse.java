@@ -0,0 +1,139 @@
+package neuhub.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 缓存的一个完整响应，包括状态码、响应头和响应体，可以重复生成{@link ClientHttpResponse}
+ */
+public class CachedResponse {
+
+    private final int statusCode;
+    private final String statusText;
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final long expiresAt;
+
+    public CachedResponse(int statusCode, String statusText, HttpHeaders headers, byte[] body, long expiresAt) {
+        this.statusCode = statusCode;
+        this.statusText = statusText;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        this.body = body;
+        this.expiresAt = expiresAt;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * @return - 过期时间，单位为毫秒
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+
+    /**
+     * @return - 新的响应对象，响应体从内存中读取，关闭时不做任何事
+     */
+    public ClientHttpResponse toClientHttpResponse() {
+        return new ClientHttpResponse() {
+            private final InputStream in = new ByteArrayInputStream(body);
+
+            @Override
+            public HttpStatus getStatusCode() {
+                return HttpStatus.valueOf(statusCode);
+            }
+
+            @Override
+            public int getRawStatusCode() {
+                return statusCode;
+            }
+
+            @Override
+            public String getStatusText() {
+                return statusText;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+
+            @Override
+            public InputStream getBody() {
+                return in;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * @return - 写入磁盘的字节
+     */
+    byte[] toBytes() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length + 256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(expiresAt);
+            out.writeInt(statusCode);
+            out.writeUTF(statusText);
+            out.writeInt(headers.size());
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                out.writeUTF(header.getKey());
+                out.writeInt(header.getValue().size());
+                for (String value : header.getValue()) {
+                    out.writeUTF(value);
+                }
+            }
+            out.writeInt(body.length);
+            out.write(body);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param bytes - {@link #toBytes()}写出的字节
+     */
+    static CachedResponse fromBytes(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        long expiresAt = in.readLong();
+        int statusCode = in.readInt();
+        String statusText = in.readUTF();
+        HttpHeaders headers = new HttpHeaders();
+        int headerCount = in.readInt();
+        for (int i = 0; i < headerCount; i++) {
+            String name = in.readUTF();
+            int valueCount = in.readInt();
+            for (int j = 0; j < valueCount; j++) {
+                headers.add(name, in.readUTF());
+            }
+        }
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        return new CachedResponse(statusCode, statusText, headers, body, expiresAt);
+    }
+}
@@ -0,0 +1,233 @@
+package neuhub.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 磁盘上的缓存，由若干个固定大小的段文件组成，进程重启后仍然有效
+ * <ul>
+ * <li>段文件映射到内存，只在最后一个段的末尾追加记录，写满后新建一个段</li>
+ * <li>段的个数超过上限时删除最旧的段，其中的记录一起失效</li>
+ * <li>每条记录以魔数开头，魔数最后写入，写到一半的记录在重启时被忽略；记录带CRC校验</li>
+ * <li>启动时顺序扫描所有段重建索引，同一个key以最后写入的记录为准</li>
+ * </ul>
+ */
+class DiskCache implements Closeable {
+
+    private static final int MAGIC = 0x4E484331;
+    private static final int KEY_SIZE = 64;
+    /**
+     * 魔数、记录长度、CRC、key
+     */
+    private static final int HEADER_SIZE = 4 + 4 + 4 + KEY_SIZE;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".dat";
+
+    private Logger logger = LoggerFactory.getLogger(DiskCache.class);
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final Map<String, Location> index = new HashMap<>();
+    private long evictions;
+
+    DiskCache(Path directory, int segmentSize, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = Math.max(1, maxSegments);
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        Collections.sort(files);
+        for (Path file : files) {
+            Segment segment = new Segment(file, segmentId(file));
+            segments.addLast(segment);
+            scan(segment);
+        }
+        if (segments.isEmpty()) {
+            roll();
+        }
+        while (segments.size() > this.maxSegments) {
+            evictOldest();
+        }
+        logger.info("磁盘缓存{}: {}个段，{}条记录", directory, segments.size(), index.size());
+    }
+
+    synchronized CachedResponse get(String key) {
+        Location location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        ByteBuffer buffer = location.segment.buffer.duplicate();
+        buffer.position(location.offset);
+        byte[] bytes = new byte[location.length];
+        buffer.get(bytes);
+        try {
+            return CachedResponse.fromBytes(bytes);
+        } catch (IOException e) {
+            logger.warn("读取磁盘缓存失败: {}", e.toString());
+            index.remove(key);
+            return null;
+        }
+    }
+
+    synchronized void put(String key, CachedResponse response) throws IOException {
+        byte[] payload = response.toBytes();
+        int size = HEADER_SIZE + payload.length;
+        if (size > segmentSize) {
+            return;
+        }
+        Segment segment = segments.peekLast();
+        if (segment.position + size > segment.buffer.capacity()) {
+            segment = roll();
+        }
+        int offset = segment.position;
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(offset + 4);
+        buffer.putInt(payload.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(key.getBytes(StandardCharsets.US_ASCII));
+        buffer.put(payload);
+        // 魔数最后写入，之前的内容都写完后记录才有效
+        buffer.putInt(offset, MAGIC);
+        segment.position += size;
+        index.put(key, new Location(segment, offset + HEADER_SIZE, payload.length));
+    }
+
+    synchronized void remove(String key) {
+        index.remove(key);
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * @return - 因删除段而失效的记录数
+     */
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+            segment.channel.close();
+        }
+        segments.clear();
+        index.clear();
+    }
+
+    private void scan(Segment segment) {
+        ByteBuffer buffer = segment.buffer.duplicate();
+        int position = 0;
+        byte[] keyBytes = new byte[KEY_SIZE];
+        while (position + HEADER_SIZE <= buffer.capacity() && buffer.getInt(position) == MAGIC) {
+            int length = buffer.getInt(position + 4);
+            int checksum = buffer.getInt(position + 8);
+            if (length < 0 || position + HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            buffer.position(position + 12);
+            buffer.get(keyBytes);
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                logger.warn("{}在{}处的记录校验失败，忽略之后的内容", segment.file, position);
+                break;
+            }
+            index.put(new String(keyBytes, StandardCharsets.US_ASCII), new Location(segment, position + HEADER_SIZE, length));
+            position += HEADER_SIZE + length;
+        }
+        segment.position = position;
+    }
+
+    private Segment roll() throws IOException {
+        long id = segments.isEmpty() ? 1 : segments.peekLast().id + 1;
+        Segment segment = new Segment(directory.resolve(String.format("%s%010d%s", PREFIX, id, SUFFIX)), id);
+        segments.addLast(segment);
+        if (segments.size() > maxSegments) {
+            evictOldest();
+        }
+        return segment;
+    }
+
+    private void evictOldest() throws IOException {
+        Segment oldest = segments.removeFirst();
+        for (Iterator<Location> iterator = index.values().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().segment == oldest) {
+                iterator.remove();
+                evictions++;
+            }
+        }
+        oldest.channel.close();
+        // 映射在对象回收前不会释放，部分系统上删除会失败，下次启动时再删除
+        try {
+            Files.delete(oldest.file);
+        } catch (IOException e) {
+            logger.warn("删除{}失败: {}", oldest.file, e.toString());
+        }
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private class Segment {
+        private final Path file;
+        private final long id;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int position;
+
+        private Segment(Path file, long id) throws IOException {
+            this.file = file;
+            this.id = id;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), segmentSize));
+        }
+    }
+
+    private static class Location {
+        private final Segment segment;
+        private final int offset;
+        private final int length;
+
+        private Location(Segment segment, int offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package neuhub.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import neuhub.client.NeuhubEndpoint;
+import neuhub.configuration.NeuhubCacheProperties;
+import neuhub.response.FieldProjection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 识别类接口的响应缓存，相同的图片或文本不再重复调用，节省延迟和额度
+ * <ul>
+ * <li>key由{@link CacheKeyRequest}根据请求内容计算，与网关地址和token无关</li>
+ * <li>内存中按最近使用淘汰，配置了directory时同时写入{@link DiskCache}，内存中淘汰或重启后仍可从磁盘读取</li>
+ * <li>只缓存状态码200且code为10000的响应，超过ttl的响应失效</li>
+ * <li>只对配置中启用且幂等的接口生效</li>
+ * </ul>
+ * 同步客户端见{@link neuhub.client.NeuhubRestTemplate}，异步客户端见{@link ResponseCacheInterceptor}，命中和淘汰次数由{@link neuhub.metrics.NeuhubMetrics#bindResponseCache}输出
+ */
+public class ResponseCache implements Closeable {
+
+    private static final String SUCCESS_CODE = "10000";
+
+    private Logger logger = LoggerFactory.getLogger(ResponseCache.class);
+
+    private final NeuhubCacheProperties properties;
+    private final Set<NeuhubEndpoint> endpoints = EnumSet.noneOf(NeuhubEndpoint.class);
+    private final Map<String, CachedResponse> memory;
+    private final DiskCache disk;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ResponseCache(NeuhubCacheProperties properties) throws IOException {
+        this.properties = properties;
+        for (String name : properties.getEndpoints()) {
+            NeuhubEndpoint endpoint = NeuhubEndpoint.valueOf(name);
+            if (!endpoint.isIdempotent()) {
+                throw new IllegalArgumentException(endpoint + "不是幂等的接口，不能缓存");
+            }
+            endpoints.add(endpoint);
+        }
+        this.memory = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                if (size() > properties.getMaxEntries()) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        boolean diskEnabled = !endpoints.isEmpty() && !properties.getDirectory().isEmpty();
+        this.disk = diskEnabled ? new DiskCache(Paths.get(properties.getDirectory()), properties.getSegmentSize(),
+                properties.getMaxSegments()) : null;
+    }
+
+    public boolean isEnabled(NeuhubEndpoint endpoint) {
+        return endpoints.contains(endpoint);
+    }
+
+    /**
+     * @param key - {@link CacheKeyRequest#getKey()}
+     * @return - 缓存的响应，没有或已过期时返回null
+     */
+    public CachedResponse get(String key) {
+        long now = System.currentTimeMillis();
+        CachedResponse response;
+        synchronized (memory) {
+            response = memory.get(key);
+            if (response != null && response.isExpired(now)) {
+                memory.remove(key);
+                response = null;
+            }
+        }
+        if (response == null && disk != null) {
+            response = disk.get(key);
+            if (response != null && response.isExpired(now)) {
+                disk.remove(key);
+                response = null;
+            }
+            if (response != null) {
+                diskHits.incrementAndGet();
+                synchronized (memory) {
+                    memory.put(key, response);
+                }
+            }
+        }
+        if (response == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return response;
+    }
+
+    /**
+     * 读取整个响应，可以缓存时写入缓存
+     * @param key - {@link CacheKeyRequest#getKey()}
+     * @param response - 网关返回的响应，由调用方关闭
+     * @return - 与原响应内容相同、可以再次读取的响应
+     * @throws IOException - 读取响应失败
+     */
+    public ClientHttpResponse store(String key, ClientHttpResponse response) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(response.getHeaders());
+        byte[] body = StreamUtils.copyToByteArray(response.getBody());
+        CachedResponse cached = new CachedResponse(response.getRawStatusCode(), response.getStatusText(), headers, body,
+                System.currentTimeMillis() + properties.getTtl());
+        if (isCacheable(cached)) {
+            synchronized (memory) {
+                memory.put(key, cached);
+            }
+            if (disk != null) {
+                try {
+                    disk.put(key, cached);
+                } catch (IOException e) {
+                    logger.warn("写入磁盘缓存失败: {}", e.toString());
+                }
+            }
+        }
+        return cached.toClientHttpResponse();
+    }
+
+    /**
+     * @return - 命中次数，包括从磁盘读取的
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return - 内存中没有、从磁盘读取的次数
+     */
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return - 从内存中淘汰的次数，磁盘中仍可能存在
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return - 因删除段文件从磁盘中淘汰的次数
+     */
+    public long getDiskEvictions() {
+        return disk == null ? 0 : disk.getEvictions();
+    }
+
+    public int getMemorySize() {
+        synchronized (memory) {
+            return memory.size();
+        }
+    }
+
+    public int getDiskSize() {
+        return disk == null ? 0 : disk.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (disk != null) {
+            disk.close();
+        }
+    }
+
+    private boolean isCacheable(CachedResponse response) {
+        if (response.getStatusCode() != HttpStatus.OK.value()) {
+            return false;
+        }
+        try {
+            JsonNode code = new FieldProjection("code").decode(new ByteArrayInputStream(response.getBody())).get("code");
+            return code != null && SUCCESS_CODE.equals(code.asText());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
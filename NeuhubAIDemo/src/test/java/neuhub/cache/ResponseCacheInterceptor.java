@@ -0,0 +1,60 @@
+package neuhub.cache;
+
+import neuhub.client.NeuhubEndpoint;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestExecution;
+import org.springframework.http.client.AsyncClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureAdapter;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 异步客户端的缓存拦截器，命中时直接返回缓存的响应，不经过限流，也不发出请求
+ * <ul>
+ * <li>需要排在其他拦截器之前</li>
+ * <li>异步客户端的请求体已经缓冲在内存中，直接用来计算key</li>
+ * </ul>
+ */
+public class ResponseCacheInterceptor implements AsyncClientHttpRequestInterceptor {
+
+    private final ResponseCache responseCache;
+
+    public ResponseCacheInterceptor(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    public ListenableFuture<ClientHttpResponse> intercept(HttpRequest request, byte[] body, AsyncClientHttpRequestExecution execution)
+            throws IOException {
+        NeuhubEndpoint endpoint = NeuhubEndpoint.fromPath(request.getURI().getPath());
+        if (endpoint == null || !responseCache.isEnabled(endpoint)) {
+            return execution.executeAsync(request, body);
+        }
+        CacheKeyRequest keyRequest = new CacheKeyRequest(request.getMethod(), request.getURI());
+        keyRequest.getHeaders().putAll(request.getHeaders());
+        keyRequest.getBody().write(body);
+        String key = keyRequest.getKey();
+        CachedResponse cached = responseCache.get(key);
+        if (cached != null) {
+            SettableListenableFuture<ClientHttpResponse> result = new SettableListenableFuture<>();
+            result.set(cached.toClientHttpResponse());
+            return result;
+        }
+        return new ListenableFutureAdapter<ClientHttpResponse, ClientHttpResponse>(execution.executeAsync(request, body)) {
+            @Override
+            protected ClientHttpResponse adapt(ClientHttpResponse response) throws ExecutionException {
+                try {
+                    return responseCache.store(key, response);
+                } catch (IOException e) {
+                    throw new ExecutionException(e);
+                } finally {
+                    response.close();
+                }
+            }
+        };
+    }
+}
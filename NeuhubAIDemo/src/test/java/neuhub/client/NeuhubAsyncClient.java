@@ -0,0 +1,518 @@
+package neuhub.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import neuhub.hedging.HedgingPolicy;
+import neuhub.image.ImagePreprocessor;
+import neuhub.properties.AsrHeaders;
+import neuhub.resilience.CircuitOpenException;
+import neuhub.resilience.RetryPolicy;
+import neuhub.properties.Picture;
+import neuhub.properties.Sentiment;
+import neuhub.properties.TtsHeaders;
+import neuhub.routing.NeuhubRegion;
+import neuhub.routing.RegionRouter;
+import neuhub.token.AccessTokenManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * neuhub接口的异步客户端，每个接口对应一个方法，请求体的格式与{@link neuhub.NeuhubAIDemoTester}中的示例相同
+ * <ul>
+ * <li>底层是基于NIO的http客户端，等待响应时不占用线程，少量io线程即可同时处理大量请求</li>
+ * <li>token由各地域的{@link AccessTokenManager}提供，token被网关拒绝时作废并重试一次</li>
+ * <li>每次调用由{@link RegionRouter}选择最优的地域；连接失败时换下一个地域重发，幂等的接口在网关返回5xx或超时时也会换地域重发</li>
+ * <li>设置了{@link RetryPolicy}时，错误过多的接口被熔断，直接以{@link CircuitOpenException}失败，不再发出请求</li>
+ * <li>设置了{@link HedgingPolicy}时，启用对冲的接口在响应慢时再发一个相同的请求，先返回的结果生效，另一个请求被取消</li>
+ * <li>设置了{@link ImagePreprocessor}时，启用预处理的接口先缩小图片再上传</li>
+ * <li>取消exchange返回的future时中止底层的http请求，不再占用连接；启用图片预处理的接口在预处理完成前取消时不会中止请求</li>
+ * <li>返回的future在io线程上完成，耗时的后续处理请使用thenApplyAsync等方法交给其他线程</li>
+ * </ul>
+ */
+public class NeuhubAsyncClient {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private Logger logger = LoggerFactory.getLogger(NeuhubAsyncClient.class);
+
+    private final AsyncRestTemplate asyncRestTemplate;
+    private final RegionRouter regionRouter;
+    private HedgingPolicy hedgingPolicy;
+    private RetryPolicy retryPolicy;
+    private ImagePreprocessor imagePreprocessor;
+
+    /**
+     * @param asyncRestTemplate - 异步rest客户端
+     * @param regionRouter - 地域路由，只有一个地域时总是调用该地域
+     */
+    public NeuhubAsyncClient(AsyncRestTemplate asyncRestTemplate, RegionRouter regionRouter) {
+        this.asyncRestTemplate = asyncRestTemplate;
+        this.regionRouter = regionRouter;
+    }
+
+    public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public void setImagePreprocessor(ImagePreprocessor imagePreprocessor) {
+        this.imagePreprocessor = imagePreprocessor;
+    }
+
+    public CompletableFuture<ResponseEntity<String>> humanDetect(byte[] image) {
+        return withImage(NeuhubEndpoint.HUMAN_DETECT, image,
+                processed -> exchange(NeuhubEndpoint.HUMAN_DETECT, new HttpEntity<>(processed), String.class));
+    }
+
+    /**
+     * @param image - 图片内容
+     * @param mutiDet - 单人姿态(1)或多人姿态(2)
+     */
+    public CompletableFuture<ResponseEntity<String>> poseEstimation(byte[] image, int mutiDet) {
+        return withImage(NeuhubEndpoint.POSE_ESTIMATION, image,
+                processed -> exchange(NeuhubEndpoint.POSE_ESTIMATION, new HttpEntity<>(processed), String.class, mutiDet));
+    }
+
+    public CompletableFuture<ResponseEntity<String>> faceAntiSpoof(byte[] image) {
+        return withImage(NeuhubEndpoint.FACE_ANTI_SPOOF, image, processed -> {
+            String value = String.format("imageBase64=%s", imageBase64(processed));
+            return exchange(NeuhubEndpoint.FACE_ANTI_SPOOF, new HttpEntity<>(value), String.class);
+        });
+    }
+
+    public CompletableFuture<ResponseEntity<String>> faceCompare(byte[] face1, byte[] face2) {
+        return withImage(NeuhubEndpoint.FACE_COMPARE, face1, processed1 -> withImage(NeuhubEndpoint.FACE_COMPARE, face2, processed2 -> {
+            String param = String.format("imageBase64_1=%s&imageBase64_2=%s", imageBase64(processed1), imageBase64(processed2));
+            return exchange(NeuhubEndpoint.FACE_COMPARE, new HttpEntity<>(param), String.class);
+        }));
+    }
+
+    public CompletableFuture<ResponseEntity<String>> faceDetectAttr(byte[] image) {
+        return withImage(NeuhubEndpoint.FACE_DETECT_ATTR, image, processed -> {
+            String value = String.format("imageBase64=%s", imageBase64(processed));
+            return exchange(NeuhubEndpoint.FACE_DETECT_ATTR, new HttpEntity<>(value), String.class);
+        });
+    }
+
+    public CompletableFuture<ResponseEntity<String>> faceGroupCreate(String groupName) {
+        return exchange(NeuhubEndpoint.FACE_GROUP_CREATE, HttpEntity.EMPTY, String.class, groupName);
+    }
+
+    /**
+     * @param groupId - 分组ID
+     * @param outerId - 人脸图片的id值，由调用方生成并去重
+     * @param image - 人脸图片
+     */
+    public CompletableFuture<ResponseEntity<String>> faceCreate(String groupId, String outerId, byte[] image) {
+        return withImage(NeuhubEndpoint.FACE_CREATE, image, processed -> {
+            String param = String.format("imageBase64=%s", imageBase64(processed));
+            return exchange(NeuhubEndpoint.FACE_CREATE, new HttpEntity<>(param), String.class, groupId, outerId);
+        });
+    }
+
+    public CompletableFuture<ResponseEntity<String>> faceDelete(String groupId, String outerId) {
+        return exchange(NeuhubEndpoint.FACE_DELETE, HttpEntity.EMPTY, String.class, groupId, outerId);
+    }
+
+    public CompletableFuture<ResponseEntity<String>> faceGroupDelete(String groupId) {
+        return exchange(NeuhubEndpoint.FACE_GROUP_DELETE, HttpEntity.EMPTY, String.class, groupId);
+    }
+
+    /**
+     * @param start - 查询起始位置
+     * @param length - 从起始位置开始查询的长度
+     */
+    public CompletableFuture<ResponseEntity<String>> getFaceGroupList(int start, int length) {
+        return exchange(NeuhubEndpoint.FACE_GROUP_LIST, HttpEntity.EMPTY, String.class, start, length);
+    }
+
+    public CompletableFuture<ResponseEntity<String>> faceSearch(String groupId, byte[] image) {
+        return withImage(NeuhubEndpoint.FACE_SEARCH, image, processed -> {
+            String param = String.format("imageBase64=%s", imageBase64(processed));
+            return exchange(NeuhubEndpoint.FACE_SEARCH, new HttpEntity<>(param), String.class, groupId);
+        });
+    }
+
+    public CompletableFuture<ResponseEntity<String>> sexyGet(String imageUrl) {
+        return exchange(NeuhubEndpoint.SEXY_GET, HttpEntity.EMPTY, String.class, imageUrl);
+    }
+
+    public CompletableFuture<ResponseEntity<String>> sexyPost(byte[] image) {
+        return withImage(NeuhubEndpoint.SEXY_POST, image,
+                processed -> exchange(NeuhubEndpoint.SEXY_POST, new HttpEntity<>(processed), String.class));
+    }
+
+    public CompletableFuture<ResponseEntity<String>> food(byte[] image) {
+        return withImage(NeuhubEndpoint.FOOD, image,
+                processed -> exchange(NeuhubEndpoint.FOOD, new HttpEntity<>(pictureJson(processed)), String.class));
+    }
+
+    public CompletableFuture<ResponseEntity<String>> leaderRec(byte[] image) {
+        return withImage(NeuhubEndpoint.LEADER_REC, image,
+                processed -> exchange(NeuhubEndpoint.LEADER_REC, new HttpEntity<>(processed), String.class));
+    }
+
+    public CompletableFuture<ResponseEntity<String>> selfieSegmentation(byte[] image) {
+        return withImage(NeuhubEndpoint.SELFIE_SEGMENTATION, image,
+                processed -> exchange(NeuhubEndpoint.SELFIE_SEGMENTATION, new HttpEntity<>(pictureJson(processed)), String.class));
+    }
+
+    /**
+     * @param channelId - 需向管理员申请的专属channel_id
+     * @param image - 商品图片
+     */
+    public CompletableFuture<ResponseEntity<String>> snapShop(String channelId, byte[] image) {
+        return withImage(NeuhubEndpoint.SNAPSHOP, image, processed -> {
+            String request = String.format("channel_id=%s&&imgBase64=%s", channelId, imageBase64(processed));
+            return exchange(NeuhubEndpoint.SNAPSHOP, new HttpEntity<>(request), String.class);
+        });
+    }
+
+    public CompletableFuture<ResponseEntity<String>> comment(String text) {
+        Map<String, String> map = new HashMap<>();
+        map.put("text", text);
+        return exchange(NeuhubEndpoint.COMMENT_TAG, new HttpEntity<>(map), String.class);
+    }
+
+    public CompletableFuture<ResponseEntity<String>> lexer(String text, int type) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("text", text);
+        map.put("type", type);
+        return exchange(NeuhubEndpoint.LEXER, new HttpEntity<>(map), String.class);
+    }
+
+    /**
+     * @param type - 情感模型的类型
+     * @param text - 待分析的文本
+     */
+    public CompletableFuture<ResponseEntity<String>> sentiment(int type, String text) {
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.setContentType(MediaType.APPLICATION_JSON);
+        return exchange(NeuhubEndpoint.SENTIMENT, new HttpEntity<>(new Sentiment(type, text), httpHeaders), String.class);
+    }
+
+    public CompletableFuture<ResponseEntity<String>> similarity(String text1, String text2) {
+        Map<String, Object> postParameters = new HashMap<>();
+        postParameters.put("text1", text1);
+        postParameters.put("text2", text2);
+        return exchange(NeuhubEndpoint.SIMILARITY, new HttpEntity<>(postParameters), String.class);
+    }
+
+    public CompletableFuture<ResponseEntity<String>> systax(String text) {
+        Map<String, String> map = new HashMap<>();
+        map.put("text", text);
+        return exchange(NeuhubEndpoint.SYNTAX, new HttpEntity<>(map), String.class);
+    }
+
+    public CompletableFuture<ResponseEntity<String>> textClassification(String text) {
+        Map<String, String> map = new HashMap<>();
+        map.put("text", text);
+        return exchange(NeuhubEndpoint.TEXT_CLASSIFICATION, new HttpEntity<>(map), String.class);
+    }
+
+    public CompletableFuture<ResponseEntity<String>> idCard(byte[] image) {
+        return withImage(NeuhubEndpoint.OCR_IDCARD, image,
+                processed -> exchange(NeuhubEndpoint.OCR_IDCARD, new HttpEntity<>(processed), String.class));
+    }
+
+    public CompletableFuture<ResponseEntity<String>> invoice(byte[] image) {
+        return withImage(NeuhubEndpoint.OCR_INVOICE, image,
+                processed -> exchange(NeuhubEndpoint.OCR_INVOICE, new HttpEntity<>(processed), String.class));
+    }
+
+    public CompletableFuture<ResponseEntity<String>> universal(byte[] image) {
+        return withImage(NeuhubEndpoint.OCR_UNIVERSAL, image,
+                processed -> exchange(NeuhubEndpoint.OCR_UNIVERSAL, new HttpEntity<>(processed), String.class));
+    }
+
+    public CompletableFuture<ResponseEntity<String>> vehicle(byte[] image) {
+        return withImage(NeuhubEndpoint.OCR_VEHICLE, image,
+                processed -> exchange(NeuhubEndpoint.OCR_VEHICLE, new HttpEntity<>(processed), String.class));
+    }
+
+    public CompletableFuture<ResponseEntity<String>> asr(AsrHeaders headers, byte[] audio) {
+        return exchange(NeuhubEndpoint.ASR, new HttpEntity<>(audio, headers.toHttpHeaders()), String.class);
+    }
+
+    /**
+     * @return - 合成的音频，格式由TtsParameters中的aue决定
+     */
+    public CompletableFuture<ResponseEntity<byte[]>> tts(TtsHeaders headers, String text) {
+        return exchange(NeuhubEndpoint.TTS, new HttpEntity<>(text, headers.toHttpHeaders()), byte[].class);
+    }
+
+    /**
+     * @return - 当前最优的地域，需要在同一个地域完成多次调用时使用
+     */
+    public NeuhubRegion selectRegion() {
+        return regionRouter.select();
+    }
+
+    /**
+     * 调用指定地域的接口，失败时不换地域，用于服务端保存了会话状态的多次调用；与其他调用一样经过熔断
+     * @param region - {@link #selectRegion()}返回的地域
+     * @param endpoint - 调用的接口
+     * @param requestEntity - 请求体和请求头
+     * @param responseType - 响应体的类型
+     * @param uriVariables - 按顺序填入接口地址中的参数
+     * @return - 响应
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> exchange(NeuhubRegion region, NeuhubEndpoint endpoint, HttpEntity<?> requestEntity,
+                                                             Class<T> responseType, Object... uriVariables) {
+        return guarded(endpoint, () -> cancellable(cancelled ->
+                exchange(Collections.singletonList(region), 0, endpoint, requestEntity, responseType, uriVariables, cancelled)));
+    }
+
+    /**
+     * 调用任意接口，请求头中会自动加入token
+     * @param endpoint - 调用的接口
+     * @param requestEntity - 请求体和请求头
+     * @param responseType - 响应体的类型
+     * @param uriVariables - 按顺序填入接口地址中的参数
+     * @return - 响应
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> exchange(NeuhubEndpoint endpoint, HttpEntity<?> requestEntity,
+                                                             Class<T> responseType, Object... uriVariables) {
+        return guarded(endpoint, () -> {
+            List<NeuhubRegion> regions = regionRouter.candidates();
+            if (hedgingPolicy == null || !hedgingPolicy.isEnabled(endpoint)) {
+                return cancellable(cancelled -> exchange(regions, 0, endpoint, requestEntity, responseType, uriVariables, cancelled));
+            }
+            return hedge(regions, endpoint, requestEntity, responseType, uriVariables);
+        });
+    }
+
+    /**
+     * 设置了{@link RetryPolicy}时，发出请求前检查熔断状态，完成后记录结果
+     */
+    private <T> CompletableFuture<T> guarded(NeuhubEndpoint endpoint, Supplier<CompletableFuture<T>> call) {
+        if (retryPolicy == null) {
+            return call.get();
+        }
+        try {
+            retryPolicy.acquire(endpoint);
+        } catch (CircuitOpenException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            retryPolicy.record(endpoint, e);
+            throw e;
+        }
+        result.whenComplete((response, ex) -> retryPolicy.record(endpoint, ex));
+        return result;
+    }
+
+    /**
+     * 调用方取消返回的future时，中止还没有完成的请求
+     */
+    private <T> CompletableFuture<ResponseEntity<T>> cancellable(Function<CompletableFuture<Void>, CompletableFuture<ResponseEntity<T>>> call) {
+        CompletableFuture<Void> cancelled = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<T>> result = call.apply(cancelled);
+        result.whenComplete((response, ex) -> {
+            if (result.isCancelled()) {
+                cancelled.complete(null);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 先向最优的地域发出请求，超过对冲等待时间没有响应时再发一个，先成功的结果生效并取消另一个；两个都失败时返回最后的异常
+     */
+    private <T> CompletableFuture<ResponseEntity<T>> hedge(List<NeuhubRegion> regions, NeuhubEndpoint endpoint, HttpEntity<?> requestEntity,
+                                                           Class<T> responseType, Object[] uriVariables) {
+        hedgingPolicy.onRequest();
+        long start = System.nanoTime();
+        CompletableFuture<ResponseEntity<T>> result = new CompletableFuture<>();
+        CompletableFuture<Void> cancelPrimary = new CompletableFuture<>();
+        CompletableFuture<Void> cancelHedge = new CompletableFuture<>();
+        result.whenComplete((response, ex) -> {
+            if (result.isCancelled()) {
+                cancelPrimary.complete(null);
+                cancelHedge.complete(null);
+            }
+        });
+        // 还没有结束的请求数，降到0时失败
+        AtomicInteger pending = new AtomicInteger(1);
+        long delayNanos = hedgingPolicy.delayNanos(endpoint);
+        ScheduledFuture<?> timer = delayNanos < 0 ? null : hedgingPolicy.schedule(() -> {
+            if (result.isDone() || !hedgingPolicy.tryAcquire()) {
+                return;
+            }
+            int current;
+            do {
+                current = pending.get();
+                if (current == 0) {
+                    return;
+                }
+            } while (!pending.compareAndSet(current, current + 1));
+            List<NeuhubRegion> hedgeRegions = hedgingPolicy.isAlternateRegion() ? rotate(regions) : regions;
+            exchange(hedgeRegions, 0, endpoint, requestEntity, responseType, uriVariables, cancelHedge).whenComplete((response, ex) -> {
+                if (ex == null) {
+                    if (result.complete(response)) {
+                        hedgingPolicy.onHedgeWin();
+                        cancelPrimary.complete(null);
+                    }
+                } else if (pending.decrementAndGet() == 0) {
+                    result.completeExceptionally(NeuhubFailures.unwrap(ex));
+                }
+            });
+        }, delayNanos);
+        exchange(regions, 0, endpoint, requestEntity, responseType, uriVariables, cancelPrimary).whenComplete((response, ex) -> {
+            if (ex == null || cancelPrimary.isDone()) {
+                // 被取消时记录的是延迟的下限
+                hedgingPolicy.record(endpoint, System.nanoTime() - start);
+            }
+            if (ex == null) {
+                if (result.complete(response)) {
+                    cancelHedge.complete(null);
+                }
+            } else if (pending.decrementAndGet() == 0) {
+                result.completeExceptionally(NeuhubFailures.unwrap(ex));
+            }
+            if (timer != null && result.isDone()) {
+                timer.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 调用第index个地域，可以重发的失败换下一个地域
+     * @param cancelled - 完成时取消请求，可以为null
+     */
+    private <T> CompletableFuture<ResponseEntity<T>> exchange(List<NeuhubRegion> regions, int index, NeuhubEndpoint endpoint,
+                                                              HttpEntity<?> requestEntity, Class<T> responseType, Object[] uriVariables,
+                                                              CompletableFuture<?> cancelled) {
+        NeuhubRegion region = regions.get(index);
+        AccessTokenManager accessTokenManager = region.getAccessTokenManager();
+        CompletableFuture<ResponseEntity<T>> result = accessTokenManager.getAccessTokenAsync()
+                .thenCompose(token -> send(region, endpoint, requestEntity, responseType, uriVariables, token, true, cancelled));
+        if (index + 1 >= regions.size()) {
+            return result;
+        }
+        return result.handle((response, ex) -> {
+            if (ex == null) {
+                return CompletableFuture.completedFuture(response);
+            }
+            if (NeuhubFailures.isRetryable(endpoint, ex) && (cancelled == null || !cancelled.isDone())) {
+                logger.warn("{}调用{}失败，改为调用{}: {}", endpoint, region.getName(), regions.get(index + 1).getName(),
+                        NeuhubFailures.unwrap(ex).toString());
+                return exchange(regions, index + 1, endpoint, requestEntity, responseType, uriVariables, cancelled);
+            }
+            CompletableFuture<ResponseEntity<T>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(NeuhubFailures.unwrap(ex));
+            return failed;
+        }).thenCompose(Function.identity());
+    }
+
+    private <T> CompletableFuture<ResponseEntity<T>> send(NeuhubRegion region, NeuhubEndpoint endpoint, HttpEntity<?> requestEntity,
+                                                          Class<T> responseType, Object[] uriVariables, OAuth2AccessToken token,
+                                                          boolean retryUnauthorized, CompletableFuture<?> cancelled) {
+        CompletableFuture<ResponseEntity<T>> result = new CompletableFuture<>();
+        if (cancelled != null && cancelled.isDone()) {
+            result.completeExceptionally(new CancellationException(endpoint + "的请求已取消"));
+            return result;
+        }
+        AccessTokenManager accessTokenManager = region.getAccessTokenManager();
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(requestEntity.getHeaders());
+        headers.set(HttpHeaders.AUTHORIZATION, OAuth2AccessToken.BEARER_TYPE + " " + token.getValue());
+        ListenableFuture<ResponseEntity<T>> future = asyncRestTemplate.exchange(region.getGatewayUrl() + endpoint.getUriTemplate(),
+                endpoint.getMethod(), new HttpEntity<>(requestEntity.getBody(), headers), responseType, uriVariables);
+        future.addCallback(result::complete, ex -> {
+            if (retryUnauthorized && isUnauthorized(ex)) {
+                accessTokenManager.invalidate(token);
+                accessTokenManager.getAccessTokenAsync()
+                        .thenCompose(newToken -> send(region, endpoint, requestEntity, responseType, uriVariables, newToken, false, cancelled))
+                        .whenComplete((response, retryEx) -> {
+                            if (retryEx != null) {
+                                result.completeExceptionally(retryEx);
+                            } else {
+                                result.complete(response);
+                            }
+                        });
+            } else {
+                result.completeExceptionally(ex);
+            }
+        });
+        if (cancelled != null) {
+            // 取消后底层的回调不一定会被调用，这里直接结束
+            cancelled.thenRun(() -> {
+                future.cancel(true);
+                result.completeExceptionally(new CancellationException(endpoint + "的请求已取消"));
+            });
+        }
+        return result;
+    }
+
+    /**
+     * @return - 从第二个地域开始的顺序，只有一个地域时不变
+     */
+    private List<NeuhubRegion> rotate(List<NeuhubRegion> regions) {
+        if (regions.size() < 2) {
+            return regions;
+        }
+        List<NeuhubRegion> rotated = new ArrayList<>(regions.subList(1, regions.size()));
+        rotated.add(regions.get(0));
+        return rotated;
+    }
+
+    private boolean isUnauthorized(Throwable ex) {
+        return ex instanceof HttpClientErrorException
+                && ((HttpClientErrorException) ex).getStatusCode() == HttpStatus.UNAUTHORIZED;
+    }
+
+    /**
+     * 设置了{@link ImagePreprocessor}且接口启用了预处理时，先在图片线程池中缩小图片再发出请求，
+     * 只有结果中没有坐标的接口可以启用，见{@link ImagePreprocessor#SUPPORTED_ENDPOINTS}
+     */
+    private <T> CompletableFuture<T> withImage(NeuhubEndpoint endpoint, byte[] image, Function<byte[], CompletableFuture<T>> call) {
+        if (imagePreprocessor == null || !imagePreprocessor.isEnabled(endpoint)) {
+            return call.apply(image);
+        }
+        return imagePreprocessor.processAsync(endpoint, image).thenCompose(call);
+    }
+
+    private String imageBase64(byte[] data) {
+        return Base64.getEncoder().encodeToString(data);
+    }
+
+    private String pictureJson(byte[] image) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(new Picture(imageBase64(image)));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package neuhub.client;
+
+import org.springframework.http.HttpMethod;
+
+/**
+ * neuhub网关提供的接口，与{@link neuhub.NeuhubAIDemoTester}中的示例一一对应
+ * <ul>
+ * <li>uriTemplate为网关地址之后的部分，{}中为调用时填写的参数</li>
+ * <li>idempotent表示重复调用不会改变服务端的数据，人脸分组和人脸的增删不是幂等的，失败后不能随意重发</li>
+ * </ul>
+ */
+public enum NeuhubEndpoint {
+    ASR("/neuhub/asr"),
+    COMMENT_TAG("/neuhub/CommentTag"),
+    FACE_COMPARE("/neuhub/face_compare"),
+    FACE_DETECT_ATTR("/neuhub/face_detect_attr"),
+    FACE_ANTI_SPOOF("/neuhub/face_AntiSpoof"),
+    FOOD("/neuhub/FoodApi"),
+    HUMAN_DETECT("/neuhub/human_detect"),
+    OCR_IDCARD("/neuhub/ocr_idcard"),
+    OCR_INVOICE("/neuhub/ocr_invoice"),
+    LEADER_REC("/neuhub/PoliticiansRecognition"),
+    LEXER("/neuhub/lexer"),
+    POSE_ESTIMATION("/neuhub/pose_estimation?muti_det={muti_det}"),
+    FACE_SEARCH("/neuhub/faceSearch?groupId={groupId}"),
+    FACE_GROUP_CREATE(HttpMethod.POST, "/neuhub/faceGroupCreate?groupName={groupName}", false),
+    FACE_GROUP_DELETE(HttpMethod.POST, "/neuhub/faceGroupDelete?groupId={groupId}", false),
+    FACE_CREATE(HttpMethod.POST, "/neuhub/face_create?groupId={groupId}&outerId={outerId}", false),
+    FACE_DELETE(HttpMethod.GET, "/neuhub/faceDelete?groupId={groupId}&groupName=&outerId={outerId}", false),
+    FACE_GROUP_LIST("/neuhub/getFaceGroupList?start={start}&length={length}"),
+    SELFIE_SEGMENTATION("/neuhub/SelfieSeg"),
+    SENTIMENT("/neuhub/sentiment"),
+    SEXY_GET(HttpMethod.GET, "/neuhub/cvImage?image_url={image_url}"),
+    SEXY_POST("/neuhub/localCvImage"),
+    SIMILARITY("/neuhub/similarity"),
+    SNAPSHOP("/neuhub/snapshop"),
+    TEXT_CLASSIFICATION("/neuhub/textClassification"),
+    SYNTAX("/neuhub/parser"),
+    TTS("/neuhub/tts"),
+    OCR_UNIVERSAL("/neuhub/ocr_universal"),
+    OCR_VEHICLE("/neuhub/ocr_vehicle_recognition");
+
+    private final HttpMethod method;
+    private final String uriTemplate;
+    private final boolean idempotent;
+
+    NeuhubEndpoint(String uriTemplate) {
+        this(HttpMethod.POST, uriTemplate);
+    }
+
+    NeuhubEndpoint(HttpMethod method, String uriTemplate) {
+        this(method, uriTemplate, true);
+    }
+
+    NeuhubEndpoint(HttpMethod method, String uriTemplate, boolean idempotent) {
+        this.method = method;
+        this.uriTemplate = uriTemplate;
+        this.idempotent = idempotent;
+    }
+
+    public HttpMethod getMethod() {
+        return method;
+    }
+
+    public String getUriTemplate() {
+        return uriTemplate;
+    }
+
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    /**
+     * @return - 不含查询参数的路径，如 /neuhub/faceSearch
+     */
+    public String getPath() {
+        int query = uriTemplate.indexOf('?');
+        return query < 0 ? uriTemplate : uriTemplate.substring(0, query);
+    }
+
+    /**
+     * 根据请求路径查找接口
+     * @param path - 请求路径，不含查询参数
+     * @return - 对应的接口，不是neuhub接口时返回null
+     */
+    public static NeuhubEndpoint fromPath(String path) {
+        for (NeuhubEndpoint endpoint : values()) {
+            if (endpoint.getPath().equals(path)) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,101 @@
+package neuhub.client;
+
+import neuhub.quota.QuotaExceededException;
+import neuhub.resilience.CircuitOpenException;
+import neuhub.tts.TtsStreamException;
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.MalformedChunkCodingException;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import javax.net.ssl.SSLException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 对调用失败的原因分类，决定能否换一个网关或稍后重发
+ */
+public final class NeuhubFailures {
+
+    private NeuhubFailures() {
+    }
+
+    /**
+     * @return - 去掉CompletableFuture包装后的异常
+     */
+    public static Throwable unwrap(Throwable ex) {
+        while ((ex instanceof CompletionException || ex instanceof ExecutionException) && ex.getCause() != null) {
+            ex = ex.getCause();
+        }
+        return ex;
+    }
+
+    /**
+     * @return - 连接没有建立，请求一定没有到达网关
+     */
+    public static boolean isNotSent(Throwable ex) {
+        for (Throwable cause = unwrap(ex); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException
+                    || cause instanceof NoRouteToHostException || cause instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return - 配额用尽或熔断，客户端在本地拒绝了请求，稍后重发之前再发出的请求也会同样失败
+     */
+    public static boolean isRejected(Throwable ex) {
+        Throwable cause = unwrap(ex);
+        return cause instanceof QuotaExceededException || cause instanceof CircuitOpenException;
+    }
+
+    /**
+     * 只有5xx和HttpClient在连接上抛出的异常算网关的问题
+     * <ul>
+     * <li>读取上传文件失败（文件不存在、被截断）是本地的问题，换网关或重发也会同样失败</li>
+     * <li>音频已经写出一部分后失败的{@link TtsStreamException}，包括写给调用方失败，不算网关的问题</li>
+     * </ul>
+     * @return - 网关或网络的问题，而不是请求本身的问题
+     */
+    public static boolean isGatewayFailure(Throwable ex) {
+        for (Throwable cause = unwrap(ex); cause != null; cause = cause.getCause()) {
+            if (cause instanceof TtsStreamException) {
+                return false;
+            }
+            if (cause instanceof HttpServerErrorException || isTransportFailure(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return - 建立连接、TLS握手、读写连接时失败或超时
+     */
+    private static boolean isTransportFailure(Throwable cause) {
+        return cause instanceof SocketException || cause instanceof SocketTimeoutException
+                || cause instanceof ConnectTimeoutException || cause instanceof UnknownHostException
+                || cause instanceof NoHttpResponseException || cause instanceof ConnectionClosedException
+                || cause instanceof MalformedChunkCodingException || cause instanceof SSLException;
+    }
+
+    /**
+     * 请求没有发出时总是可以重发；发出后失败的，只有幂等的接口可以重发；响应已经交给调用方一部分的不能重发
+     * @return - 可以重发
+     */
+    public static boolean isRetryable(NeuhubEndpoint endpoint, Throwable ex) {
+        Throwable cause = unwrap(ex);
+        if (cause instanceof QuotaExceededException || cause instanceof TtsStreamException) {
+            return false;
+        }
+        return isNotSent(ex) || (endpoint.isIdempotent() && isGatewayFailure(ex));
+    }
+}
@@ -0,0 +1,180 @@
+package neuhub.client;
+
+import neuhub.cache.CacheKeyRequest;
+import neuhub.cache.CachedResponse;
+import neuhub.cache.ResponseCache;
+import neuhub.face.FaceIndex;
+import neuhub.metrics.NeuhubMetrics;
+import neuhub.quota.QuotaRateLimiter;
+import neuhub.resilience.RetryPolicy;
+import neuhub.routing.NeuhubRegion;
+import neuhub.routing.RegionRouter;
+import neuhub.routing.RegionTrackingRequest;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.security.oauth2.client.OAuth2ClientContext;
+import org.springframework.security.oauth2.client.OAuth2RestTemplate;
+import org.springframework.security.oauth2.client.resource.OAuth2ProtectedResourceDetails;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * 在{@link OAuth2RestTemplate}的基础上，允许带请求体的调用直接指定{@link ResponseExtractor}
+ * <ul>
+ * <li>请求体与exchange相同，经过消息转换器写出</li>
+ * <li>响应交给extractor从流中读取，不经过消息转换器，也不生成ResponseEntity，配合{@link neuhub.response.FieldProjection}只取需要的字段</li>
+ * <li>设置了{@link QuotaRateLimiter}时，调用neuhub接口前先取得许可，需要等待时阻塞当前线程</li>
+ * <li>设置了{@link RegionRouter}且配置了多个地域时，发往任一地域网关的请求会改发到当前最优的地域，并使用该地域的token</li>
+ * <li>设置了{@link RetryPolicy}时，调用neuhub接口失败后按策略重试，重试时重新选择地域并重新写出请求体；
+ * 请求体需要能重复写出，如byte[]、String、{@link neuhub.http.FileBody}，不能是只能读一次的流</li>
+ * <li>设置了{@link ResponseCache}时，启用缓存的接口先按请求内容查找缓存，命中时不发出请求、不经过限流，也不消耗额度；
+ * 计算key时请求体会多写出一次</li>
+ * <li>设置了{@link FaceIndex}时，创建、删除分组和人脸成功后更新本地索引</li>
+ * <li>设置了{@link NeuhubMetrics}时，记录每次请求的耗时、请求和响应的字节数以及响应中的返回码，不含限流等待的时间</li>
+ * </ul>
+ */
+public class NeuhubRestTemplate extends OAuth2RestTemplate {
+
+    private QuotaRateLimiter rateLimiter;
+    private RegionRouter regionRouter;
+    private RetryPolicy retryPolicy;
+    private ResponseCache responseCache;
+    private FaceIndex faceIndex;
+    private NeuhubMetrics metrics;
+
+    public NeuhubRestTemplate(OAuth2ProtectedResourceDetails resource, OAuth2ClientContext context) {
+        super(resource, context);
+    }
+
+    public void setRateLimiter(QuotaRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    public void setRegionRouter(RegionRouter regionRouter) {
+        this.regionRouter = regionRouter;
+    }
+
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    public void setFaceIndex(FaceIndex faceIndex) {
+        this.faceIndex = faceIndex;
+    }
+
+    public void setMetrics(NeuhubMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param url - 请求地址
+     * @param method - 请求方法
+     * @param requestEntity - 请求头和请求体，可以为null
+     * @param responseExtractor - 从响应流中读取结果
+     * @param uriVariables - 地址中的变量
+     * @return - extractor返回的结果
+     * @throws RestClientException - 调用失败
+     */
+    public <T> T execute(String url, HttpMethod method, HttpEntity<?> requestEntity, ResponseExtractor<T> responseExtractor,
+                         Object... uriVariables) throws RestClientException {
+        RequestCallback requestCallback = httpEntityCallback(requestEntity);
+        return execute(url, method, requestCallback, responseExtractor, uriVariables);
+    }
+
+    @Override
+    protected <T> T doExecute(URI url, HttpMethod method, RequestCallback requestCallback, ResponseExtractor<T> responseExtractor)
+            throws RestClientException {
+        NeuhubEndpoint endpoint = NeuhubEndpoint.fromPath(url.getPath());
+        if (endpoint == null) {
+            return super.doExecute(url, method, requestCallback, responseExtractor);
+        }
+        if (faceIndex != null && faceIndex.isTracked(endpoint)) {
+            ResponseExtractor<T> extractor = responseExtractor;
+            responseExtractor = response -> {
+                ClientHttpResponse observed = faceIndex.observe(endpoint, url, response);
+                return extractor == null ? null : extractor.extractData(observed);
+            };
+        }
+        if (responseCache != null && responseCache.isEnabled(endpoint)) {
+            return doExecuteCached(endpoint, url, method, requestCallback, responseExtractor);
+        }
+        return doExecuteWithRetry(endpoint, url, method, requestCallback, responseExtractor);
+    }
+
+    /**
+     * 请求体先写入{@link CacheKeyRequest}计算key，命中时直接从缓存的响应中读取结果，否则发出请求并缓存响应
+     */
+    private <T> T doExecuteCached(NeuhubEndpoint endpoint, URI url, HttpMethod method, RequestCallback requestCallback,
+                                  ResponseExtractor<T> responseExtractor) {
+        CacheKeyRequest keyRequest = new CacheKeyRequest(method, url);
+        try {
+            if (requestCallback != null) {
+                requestCallback.doWithRequest(keyRequest);
+            }
+        } catch (IOException e) {
+            throw new ResourceAccessException("计算缓存key失败: " + e.getMessage(), e);
+        }
+        String key = keyRequest.getKey();
+        CachedResponse cached = responseCache.get(key);
+        if (cached == null) {
+            return doExecuteWithRetry(endpoint, url, method, requestCallback, response -> {
+                ClientHttpResponse stored = responseCache.store(key, response);
+                return responseExtractor == null ? null : responseExtractor.extractData(stored);
+            });
+        }
+        if (responseExtractor == null) {
+            return null;
+        }
+        try {
+            return responseExtractor.extractData(cached.toClientHttpResponse());
+        } catch (IOException e) {
+            throw new ResourceAccessException("读取缓存的响应失败: " + e.getMessage(), e);
+        }
+    }
+
+    private <T> T doExecuteWithRetry(NeuhubEndpoint endpoint, URI url, HttpMethod method, RequestCallback requestCallback,
+                                     ResponseExtractor<T> responseExtractor) {
+        if (retryPolicy == null) {
+            return super.doExecute(url, method, requestCallback, responseExtractor);
+        }
+        return retryPolicy.execute(endpoint, () -> super.doExecute(url, method, requestCallback, responseExtractor));
+    }
+
+    @Override
+    protected ClientHttpRequest createRequest(URI uri, HttpMethod method) throws IOException {
+        NeuhubEndpoint endpoint = NeuhubEndpoint.fromPath(uri.getPath());
+        if (endpoint == null) {
+            return super.createRequest(uri, method);
+        }
+        if (rateLimiter != null) {
+            rateLimiter.acquire(endpoint);
+        }
+        ClientHttpRequest request;
+        if (regionRouter != null && regionRouter.isMultiRegion() && regionRouter.regionOf(uri) != null) {
+            NeuhubRegion region = regionRouter.select();
+            OAuth2AccessToken token = region.getAccessTokenManager().getAccessToken();
+            request = getRequestFactory().createRequest(region.resolve(uri), method);
+            request.getHeaders().set(HttpHeaders.AUTHORIZATION, OAuth2AccessToken.BEARER_TYPE + " " + token.getValue());
+            request = new RegionTrackingRequest(request, region, token);
+        } else {
+            request = super.createRequest(uri, method);
+        }
+        if (metrics != null) {
+            request = metrics.track(endpoint, request);
+        }
+        return rateLimiter == null ? request : rateLimiter.track(endpoint, request);
+    }
+}
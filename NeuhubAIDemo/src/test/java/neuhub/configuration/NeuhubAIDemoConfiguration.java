@@ -1,28 +1,271 @@
 package neuhub.configuration;
 
+import neuhub.cache.ResponseCache;
+import neuhub.client.NeuhubRestTemplate;
+import neuhub.execution.BlockingCallExecutor;
+import neuhub.face.FaceIndex;
+import neuhub.face.FaceIndexReconciler;
+import neuhub.http.Base64FormBodyHttpMessageConverter;
+import neuhub.image.ImagePreprocessor;
+import neuhub.metrics.NeuhubMetrics;
+import neuhub.http.ConfiguredKeepAliveStrategy;
+import neuhub.http.ConnectionPoolMonitor;
+import neuhub.http.FileBodyHttpMessageConverter;
+import neuhub.quota.QuotaRateLimiter;
+import neuhub.resilience.RetryPolicy;
+import neuhub.routing.RegionRouter;
+import neuhub.response.NeuhubResponseHttpMessageConverter;
+import neuhub.token.AccessTokenManager;
+import neuhub.token.ManagedOAuth2ClientContext;
+import neuhub.tts.TtsStreamer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.ssl.SSLContexts;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.security.oauth2.client.OAuth2RestTemplate;
 import org.springframework.security.oauth2.client.resource.OAuth2ProtectedResourceDetails;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.security.oauth2.client.token.grant.client.ClientCredentialsAccessTokenProvider;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
- * 这是neuhub示例程序的配置类，这个类生成1个bean
+ * 这是neuhub示例程序的配置类，这个类生成以下bean
  * <ul>
  * <li>1个{@link OAuth2RestTemplate}，这是请求时需要使用的rest客户端，spring提供了基于oauth2的实现，这样只需要通过配置就能自动完成token获取等操作</li>
+ * <li>实际生成的是{@link NeuhubRestTemplate}，可以直接指定从响应流读取结果的ResponseExtractor，配置了多个地域时按{@link RegionRouter}选择网关</li>
  * <li>依赖的{@link OAuth2ProtectedResourceDetails}可由SpringBoot的auto configuration能力生成</li>
+ * <li>rest客户端额外注册了{@link Base64FormBodyHttpMessageConverter}，图片以Base64表单上传时边读文件边编码发送</li>
+ * <li>rest客户端额外注册了{@link FileBodyHttpMessageConverter}，图片、音频以二进制上传时直接从文件发送</li>
+ * <li>rest客户端额外注册了{@link NeuhubResponseHttpMessageConverter}，响应可以直接解析为NeuhubResponse</li>
+ * <li>1个{@link QuotaRateLimiter}，按接口限流，并根据响应中的剩余调用次数调整速率，同步和异步客户端共用</li>
+ * <li>1个{@link RetryPolicy}，按接口重试和熔断，同步客户端失败后重试，同步和异步客户端共用熔断状态</li>
+ * <li>1个{@link ResponseCache}，缓存识别类接口的响应，同步和异步客户端共用，默认不对任何接口启用</li>
+ * <li>1个{@link FaceIndex}，人脸分组和人脸的本地索引，由{@link FaceIndexReconciler}定期与网关同步</li>
+ * <li>1个{@link TtsStreamer}，语音合成，音频边接收边写入调用方的通道或输出流</li>
+ * <li>1个{@link ImagePreprocessor}，上传前缩小图片，异步客户端自动使用，同步调用时在dataBinary之后调用，默认不对任何接口启用</li>
+ * <li>1个{@link AccessTokenManager}，缓存token并在过期前后台刷新，rest客户端从这里取token</li>
+ * <li>1个{@link PoolingHttpClientConnectionManager}连接池，rest客户端和token请求共用，连接保持长连接并复用TLS会话，避免每次请求重新握手</li>
+ * <li>1个{@link ConnectionPoolMonitor}，用于查看连接池的统计信息</li>
+ * <li>1个{@link NeuhubMetrics}，同步和异步客户端共用，记录各接口的耗时、字节数和返回码，以及token和连接池的统计，由actuator输出</li>
+ * <li>1个{@link BlockingCallExecutor}，以有限的并发在其他线程中执行同步客户端的调用，JDK 21及以上可以使用虚拟线程</li>
  * </ul>
+ * 连接池的参数见{@link NeuhubHttpProperties}，token刷新的参数见{@link NeuhubTokenProperties}，限流的参数见{@link NeuhubRateLimitProperties}，
+ * 重试和熔断的参数见{@link NeuhubRetryProperties}，
+ * 缓存的参数见{@link NeuhubCacheProperties}，
+ * 人脸索引的参数见{@link NeuhubFaceIndexProperties}，
+ * 图片预处理的参数见{@link NeuhubImageProperties}，
+ * 同步调用并发执行的参数见{@link NeuhubExecutorProperties}
  */
 @Configuration
+@EnableConfigurationProperties({NeuhubHttpProperties.class, NeuhubTokenProperties.class, NeuhubBulkProperties.class,
+        NeuhubRateLimitProperties.class, NeuhubHedgingProperties.class, NeuhubRetryProperties.class,
+        NeuhubCacheProperties.class, NeuhubFaceIndexProperties.class, NeuhubAsrProperties.class,
+        NeuhubTtsProperties.class, NeuhubImageProperties.class, NeuhubCorpusProperties.class,
+        NeuhubSimilarityProperties.class, NeuhubExecutorProperties.class, NeuhubModerationProperties.class,
+        NeuhubEnrollmentProperties.class})
 public class NeuhubAIDemoConfiguration {
     /**
-     * 生成支撑OAuth2验证的rest客户端
+     * 生成支撑OAuth2验证的rest客户端，token由{@link AccessTokenManager}提供
      * @param resourceDetails - oauth2 客户端详情
+     * @param requestFactory - 基于连接池的请求工厂
+     * @param accessTokenManager - token管理器
+     * @param rateLimiter - 限流器
+     * @param regionRouter - 地域路由
+     * @param retryPolicy - 重试和熔断策略
+     * @param responseCache - 响应缓存
+     * @param imagePreprocessor - 图片预处理
+     * @param faceIndex - 人脸本地索引
+     * @param metrics - 客户端指标
      * @return - rest 客户端
      */
     @Bean
-    public RestTemplate restTemplate(OAuth2ProtectedResourceDetails resourceDetails) {
-        return new OAuth2RestTemplate(resourceDetails);
+    public NeuhubRestTemplate restTemplate(OAuth2ProtectedResourceDetails resourceDetails, ClientHttpRequestFactory requestFactory,
+                                           AccessTokenManager accessTokenManager, QuotaRateLimiter rateLimiter,
+                                           RegionRouter regionRouter, RetryPolicy retryPolicy, ResponseCache responseCache,
+                                           FaceIndex faceIndex, NeuhubMetrics metrics) {
+        NeuhubRestTemplate restTemplate = new NeuhubRestTemplate(resourceDetails, new ManagedOAuth2ClientContext(accessTokenManager));
+        restTemplate.setRequestFactory(requestFactory);
+        restTemplate.setAccessTokenProvider(accessTokenManager);
+        restTemplate.setRateLimiter(rateLimiter);
+        restTemplate.setRegionRouter(regionRouter);
+        restTemplate.setRetryPolicy(retryPolicy);
+        restTemplate.setResponseCache(responseCache);
+        restTemplate.setFaceIndex(faceIndex);
+        restTemplate.setMetrics(metrics);
+        // 需要排在json转换器之前，否则请求体会被当作普通对象序列化
+        restTemplate.getMessageConverters().add(0, new Base64FormBodyHttpMessageConverter());
+        restTemplate.getMessageConverters().add(0, new FileBodyHttpMessageConverter());
+        restTemplate.getMessageConverters().add(0, new NeuhubResponseHttpMessageConverter());
+        return restTemplate;
+    }
+
+    @Bean
+    public QuotaRateLimiter quotaRateLimiter(NeuhubRateLimitProperties properties) {
+        return new QuotaRateLimiter(properties);
+    }
+
+    @Bean
+    public RetryPolicy retryPolicy(NeuhubRetryProperties properties) {
+        return new RetryPolicy(properties);
+    }
+
+    @Bean
+    public FaceIndex faceIndex() {
+        return new FaceIndex();
+    }
+
+    @Bean(initMethod = "start")
+    public FaceIndexReconciler faceIndexReconciler(NeuhubRestTemplate restTemplate, @Value("${gateway.url}") String gatewayUrl,
+                                                   FaceIndex faceIndex, NeuhubFaceIndexProperties properties) {
+        return new FaceIndexReconciler(restTemplate, gatewayUrl, faceIndex, properties);
+    }
+
+    @Bean
+    public ImagePreprocessor imagePreprocessor(NeuhubImageProperties properties) {
+        return new ImagePreprocessor(properties);
+    }
+
+    @Bean
+    public TtsStreamer ttsStreamer(NeuhubRestTemplate restTemplate, @Value("${gateway.url}") String gatewayUrl) {
+        return new TtsStreamer(restTemplate, gatewayUrl);
+    }
+
+    @Bean
+    public ResponseCache responseCache(NeuhubCacheProperties properties) throws IOException {
+        return new ResponseCache(properties);
+    }
+
+    /**
+     * 生成token管理器，启动后立即获取token，并在过期前自动刷新
+     * @param resourceDetails - oauth2 客户端详情
+     * @param requestFactory - 基于连接池的请求工厂
+     * @param properties - token刷新配置
+     * @param metrics - 客户端指标
+     * @return - token管理器
+     */
+    @Bean(initMethod = "start")
+    public AccessTokenManager accessTokenManager(OAuth2ProtectedResourceDetails resourceDetails, ClientHttpRequestFactory requestFactory,
+                                                 NeuhubTokenProperties properties, NeuhubMetrics metrics) {
+        ClientCredentialsAccessTokenProvider accessTokenProvider = new ClientCredentialsAccessTokenProvider();
+        accessTokenProvider.setRequestFactory(requestFactory);
+        AccessTokenManager accessTokenManager = new AccessTokenManager("default", resourceDetails, accessTokenProvider, properties);
+        accessTokenManager.setMetrics(metrics);
+        return accessTokenManager;
+    }
+
+    /**
+     * 生成基于连接池的请求工厂，请求体不在内存中缓冲，由消息转换器直接写入连接
+     * @param httpClient - 基于连接池的http客户端
+     * @return - 请求工厂
+     */
+    @Bean
+    public ClientHttpRequestFactory clientHttpRequestFactory(CloseableHttpClient httpClient) {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setBufferRequestBody(false);
+        return requestFactory;
+    }
+
+    /**
+     * 生成http客户端，超时、长连接和空闲连接回收的参数来自配置
+     * @param connectionManager - 连接池
+     * @param properties - 连接池配置
+     * @return - http客户端
+     */
+    @Bean
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager, NeuhubHttpProperties properties) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(properties.getConnectTimeout())
+                .setSocketTimeout(properties.getReadTimeout())
+                .setConnectionRequestTimeout(properties.getConnectionRequestTimeout())
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(new ConfiguredKeepAliveStrategy(properties.getKeepAlive()))
+                .evictExpiredConnections()
+                .evictIdleConnections(properties.getMaxIdleTime(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 生成连接池
+     * @param sslContext - TLS上下文
+     * @param properties - 连接池配置
+     * @return - 连接池
+     */
+    @Bean
+    public PoolingHttpClientConnectionManager connectionManager(SSLContext sslContext, NeuhubHttpProperties properties) {
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", new SSLConnectionSocketFactory(sslContext, SSLConnectionSocketFactory.getDefaultHostnameVerifier()))
+                .build();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(registry);
+        connectionManager.setMaxTotal(properties.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxPerRoute());
+        connectionManager.setValidateAfterInactivity(properties.getValidateAfterInactivity());
+        return connectionManager;
+    }
+
+    /**
+     * 生成共用的TLS上下文，同一个上下文内的连接可以复用已缓存的TLS会话
+     * @param properties - 连接池配置
+     * @return - TLS上下文
+     */
+    @Bean
+    public SSLContext sslContext(NeuhubHttpProperties properties) {
+        SSLContext sslContext = SSLContexts.createDefault();
+        SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+        sessionContext.setSessionCacheSize(properties.getTlsSessionCacheSize());
+        sessionContext.setSessionTimeout(properties.getTlsSessionTimeout());
+        return sslContext;
+    }
+
+    @Bean
+    public ConnectionPoolMonitor connectionPoolMonitor(PoolingHttpClientConnectionManager connectionManager) {
+        return new ConnectionPoolMonitor(connectionManager);
+    }
+
+    /**
+     * 生成客户端指标，同时统计同步客户端的连接池、响应缓存和图片预处理
+     * @param registry - actuator使用的指标注册表
+     * @param connectionManager - 同步客户端的连接池
+     * @param responseCache - 响应缓存
+     * @return - 客户端指标
+     */
+    @Bean
+    public NeuhubMetrics neuhubMetrics(MeterRegistry registry, PoolingHttpClientConnectionManager connectionManager,
+                                       ResponseCache responseCache, ImagePreprocessor imagePreprocessor) {
+        NeuhubMetrics metrics = new NeuhubMetrics(registry);
+        metrics.bindConnectionPool(NeuhubMetrics.SYNC, connectionManager::getTotalStats);
+        metrics.bindResponseCache(responseCache);
+        metrics.bindImagePreprocessor(imagePreprocessor);
+        return metrics;
+    }
+
+    /**
+     * 生成同步调用的执行器，容器关闭时等待进行中的调用结束
+     * @param properties - 执行器配置
+     * @return - 执行器
+     */
+    @Bean
+    public BlockingCallExecutor blockingCallExecutor(NeuhubExecutorProperties properties) {
+        return new BlockingCallExecutor(properties);
     }
 
 }
@@ -0,0 +1,46 @@
+package neuhub.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 流式语音识别配置，对应配置文件中的 neuhub.asr
+ */
+@ConfigurationProperties(prefix = "neuhub.asr")
+public class NeuhubAsrProperties {
+    /**
+     * 每个分段的音频时长，单位为毫秒，用于wav和pcm格式，按16位采样计算字节数
+     */
+    private int segmentDuration = 160;
+    /**
+     * 其他格式每个分段的字节数
+     */
+    private int segmentBytes = 5120;
+    /**
+     * 同时等待响应的分段数上限，1表示前一个分段返回后才发送下一个
+     */
+    private int maxInFlight = 4;
+
+    public int getSegmentDuration() {
+        return segmentDuration;
+    }
+
+    public void setSegmentDuration(int segmentDuration) {
+        this.segmentDuration = segmentDuration;
+    }
+
+    public int getSegmentBytes() {
+        return segmentBytes;
+    }
+
+    public void setSegmentBytes(int segmentBytes) {
+        this.segmentBytes = segmentBytes;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+}
@@ -0,0 +1,176 @@
+package neuhub.configuration;
+
+import neuhub.asr.AsrStreamer;
+import neuhub.bulk.BulkExecutor;
+import neuhub.cache.ResponseCache;
+import neuhub.cache.ResponseCacheInterceptor;
+import neuhub.client.NeuhubAsyncClient;
+import neuhub.corpus.CorpusPipeline;
+import neuhub.face.FaceEnrollment;
+import neuhub.face.FaceIndex;
+import neuhub.face.FaceIndexInterceptor;
+import neuhub.hedging.HedgingPolicy;
+import neuhub.http.Base64FormBodyHttpMessageConverter;
+import neuhub.http.ConfiguredKeepAliveStrategy;
+import neuhub.http.FileBodyHttpMessageConverter;
+import neuhub.image.ImagePreprocessor;
+import neuhub.image.ModerationDeduplicator;
+import neuhub.metrics.MetricsInterceptor;
+import neuhub.metrics.NeuhubMetrics;
+import neuhub.quota.QuotaRateLimitInterceptor;
+import neuhub.quota.QuotaRateLimiter;
+import neuhub.resilience.RetryPolicy;
+import neuhub.routing.RegionRouter;
+import neuhub.routing.RegionStatsInterceptor;
+import neuhub.similarity.SimilarityMatrixEngine;
+import neuhub.tts.LongTextSynthesizer;
+import neuhub.response.NeuhubResponseHttpMessageConverter;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsAsyncClientHttpRequestFactory;
+import org.springframework.web.client.AsyncRestTemplate;
+
+import javax.net.ssl.SSLContext;
+import java.util.Arrays;
+
+/**
+ * 异步客户端的配置类，这个类生成以下bean
+ * <ul>
+ * <li>1个基于NIO的{@link CloseableHttpAsyncClient}，参数来自{@link NeuhubHttpProperties}，与同步客户端共用TLS上下文</li>
+ * <li>1个{@link AsyncRestTemplate}，额外注册了{@link NeuhubResponseHttpMessageConverter}，响应可以直接解析为NeuhubResponse；
+ * 也注册了{@link FileBodyHttpMessageConverter}和{@link Base64FormBodyHttpMessageConverter}，请求体可以直接使用文件，
+ * 但异步的请求工厂和拦截器都会把请求体整个缓存为byte[]，同时进行的调用各占一份完整的请求体，只有同步客户端是边读边发送的；
+ * 请求先经过{@link ResponseCacheInterceptor}查找缓存，再经过{@link QuotaRateLimitInterceptor}限流，需要等待时延迟发送，再由{@link RegionStatsInterceptor}记录各地域的延迟和错误率；
+ * 创建、删除分组和人脸的响应交给{@link FaceIndexInterceptor}更新本地索引，最后由{@link MetricsInterceptor}记录请求的耗时和字节数</li>
+ * <li>1个{@link NeuhubAsyncClient}，每个neuhub接口对应一个返回CompletableFuture的方法，按{@link RegionRouter}选择地域并在失败时换地域重发，
+ * 与同步客户端共用{@link RetryPolicy}的熔断状态，启用预处理的接口先由{@link ImagePreprocessor}缩小图片</li>
+ * <li>1个{@link HedgingPolicy}，对冲请求的策略，参数见{@link NeuhubHedgingProperties}，默认不对任何接口启用</li>
+ * <li>1个{@link BulkExecutor}，以有限的并发批量调用异步客户端，并发上限见{@link NeuhubBulkProperties}</li>
+ * <li>1个{@link AsrStreamer}，流式语音识别，音频按分段边读边发送，分段参数见{@link NeuhubAsrProperties}</li>
+ * <li>1个{@link LongTextSynthesizer}，长文本语音合成，按句子切分后并发合成、按顺序写出，分段参数见{@link NeuhubTtsProperties}</li>
+ * <li>1个{@link CorpusPipeline}，对大语料文件逐条调用文本分析接口，按顺序写出结果并保存检查点，参数见{@link NeuhubCorpusProperties}</li>
+ * <li>1个{@link SimilarityMatrixEngine}，计算一组短文本两两之间的相似度，去重并在本地预过滤后才调用接口，参数见{@link NeuhubSimilarityProperties}</li>
+ * <li>1个{@link ModerationDeduplicator}，智能鉴黄接口的近似重复图片去重，转发过的图片返回之前的审核结果，参数见{@link NeuhubModerationProperties}</li>
+ * </ul>
+ */
+@Configuration
+public class NeuhubAsyncClientConfiguration {
+
+    @Bean
+    public NeuhubAsyncClient neuhubAsyncClient(AsyncRestTemplate asyncRestTemplate, RegionRouter regionRouter, HedgingPolicy hedgingPolicy,
+                                               RetryPolicy retryPolicy, ImagePreprocessor imagePreprocessor) {
+        NeuhubAsyncClient neuhubAsyncClient = new NeuhubAsyncClient(asyncRestTemplate, regionRouter);
+        neuhubAsyncClient.setHedgingPolicy(hedgingPolicy);
+        neuhubAsyncClient.setRetryPolicy(retryPolicy);
+        neuhubAsyncClient.setImagePreprocessor(imagePreprocessor);
+        return neuhubAsyncClient;
+    }
+
+    @Bean
+    public HedgingPolicy hedgingPolicy(NeuhubHedgingProperties properties) {
+        return new HedgingPolicy(properties);
+    }
+
+    @Bean
+    public BulkExecutor bulkExecutor(NeuhubBulkProperties properties) {
+        return new BulkExecutor(properties.getConcurrency());
+    }
+
+    @Bean
+    public AsrStreamer asrStreamer(NeuhubAsyncClient neuhubAsyncClient, NeuhubAsrProperties properties) {
+        return new AsrStreamer(neuhubAsyncClient, properties);
+    }
+
+    @Bean
+    public LongTextSynthesizer longTextSynthesizer(NeuhubAsyncClient neuhubAsyncClient, NeuhubTtsProperties properties) {
+        return new LongTextSynthesizer(neuhubAsyncClient, properties);
+    }
+
+    @Bean
+    public CorpusPipeline corpusPipeline(NeuhubAsyncClient neuhubAsyncClient, NeuhubCorpusProperties properties) {
+        return new CorpusPipeline(neuhubAsyncClient, properties);
+    }
+
+    @Bean
+    public SimilarityMatrixEngine similarityMatrixEngine(NeuhubAsyncClient neuhubAsyncClient, NeuhubSimilarityProperties properties) {
+        return new SimilarityMatrixEngine(neuhubAsyncClient, properties);
+    }
+
+    @Bean
+    public ModerationDeduplicator moderationDeduplicator(NeuhubAsyncClient neuhubAsyncClient, ImagePreprocessor imagePreprocessor,
+                                                         NeuhubModerationProperties properties) {
+        return new ModerationDeduplicator(neuhubAsyncClient, imagePreprocessor, properties);
+    }
+
+    @Bean
+    public FaceEnrollment faceEnrollment(NeuhubAsyncClient neuhubAsyncClient, NeuhubEnrollmentProperties properties) {
+        return new FaceEnrollment(neuhubAsyncClient, properties);
+    }
+
+    @Bean
+    public AsyncRestTemplate asyncRestTemplate(CloseableHttpClient httpClient, CloseableHttpAsyncClient httpAsyncClient,
+                                               QuotaRateLimiter rateLimiter, RegionRouter regionRouter, ResponseCache responseCache,
+                                               FaceIndex faceIndex, NeuhubMetrics metrics) {
+        AsyncRestTemplate asyncRestTemplate = new AsyncRestTemplate(new HttpComponentsAsyncClientHttpRequestFactory(httpClient, httpAsyncClient));
+        // 需要排在json转换器之前，否则请求体会被当作普通对象序列化
+        asyncRestTemplate.getMessageConverters().add(0, new Base64FormBodyHttpMessageConverter());
+        asyncRestTemplate.getMessageConverters().add(0, new FileBodyHttpMessageConverter());
+        asyncRestTemplate.getMessageConverters().add(0, new NeuhubResponseHttpMessageConverter());
+        // 命中缓存时不经过限流；先限流再统计，地域的延迟不包含限流等待的时间
+        asyncRestTemplate.setInterceptors(Arrays.asList(new ResponseCacheInterceptor(responseCache), new FaceIndexInterceptor(faceIndex),
+                new QuotaRateLimitInterceptor(rateLimiter), new RegionStatsInterceptor(regionRouter), new MetricsInterceptor(metrics)));
+        return asyncRestTemplate;
+    }
+
+    /**
+     * 生成基于NIO的http客户端，io线程数与cpu核数相同，连接数上限为async-max-total和async-max-per-route
+     * @param sslContext - TLS上下文
+     * @param properties - 连接池配置
+     * @param metrics - 客户端指标，统计异步客户端的连接池
+     * @return - 已启动的异步http客户端
+     * @throws IOReactorException - io线程启动失败
+     */
+    @Bean
+    public CloseableHttpAsyncClient httpAsyncClient(SSLContext sslContext, NeuhubHttpProperties properties, NeuhubMetrics metrics)
+            throws IOReactorException {
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(Runtime.getRuntime().availableProcessors())
+                .setConnectTimeout(properties.getConnectTimeout())
+                .setSoTimeout(properties.getReadTimeout())
+                .build();
+        Registry<SchemeIOSessionStrategy> registry = RegistryBuilder.<SchemeIOSessionStrategy>create()
+                .register("http", NoopIOSessionStrategy.INSTANCE)
+                .register("https", new SSLIOSessionStrategy(sslContext, SSLIOSessionStrategy.getDefaultHostnameVerifier()))
+                .build();
+        PoolingNHttpClientConnectionManager connectionManager =
+                new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig), registry);
+        connectionManager.setMaxTotal(properties.getAsyncMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(properties.getAsyncMaxPerRoute());
+        metrics.bindConnectionPool(NeuhubMetrics.ASYNC, connectionManager::getTotalStats);
+        // 连接用满时请求在连接池中排队，排队不占用线程，所以不设置获取连接的超时时间
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(properties.getConnectTimeout())
+                .setSocketTimeout(properties.getReadTimeout())
+                .build();
+        CloseableHttpAsyncClient httpAsyncClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(new ConfiguredKeepAliveStrategy(properties.getKeepAlive()))
+                .build();
+        httpAsyncClient.start();
+        return httpAsyncClient;
+    }
+}
@@ -0,0 +1,24 @@
+package neuhub.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 批量调用的配置，对应配置文件中的 neuhub.bulk
+ */
+@ConfigurationProperties(prefix = "neuhub.bulk")
+public class NeuhubBulkProperties {
+    /**
+     * 同时发出的请求数上限，达到上限后结果被取走一个才发出下一个请求；
+     * 异步客户端会把请求体整个缓存在内存中，上传图片时堆内存约为concurrency乘以Base64编码后的图片大小，
+     * 10MB的图片编码后约13MB，16个并发约占210MB
+     */
+    private int concurrency = 16;
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+}
@@ -0,0 +1,85 @@
+package neuhub.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 响应缓存配置，对应配置文件中的 neuhub.cache，时间单位均为毫秒
+ */
+@ConfigurationProperties(prefix = "neuhub.cache")
+public class NeuhubCacheProperties {
+    /**
+     * 启用缓存的接口，名称见{@link neuhub.client.NeuhubEndpoint}，如 OCR_IDCARD，只对幂等的接口生效，默认不启用
+     */
+    private List<String> endpoints = new ArrayList<>();
+    /**
+     * 缓存的有效时间
+     */
+    private long ttl = 86400000;
+    /**
+     * 内存中最多缓存的响应个数，超过时淘汰最久没有使用的
+     */
+    private int maxEntries = 10000;
+    /**
+     * 磁盘缓存的目录，为空时只缓存在内存中
+     */
+    private String directory = "";
+    /**
+     * 每个段文件的大小，单位为字节
+     */
+    private int segmentSize = 64 * 1024 * 1024;
+    /**
+     * 段文件的个数上限，超过时删除最旧的段
+     */
+    private int maxSegments = 16;
+
+    public List<String> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(List<String> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public int getMaxSegments() {
+        return maxSegments;
+    }
+
+    public void setMaxSegments(int maxSegments) {
+        this.maxSegments = maxSegments;
+    }
+}
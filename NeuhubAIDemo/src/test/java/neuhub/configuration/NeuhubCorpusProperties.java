@@ -0,0 +1,122 @@
+package neuhub.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 批量文本分析配置，对应配置文件中的 neuhub.corpus
+ */
+@ConfigurationProperties(prefix = "neuhub.corpus")
+public class NeuhubCorpusProperties {
+    /**
+     * 调用的接口，key为{@link neuhub.client.NeuhubEndpoint}的名称，支持SENTIMENT、LEXER、COMMENT_TAG、TEXT_CLASSIFICATION
+     */
+    private List<String> endpoints = new ArrayList<>(Arrays.asList("SENTIMENT"));
+    /**
+     * 同时处理的记录数上限，每条记录对每个接口各调用一次
+     */
+    private int concurrency = 32;
+    /**
+     * 语料格式，jsonl或csv，为空时按文件扩展名判断
+     */
+    private String format = "";
+    /**
+     * 记录的id所在的字段或列，没有时使用记录在文件中的字节偏移
+     */
+    private String idField = "id";
+    /**
+     * 文本所在的字段或列
+     */
+    private String textField = "text";
+    /**
+     * 每写出多少条记录保存一次检查点
+     */
+    private int checkpointInterval = 1000;
+    /**
+     * 距上次保存检查点超过该时间时也保存一次，单位为毫秒
+     */
+    private long checkpointPeriod = 10000;
+    /**
+     * 词法分析接口的type参数
+     */
+    private int lexerType = 0;
+    /**
+     * 情感分析接口的情感模型类型
+     */
+    private int sentimentType = 1;
+
+    public List<String> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(List<String> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public String getIdField() {
+        return idField;
+    }
+
+    public void setIdField(String idField) {
+        this.idField = idField;
+    }
+
+    public String getTextField() {
+        return textField;
+    }
+
+    public void setTextField(String textField) {
+        this.textField = textField;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public void setCheckpointInterval(int checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public long getCheckpointPeriod() {
+        return checkpointPeriod;
+    }
+
+    public void setCheckpointPeriod(long checkpointPeriod) {
+        this.checkpointPeriod = checkpointPeriod;
+    }
+
+    public int getLexerType() {
+        return lexerType;
+    }
+
+    public void setLexerType(int lexerType) {
+        this.lexerType = lexerType;
+    }
+
+    public int getSentimentType() {
+        return sentimentType;
+    }
+
+    public void setSentimentType(int sentimentType) {
+        this.sentimentType = sentimentType;
+    }
+}
@@ -0,0 +1,58 @@
+package neuhub.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 批量创建人脸的配置，对应配置文件中的 neuhub.enrollment
+ */
+@ConfigurationProperties(prefix = "neuhub.enrollment")
+public class NeuhubEnrollmentProperties {
+    /**
+     * 同时创建的人脸数上限
+     */
+    private int concurrency = 32;
+    /**
+     * 日志刷到磁盘的间隔，单位为毫秒；每条记录写入后都会交给操作系统，进程退出不会丢失，间隔只影响机器掉电时的丢失
+     */
+    private long syncInterval = 1000;
+    /**
+     * 输出进度的间隔，单位为毫秒
+     */
+    private long progressInterval = 10000;
+    /**
+     * 报告中保留的失败明细条数，其余失败只计数
+     */
+    private int maxReportedFailures = 100;
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public long getSyncInterval() {
+        return syncInterval;
+    }
+
+    public void setSyncInterval(long syncInterval) {
+        this.syncInterval = syncInterval;
+    }
+
+    public long getProgressInterval() {
+        return progressInterval;
+    }
+
+    public void setProgressInterval(long progressInterval) {
+        this.progressInterval = progressInterval;
+    }
+
+    public int getMaxReportedFailures() {
+        return maxReportedFailures;
+    }
+
+    public void setMaxReportedFailures(int maxReportedFailures) {
+        this.maxReportedFailures = maxReportedFailures;
+    }
+}
@@ -0,0 +1,46 @@
+package neuhub.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 同步客户端并发调用的配置，对应配置文件中的 neuhub.executor
+ */
+@ConfigurationProperties(prefix = "neuhub.executor")
+public class NeuhubExecutorProperties {
+    /**
+     * 执行调用的线程，platform为固定大小的线程池，virtual为每次调用一个虚拟线程，需要JDK 21及以上，低版本时退回platform
+     */
+    private String mode = "platform";
+    /**
+     * 同时进行的调用数上限，超过时提交调用的线程等待
+     */
+    private int maxConcurrency = 200;
+    /**
+     * platform模式的线程数
+     */
+    private int platformThreads = 64;
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public int getPlatformThreads() {
+        return platformThreads;
+    }
+
+    public void setPlatformThreads(int platformThreads) {
+        this.platformThreads = platformThreads;
+    }
+}
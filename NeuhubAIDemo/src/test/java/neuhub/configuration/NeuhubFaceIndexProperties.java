@@ -0,0 +1,34 @@
+package neuhub.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 人脸本地索引配置，对应配置文件中的 neuhub.face-index，时间单位均为毫秒
+ */
+@ConfigurationProperties(prefix = "neuhub.face-index")
+public class NeuhubFaceIndexProperties {
+    /**
+     * 从网关同步分组列表的间隔，0表示不定期同步
+     */
+    private long reconcileInterval = 0;
+    /**
+     * 同步时每次查询的分组数
+     */
+    private int pageSize = 100;
+
+    public long getReconcileInterval() {
+        return reconcileInterval;
+    }
+
+    public void setReconcileInterval(long reconcileInterval) {
+        this.reconcileInterval = reconcileInterval;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+}
@@ -0,0 +1,85 @@
+package neuhub.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 对冲请求配置，对应配置文件中的 neuhub.hedging，时间单位均为毫秒
+ */
+@ConfigurationProperties(prefix = "neuhub.hedging")
+public class NeuhubHedgingProperties {
+    /**
+     * 启用对冲的接口，名称见{@link neuhub.client.NeuhubEndpoint}，如 FACE_SEARCH，只对幂等的接口生效，默认不启用
+     */
+    private List<String> endpoints = new ArrayList<>();
+    /**
+     * 请求发出多久没有响应时发出对冲请求，0表示使用最近请求延迟的percentile分位数
+     */
+    private long delay = 0;
+    /**
+     * delay为0时使用的延迟分位数
+     */
+    private double percentile = 0.95;
+    /**
+     * 对冲等待时间的下限
+     */
+    private long minDelay = 20;
+    /**
+     * 对冲请求数占请求总数的比例上限，避免额度消耗翻倍
+     */
+    private double maxRatio = 0.1;
+    /**
+     * 对冲请求是否优先发往另一个地域，只有一个地域时发往同一个地域
+     */
+    private boolean alternateRegion = true;
+
+    public List<String> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(List<String> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    public long getDelay() {
+        return delay;
+    }
+
+    public void setDelay(long delay) {
+        this.delay = delay;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public void setPercentile(double percentile) {
+        this.percentile = percentile;
+    }
+
+    public long getMinDelay() {
+        return minDelay;
+    }
+
+    public void setMinDelay(long minDelay) {
+        this.minDelay = minDelay;
+    }
+
+    public double getMaxRatio() {
+        return maxRatio;
+    }
+
+    public void setMaxRatio(double maxRatio) {
+        this.maxRatio = maxRatio;
+    }
+
+    public boolean isAlternateRegion() {
+        return alternateRegion;
+    }
+
+    public void setAlternateRegion(boolean alternateRegion) {
+        this.alternateRegion = alternateRegion;
+    }
+}
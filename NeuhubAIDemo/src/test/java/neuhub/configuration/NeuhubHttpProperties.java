@@ -0,0 +1,158 @@
+package neuhub.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 调用neuhub网关时使用的http连接池配置，对应配置文件中的 neuhub.http
+ * <ul>
+ * <li>时间类配置的单位均为毫秒</li>
+ * <li>未配置的项使用下面的默认值</li>
+ * </ul>
+ */
+@ConfigurationProperties(prefix = "neuhub.http")
+public class NeuhubHttpProperties {
+    /**
+     * 连接池总连接数上限
+     */
+    private int maxTotal = 400;
+    /**
+     * 每个网关地址(route)的连接数上限
+     */
+    private int maxPerRoute = 200;
+    /**
+     * 异步客户端的连接数上限，NIO连接不占用线程，可以比同步客户端大得多
+     */
+    private int asyncMaxTotal = 2000;
+    /**
+     * 异步客户端每个网关地址的连接数上限
+     */
+    private int asyncMaxPerRoute = 1000;
+    /**
+     * 建立tcp连接的超时时间
+     */
+    private int connectTimeout = 3000;
+    /**
+     * 等待响应数据的超时时间
+     */
+    private int readTimeout = 10000;
+    /**
+     * 从连接池获取连接的超时时间
+     */
+    private int connectionRequestTimeout = 1000;
+    /**
+     * 服务端未返回Keep-Alive头时，连接保持的时间
+     */
+    private long keepAlive = 30000;
+    /**
+     * 空闲超过该时间的连接会被后台线程关闭
+     */
+    private long maxIdleTime = 60000;
+    /**
+     * 连接空闲超过该时间后，复用前先检查连接是否可用
+     */
+    private int validateAfterInactivity = 2000;
+    /**
+     * 缓存的TLS会话个数，重新建连时复用会话可省去完整握手，0表示不限制
+     */
+    private int tlsSessionCacheSize = 0;
+    /**
+     * TLS会话的缓存时间，单位为秒
+     */
+    private int tlsSessionTimeout = 3600;
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    public void setMaxPerRoute(int maxPerRoute) {
+        this.maxPerRoute = maxPerRoute;
+    }
+
+    public int getAsyncMaxTotal() {
+        return asyncMaxTotal;
+    }
+
+    public void setAsyncMaxTotal(int asyncMaxTotal) {
+        this.asyncMaxTotal = asyncMaxTotal;
+    }
+
+    public int getAsyncMaxPerRoute() {
+        return asyncMaxPerRoute;
+    }
+
+    public void setAsyncMaxPerRoute(int asyncMaxPerRoute) {
+        this.asyncMaxPerRoute = asyncMaxPerRoute;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public int getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    public void setConnectionRequestTimeout(int connectionRequestTimeout) {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+    }
+
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public long getMaxIdleTime() {
+        return maxIdleTime;
+    }
+
+    public void setMaxIdleTime(long maxIdleTime) {
+        this.maxIdleTime = maxIdleTime;
+    }
+
+    public int getValidateAfterInactivity() {
+        return validateAfterInactivity;
+    }
+
+    public void setValidateAfterInactivity(int validateAfterInactivity) {
+        this.validateAfterInactivity = validateAfterInactivity;
+    }
+
+    public int getTlsSessionCacheSize() {
+        return tlsSessionCacheSize;
+    }
+
+    public void setTlsSessionCacheSize(int tlsSessionCacheSize) {
+        this.tlsSessionCacheSize = tlsSessionCacheSize;
+    }
+
+    public int getTlsSessionTimeout() {
+        return tlsSessionTimeout;
+    }
+
+    public void setTlsSessionTimeout(int tlsSessionTimeout) {
+        this.tlsSessionTimeout = tlsSessionTimeout;
+    }
+}
@@ -0,0 +1,50 @@
+package neuhub.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 图片上传前的预处理配置，对应配置文件中的 neuhub.image
+ */
+@ConfigurationProperties(prefix = "neuhub.image")
+public class NeuhubImageProperties {
+    /**
+     * 启用预处理的接口，key为{@link neuhub.client.NeuhubEndpoint}的名称，如 FOOD，value为图片长边的像素上限，
+     * 只支持{@link neuhub.image.ImagePreprocessor#SUPPORTED_ENDPOINTS}中的接口
+     */
+    private Map<String, Integer> endpoints = new HashMap<>();
+    /**
+     * 重新编码为jpeg时的压缩质量，0到1之间
+     */
+    private float quality = 0.85f;
+    /**
+     * 处理图片的线程数，0表示与cpu核数相同
+     */
+    private int threads = 0;
+
+    public Map<String, Integer> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(Map<String, Integer> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    public float getQuality() {
+        return quality;
+    }
+
+    public void setQuality(float quality) {
+        this.quality = quality;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+}
@@ -0,0 +1,34 @@
+package neuhub.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 图片审核去重配置，对应配置文件中的 neuhub.moderation
+ */
+@ConfigurationProperties(prefix = "neuhub.moderation")
+public class NeuhubModerationProperties {
+    /**
+     * 保存审核结果的图片数上限，超过时淘汰最早的结果
+     */
+    private int capacity = 100000;
+    /**
+     * 图片哈希的汉明距离不超过该值时认为是同一张图片，0到15，越大误判越多、查找越慢
+     */
+    private int maxDistance = 5;
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    public void setMaxDistance(int maxDistance) {
+        this.maxDistance = maxDistance;
+    }
+}
@@ -0,0 +1,85 @@
+package neuhub.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 客户端限流配置，对应配置文件中的 neuhub.rate-limit，时间单位均为毫秒
+ */
+@ConfigurationProperties(prefix = "neuhub.rate-limit")
+public class NeuhubRateLimitProperties {
+    /**
+     * 每个接口每秒允许的请求数，0表示不限制
+     */
+    private double permitsPerSecond = 0;
+    /**
+     * 单独配置的接口，key为{@link neuhub.client.NeuhubEndpoint}的名称，如 HUMAN_DETECT，value为每秒允许的请求数
+     */
+    private Map<String, Double> endpoints = new HashMap<>();
+    /**
+     * 请求需要等待的时间超过该值时直接拒绝，不再等待
+     */
+    private long maxWait = 1000;
+    /**
+     * 响应中的剩余调用次数低于该值时，按比例降低请求速率
+     */
+    private long lowRemainTimes = 100;
+    /**
+     * 剩余调用次数用完后，暂停该接口的时间
+     */
+    private long exhaustedBackoff = 60000;
+    /**
+     * 网关返回429且没有Retry-After头时，暂停该接口的时间
+     */
+    private long throttledBackoff = 1000;
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public void setPermitsPerSecond(double permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    public Map<String, Double> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(Map<String, Double> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    public long getMaxWait() {
+        return maxWait;
+    }
+
+    public void setMaxWait(long maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    public long getLowRemainTimes() {
+        return lowRemainTimes;
+    }
+
+    public void setLowRemainTimes(long lowRemainTimes) {
+        this.lowRemainTimes = lowRemainTimes;
+    }
+
+    public long getExhaustedBackoff() {
+        return exhaustedBackoff;
+    }
+
+    public void setExhaustedBackoff(long exhaustedBackoff) {
+        this.exhaustedBackoff = exhaustedBackoff;
+    }
+
+    public long getThrottledBackoff() {
+        return throttledBackoff;
+    }
+
+    public void setThrottledBackoff(long throttledBackoff) {
+        this.throttledBackoff = throttledBackoff;
+    }
+}
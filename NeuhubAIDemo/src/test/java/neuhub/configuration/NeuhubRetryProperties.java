@@ -0,0 +1,121 @@
+package neuhub.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 重试和熔断配置，对应配置文件中的 neuhub.retry，时间单位均为毫秒
+ */
+@ConfigurationProperties(prefix = "neuhub.retry")
+public class NeuhubRetryProperties {
+    /**
+     * 每次调用最多尝试的次数，包含第一次，1表示不重试
+     */
+    private int maxAttempts = 3;
+    /**
+     * 单独配置的接口，key为{@link neuhub.client.NeuhubEndpoint}的名称，如 FACE_SEARCH，value为最多尝试的次数
+     */
+    private Map<String, Integer> endpoints = new HashMap<>();
+    /**
+     * 第一次重试前退避时间的上限，之后每次翻倍，实际等待时间在0到上限之间随机
+     */
+    private long initialBackoff = 100;
+    /**
+     * 退避时间上限的最大值
+     */
+    private long maxBackoff = 2000;
+    /**
+     * 每个请求积累的重试额度，重试次数不会超过请求总数的该比例
+     */
+    private double budgetRatio = 0.2;
+    /**
+     * 熔断统计的窗口，最近多少次调用
+     */
+    private int windowSize = 50;
+    /**
+     * 窗口内调用次数达到该值后才计算错误率
+     */
+    private int minimumCalls = 10;
+    /**
+     * 网关错误的比例达到该值时熔断该接口
+     */
+    private double failureRateThreshold = 0.5;
+    /**
+     * 熔断的时间，之后放行一个试探请求，成功则恢复
+     */
+    private long openTime = 30000;
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public Map<String, Integer> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(Map<String, Integer> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    public long getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public void setInitialBackoff(long initialBackoff) {
+        this.initialBackoff = initialBackoff;
+    }
+
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(long maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+
+    public void setBudgetRatio(double budgetRatio) {
+        this.budgetRatio = budgetRatio;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public void setWindowSize(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public void setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public void setFailureRateThreshold(double failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    public long getOpenTime() {
+        return openTime;
+    }
+
+    public void setOpenTime(long openTime) {
+        this.openTime = openTime;
+    }
+}
@@ -0,0 +1,75 @@
+package neuhub.configuration;
+
+import neuhub.metrics.NeuhubMetrics;
+import neuhub.routing.NeuhubRegion;
+import neuhub.routing.RegionRouter;
+import neuhub.token.AccessTokenManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.security.oauth2.client.token.grant.client.ClientCredentialsAccessTokenProvider;
+import org.springframework.security.oauth2.client.token.grant.client.ClientCredentialsResourceDetails;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 多地域路由的配置类，这个类生成以下bean
+ * <ul>
+ * <li>1个{@link RegionRouter}，没有配置 neuhub.routing.regions 时只包含gateway.url对应的地域</li>
+ * <li>每个地域使用自己的{@link AccessTokenManager}，没有配置token地址或与当前地域相同的直接使用已有的token管理器</li>
+ * </ul>
+ * 路由的参数见{@link NeuhubRoutingProperties}
+ */
+@Configuration
+@EnableConfigurationProperties(NeuhubRoutingProperties.class)
+public class NeuhubRoutingConfiguration {
+
+    /**
+     * 调用的api网关地址
+     */
+    @Value("${gateway.url}")
+    private String gatewayUrl;
+
+    /**
+     * 生成地域路由
+     * @param properties - 路由配置
+     * @param resourceDetails - 当前地域的oauth2 客户端详情
+     * @param accessTokenManager - 当前地域的token管理器
+     * @param requestFactory - 基于连接池的请求工厂
+     * @param tokenProperties - token刷新配置
+     * @param metrics - 客户端指标
+     * @return - 地域路由
+     */
+    @Bean(initMethod = "start")
+    public RegionRouter regionRouter(NeuhubRoutingProperties properties, ClientCredentialsResourceDetails resourceDetails,
+                                     AccessTokenManager accessTokenManager, ClientHttpRequestFactory requestFactory,
+                                     NeuhubTokenProperties tokenProperties, NeuhubMetrics metrics) {
+        List<NeuhubRegion> regions = new ArrayList<>();
+        if (properties.getRegions().isEmpty()) {
+            regions.add(new NeuhubRegion(accessTokenManager.getName(), gatewayUrl, accessTokenManager, properties));
+        }
+        for (NeuhubRoutingProperties.Region region : properties.getRegions()) {
+            AccessTokenManager regionTokenManager = accessTokenManager;
+            if (StringUtils.hasText(region.getAccessTokenUri()) && !region.getAccessTokenUri().equals(resourceDetails.getAccessTokenUri())) {
+                ClientCredentialsResourceDetails regionDetails = new ClientCredentialsResourceDetails();
+                regionDetails.setId(region.getName());
+                regionDetails.setAccessTokenUri(region.getAccessTokenUri());
+                regionDetails.setClientId(StringUtils.hasText(region.getClientId()) ? region.getClientId() : resourceDetails.getClientId());
+                regionDetails.setClientSecret(StringUtils.hasText(region.getClientSecret())
+                        ? region.getClientSecret() : resourceDetails.getClientSecret());
+                regionDetails.setScope(resourceDetails.getScope());
+                regionDetails.setClientAuthenticationScheme(resourceDetails.getClientAuthenticationScheme());
+                ClientCredentialsAccessTokenProvider accessTokenProvider = new ClientCredentialsAccessTokenProvider();
+                accessTokenProvider.setRequestFactory(requestFactory);
+                regionTokenManager = new AccessTokenManager(region.getName(), regionDetails, accessTokenProvider, tokenProperties);
+                regionTokenManager.setMetrics(metrics);
+            }
+            regions.add(new NeuhubRegion(region.getName(), region.getGatewayUrl(), regionTokenManager, properties));
+        }
+        return new RegionRouter(regions, properties.getExploreRatio());
+    }
+}
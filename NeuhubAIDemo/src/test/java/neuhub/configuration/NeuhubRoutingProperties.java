@@ -0,0 +1,143 @@
+package neuhub.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 多地域路由配置，对应配置文件中的 neuhub.routing，时间单位均为毫秒
+ * <ul>
+ * <li>没有配置regions时只使用gateway.url对应的网关，与原来相同</li>
+ * <li>地域没有单独配置clientId、clientSecret时，使用 security.oauth2.client 中的值</li>
+ * </ul>
+ */
+@ConfigurationProperties(prefix = "neuhub.routing")
+public class NeuhubRoutingProperties {
+    /**
+     * 可以调用的地域
+     */
+    private List<Region> regions = new ArrayList<>();
+    /**
+     * 延迟和错误率的平滑系数，越大越看重最近的请求
+     */
+    private double ewmaAlpha = 0.2;
+    /**
+     * 连续失败达到该次数时暂时摘除该地域
+     */
+    private int failureThreshold = 3;
+    /**
+     * 错误率超过该值时暂时摘除该地域
+     */
+    private double errorRateThreshold = 0.5;
+    /**
+     * 摘除的时间，之后重新尝试该地域
+     */
+    private long ejectTime = 10000;
+    /**
+     * 发往非最优地域的请求比例，用于更新其他地域的延迟
+     */
+    private double exploreRatio = 0.05;
+
+    public List<Region> getRegions() {
+        return regions;
+    }
+
+    public void setRegions(List<Region> regions) {
+        this.regions = regions;
+    }
+
+    public double getEwmaAlpha() {
+        return ewmaAlpha;
+    }
+
+    public void setEwmaAlpha(double ewmaAlpha) {
+        this.ewmaAlpha = ewmaAlpha;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public double getErrorRateThreshold() {
+        return errorRateThreshold;
+    }
+
+    public void setErrorRateThreshold(double errorRateThreshold) {
+        this.errorRateThreshold = errorRateThreshold;
+    }
+
+    public long getEjectTime() {
+        return ejectTime;
+    }
+
+    public void setEjectTime(long ejectTime) {
+        this.ejectTime = ejectTime;
+    }
+
+    public double getExploreRatio() {
+        return exploreRatio;
+    }
+
+    public void setExploreRatio(double exploreRatio) {
+        this.exploreRatio = exploreRatio;
+    }
+
+    /**
+     * 一个地域的网关和token地址，与application-&lt;地域&gt;.yml中的配置相同
+     */
+    public static class Region {
+        /**
+         * 地域名称，如 jinan
+         */
+        private String name;
+        private String gatewayUrl;
+        private String accessTokenUri;
+        private String clientId;
+        private String clientSecret;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getGatewayUrl() {
+            return gatewayUrl;
+        }
+
+        public void setGatewayUrl(String gatewayUrl) {
+            this.gatewayUrl = gatewayUrl;
+        }
+
+        public String getAccessTokenUri() {
+            return accessTokenUri;
+        }
+
+        public void setAccessTokenUri(String accessTokenUri) {
+            this.accessTokenUri = accessTokenUri;
+        }
+
+        public String getClientId() {
+            return clientId;
+        }
+
+        public void setClientId(String clientId) {
+            this.clientId = clientId;
+        }
+
+        public String getClientSecret() {
+            return clientSecret;
+        }
+
+        public void setClientSecret(String clientSecret) {
+            this.clientSecret = clientSecret;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package neuhub.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 相似度矩阵配置，对应配置文件中的 neuhub.similarity
+ */
+@ConfigurationProperties(prefix = "neuhub.similarity")
+public class NeuhubSimilarityProperties {
+    /**
+     * 同时调用相似度接口的文本对数上限
+     */
+    private int concurrency = 16;
+    /**
+     * MinHash估计的Jaccard相似度低于该值的文本对不调用接口，0表示不做预过滤
+     */
+    private double minJaccard = 0.2;
+    /**
+     * 计算Jaccard相似度时字符片段的长度
+     */
+    private int shingleSize = 2;
+    /**
+     * MinHash的哈希个数
+     */
+    private int hashes = 64;
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public double getMinJaccard() {
+        return minJaccard;
+    }
+
+    public void setMinJaccard(double minJaccard) {
+        this.minJaccard = minJaccard;
+    }
+
+    public int getShingleSize() {
+        return shingleSize;
+    }
+
+    public void setShingleSize(int shingleSize) {
+        this.shingleSize = shingleSize;
+    }
+
+    public int getHashes() {
+        return hashes;
+    }
+
+    public void setHashes(int hashes) {
+        this.hashes = hashes;
+    }
+}
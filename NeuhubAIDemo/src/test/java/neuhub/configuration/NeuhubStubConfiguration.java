@@ -0,0 +1,54 @@
+package neuhub.configuration;
+
+import neuhub.stub.StubGateway;
+import neuhub.token.AccessTokenManager;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 本地模拟网关的配置类，只在启用stub profile时生效，这个类生成以下bean
+ * <ul>
+ * <li>1个{@link StubGateway}，在本机模拟token服务和neuhub网关，参数见{@link NeuhubStubProperties}</li>
+ * <li>{@link AccessTokenManager}创建后立即获取token，所以让它依赖模拟网关，保证模拟网关先启动</li>
+ * </ul>
+ * 网关地址和token地址见application-stub.yml
+ */
+@Configuration
+@Profile("stub")
+@EnableConfigurationProperties(NeuhubStubProperties.class)
+public class NeuhubStubConfiguration {
+
+    private static final String STUB_GATEWAY = "stubGateway";
+
+    @Bean(name = STUB_GATEWAY, initMethod = "start", destroyMethod = "close")
+    public StubGateway stubGateway(NeuhubStubProperties properties) {
+        return new StubGateway(properties);
+    }
+
+    /**
+     * 给所有token管理器加上对模拟网关的依赖
+     * @return - bean定义的后处理器
+     */
+    @Bean
+    public static BeanFactoryPostProcessor stubGatewayDependency() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanNamesForType(AccessTokenManager.class, true, false)) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                List<String> dependsOn = new ArrayList<>();
+                if (definition.getDependsOn() != null) {
+                    dependsOn.addAll(Arrays.asList(definition.getDependsOn()));
+                }
+                dependsOn.add(STUB_GATEWAY);
+                definition.setDependsOn(dependsOn.toArray(new String[0]));
+            }
+        };
+    }
+}
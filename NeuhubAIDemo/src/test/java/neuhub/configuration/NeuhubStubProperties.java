@@ -0,0 +1,146 @@
+package neuhub.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 本地模拟网关配置，对应配置文件中的 neuhub.stub，时间单位均为毫秒
+ * <ul>
+ * <li>只在启用stub profile时启动，见application-stub.yml</li>
+ * <li>延迟按对数正态分布生成，由中位数和p99确定，p99不大于中位数时为固定延迟</li>
+ * </ul>
+ */
+@ConfigurationProperties(prefix = "neuhub.stub")
+public class NeuhubStubProperties {
+    /**
+     * 监听的端口，只监听127.0.0.1，0表示随机端口
+     */
+    private int port = 18080;
+    /**
+     * 读取请求的线程数，等待延迟不占用这些线程，0表示与cpu核数相同
+     */
+    private int threads = 0;
+    /**
+     * 接口延迟的中位数
+     */
+    private long latencyMedian = 50;
+    /**
+     * 接口延迟的p99
+     */
+    private long latencyP99 = 300;
+    /**
+     * 返回503的请求比例
+     */
+    private double errorRate = 0;
+    /**
+     * 发放的token的有效期，单位为秒
+     */
+    private int tokenExpiresIn = 7200;
+    /**
+     * 语音合成接口返回的音频字节数
+     */
+    private int ttsAudioBytes = 48000;
+    /**
+     * 单独配置的接口，key为{@link neuhub.client.NeuhubEndpoint}的名称，如 FACE_SEARCH
+     */
+    private Map<String, Endpoint> endpoints = new HashMap<>();
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public long getLatencyMedian() {
+        return latencyMedian;
+    }
+
+    public void setLatencyMedian(long latencyMedian) {
+        this.latencyMedian = latencyMedian;
+    }
+
+    public long getLatencyP99() {
+        return latencyP99;
+    }
+
+    public void setLatencyP99(long latencyP99) {
+        this.latencyP99 = latencyP99;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public int getTokenExpiresIn() {
+        return tokenExpiresIn;
+    }
+
+    public void setTokenExpiresIn(int tokenExpiresIn) {
+        this.tokenExpiresIn = tokenExpiresIn;
+    }
+
+    public int getTtsAudioBytes() {
+        return ttsAudioBytes;
+    }
+
+    public void setTtsAudioBytes(int ttsAudioBytes) {
+        this.ttsAudioBytes = ttsAudioBytes;
+    }
+
+    public Map<String, Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(Map<String, Endpoint> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    /**
+     * 一个接口的延迟和错误率，小于0的项使用全局配置
+     */
+    public static class Endpoint {
+        private long latencyMedian = -1;
+        private long latencyP99 = -1;
+        private double errorRate = -1;
+
+        public long getLatencyMedian() {
+            return latencyMedian;
+        }
+
+        public void setLatencyMedian(long latencyMedian) {
+            this.latencyMedian = latencyMedian;
+        }
+
+        public long getLatencyP99() {
+            return latencyP99;
+        }
+
+        public void setLatencyP99(long latencyP99) {
+            this.latencyP99 = latencyP99;
+        }
+
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        public void setErrorRate(double errorRate) {
+            this.errorRate = errorRate;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package neuhub.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * access token的刷新配置，对应配置文件中的 neuhub.token，时间单位均为秒
+ */
+@ConfigurationProperties(prefix = "neuhub.token")
+public class NeuhubTokenProperties {
+    /**
+     * 在token过期前多久开始后台刷新，token有效期较短时最多提前有效期的一半
+     */
+    private int refreshAhead = 300;
+    /**
+     * 刷新失败后首次重试的间隔，之后每次翻倍
+     */
+    private int retryInterval = 5;
+    /**
+     * 刷新失败后重试间隔的上限
+     */
+    private int maxRetryInterval = 300;
+
+    public int getRefreshAhead() {
+        return refreshAhead;
+    }
+
+    public void setRefreshAhead(int refreshAhead) {
+        this.refreshAhead = refreshAhead;
+    }
+
+    public int getRetryInterval() {
+        return retryInterval;
+    }
+
+    public void setRetryInterval(int retryInterval) {
+        this.retryInterval = retryInterval;
+    }
+
+    public int getMaxRetryInterval() {
+        return maxRetryInterval;
+    }
+
+    public void setMaxRetryInterval(int maxRetryInterval) {
+        this.maxRetryInterval = maxRetryInterval;
+    }
+}
@@ -0,0 +1,34 @@
+package neuhub.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 长文本语音合成配置，对应配置文件中的 neuhub.tts
+ */
+@ConfigurationProperties(prefix = "neuhub.tts")
+public class NeuhubTtsProperties {
+    /**
+     * 每个分段的字符数上限，超过时在句子或短句边界切分
+     */
+    private int maxSegmentChars = 300;
+    /**
+     * 同时合成的分段数上限，也是内存中最多缓存的分段音频数
+     */
+    private int concurrency = 4;
+
+    public int getMaxSegmentChars() {
+        return maxSegmentChars;
+    }
+
+    public void setMaxSegmentChars(int maxSegmentChars) {
+        this.maxSegmentChars = maxSegmentChars;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+}
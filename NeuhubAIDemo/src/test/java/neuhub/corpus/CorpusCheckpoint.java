@@ -0,0 +1,141 @@
+package neuhub.corpus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 语料处理的检查点，记录已经写出的记录在输入和输出文件中的位置，保存为json
+ * <ul>
+ * <li>先写临时文件并刷到磁盘，再原子地替换，最后刷新所在目录，进程退出或断电时不会留下空的或不完整的检查点</li>
+ * <li>检查点只在输出已经刷到磁盘之后保存，检查点中的位置之前的输出一定完整</li>
+ * </ul>
+ */
+public class CorpusCheckpoint {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * 输入文件的绝对路径，恢复时用于确认是同一个输入
+     */
+    private String input;
+    /**
+     * 下一条未处理记录在输入文件中的字节偏移
+     */
+    private long inputOffset;
+    /**
+     * 已写出结果在输出文件中的字节数
+     */
+    private long outputOffset;
+    /**
+     * 已写出的记录数
+     */
+    private long records;
+    /**
+     * 已写出的记录中有接口调用失败或无法解析的记录数
+     */
+    private long failures;
+
+    public CorpusCheckpoint() {
+    }
+
+    public CorpusCheckpoint(String input) {
+        this.input = input;
+    }
+
+    /**
+     * @param file - 检查点文件
+     * @return - 检查点，文件不存在时返回null
+     * @throws IOException - 读取或解析失败
+     */
+    public static CorpusCheckpoint load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        return OBJECT_MAPPER.readValue(file.toFile(), CorpusCheckpoint.class);
+    }
+
+    /**
+     * @param file - 检查点文件
+     * @throws IOException - 写入失败
+     */
+    public void save(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        ByteBuffer content = ByteBuffer.wrap(OBJECT_MAPPER.writeValueAsBytes(this));
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            // 重命名可能先于文件内容落盘，内容必须在替换之前刷到磁盘
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(file.toAbsolutePath().getParent());
+    }
+
+    /**
+     * 刷新目录，让重命名本身落盘；有的系统不能打开目录，此时只依赖文件系统自己的刷新
+     */
+    private static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // 不支持刷新目录
+        }
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public void setInput(String input) {
+        this.input = input;
+    }
+
+    public long getInputOffset() {
+        return inputOffset;
+    }
+
+    public void setInputOffset(long inputOffset) {
+        this.inputOffset = inputOffset;
+    }
+
+    public long getOutputOffset() {
+        return outputOffset;
+    }
+
+    public void setOutputOffset(long outputOffset) {
+        this.outputOffset = outputOffset;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public void setRecords(long records) {
+        this.records = records;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public void setFailures(long failures) {
+        this.failures = failures;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("已处理%d条记录，失败%d条，输入偏移%d，输出偏移%d", records, failures, inputOffset, outputOffset);
+    }
+}
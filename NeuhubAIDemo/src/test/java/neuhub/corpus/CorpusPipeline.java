@@ -0,0 +1,278 @@
+package neuhub.corpus;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import neuhub.client.NeuhubAsyncClient;
+import neuhub.client.NeuhubEndpoint;
+import neuhub.client.NeuhubFailures;
+import neuhub.configuration.NeuhubCorpusProperties;
+import neuhub.response.NeuhubResponse;
+import neuhub.response.NeuhubResponseDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientException;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 对大语料文件逐条调用文本分析接口，结果按输入顺序写入jsonl文件，可以在中断后从检查点继续
+ * <ul>
+ * <li>输入边读边处理，同时处理的记录不超过concurrency条，内存占用与文件大小无关</li>
+ * <li>每条记录对配置的每个接口各调用一次，输出一行 {"id":..,"results":{接口:result},"errors":{接口:原因}}</li>
+ * <li>结果按输入顺序写出，最早的记录完成后才写出并读入下一条，检查点中的输入偏移之前的记录都已写出</li>
+ * <li>每写出checkpointInterval条或距上次超过checkpointPeriod毫秒，把输出刷到磁盘后保存检查点；中断后重新运行时截掉检查点之后的输出，
+ * 从检查点的输入偏移继续，重复调用的记录不超过一个检查点间隔加上concurrency条</li>
+ * <li>单条记录的接口返回错误、无法解析的记录写入errors，不中断处理；配额用尽、熔断或连接不上网关时请求没有发出，
+ * 继续处理只会得到一串失败，保存检查点后抛出异常，之后可以直接重新运行</li>
+ * </ul>
+ * 参数见{@link NeuhubCorpusProperties}
+ */
+public class CorpusPipeline {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private Logger logger = LoggerFactory.getLogger(CorpusPipeline.class);
+
+    private final NeuhubAsyncClient client;
+    private final NeuhubCorpusProperties properties;
+    private final List<NeuhubEndpoint> endpoints = new ArrayList<>();
+
+    /**
+     * @throws IllegalArgumentException - 配置了不支持的接口
+     */
+    public CorpusPipeline(NeuhubAsyncClient client, NeuhubCorpusProperties properties) {
+        this.client = client;
+        this.properties = properties;
+        for (String name : properties.getEndpoints()) {
+            NeuhubEndpoint endpoint = NeuhubEndpoint.valueOf(name.trim().toUpperCase(Locale.ROOT));
+            switch (endpoint) {
+                case SENTIMENT:
+                case LEXER:
+                case COMMENT_TAG:
+                case TEXT_CLASSIFICATION:
+                    endpoints.add(endpoint);
+                    break;
+                default:
+                    throw new IllegalArgumentException("批量文本分析不支持接口: " + endpoint);
+            }
+        }
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("没有配置要调用的接口");
+        }
+    }
+
+    /**
+     * 处理语料文件，阻塞到全部处理完；检查点保存在输出文件旁边的 输出文件名.checkpoint 中，存在时从检查点继续
+     * @param input - 语料文件
+     * @param output - 结果文件
+     * @return - 处理完后的检查点
+     * @throws IOException - 读写文件失败
+     * @throws IllegalStateException - 检查点与输入或输出文件不一致
+     * @throws RestClientException - 请求无法发出，处理中止，进度已保存到检查点
+     */
+    public CorpusCheckpoint run(Path input, Path output) throws IOException, RestClientException {
+        Path checkpointFile = output.resolveSibling(output.getFileName() + ".checkpoint");
+        String inputPath = input.toAbsolutePath().normalize().toString();
+        CorpusCheckpoint checkpoint = CorpusCheckpoint.load(checkpointFile);
+        if (checkpoint == null) {
+            checkpoint = new CorpusCheckpoint(inputPath);
+        } else if (!inputPath.equals(checkpoint.getInput())) {
+            throw new IllegalStateException("检查点" + checkpointFile + "属于另一个输入文件: " + checkpoint.getInput());
+        } else {
+            logger.info("从检查点继续，{}", checkpoint);
+        }
+        CorpusReader.Format format = CorpusReader.Format.of(properties.getFormat(), input);
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             CorpusReader reader = new CorpusReader(input, format, properties.getIdField(), properties.getTextField(),
+                     checkpoint.getInputOffset())) {
+            if (channel.size() < checkpoint.getOutputOffset()) {
+                throw new IllegalStateException(String.format("输出文件%s只有%d字节，比检查点记录的%d字节短",
+                        output, channel.size(), checkpoint.getOutputOffset()));
+            }
+            // 上次保存检查点之后写出的结果会重新处理，先截掉
+            channel.truncate(checkpoint.getOutputOffset());
+            channel.position(checkpoint.getOutputOffset());
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+            process(reader, out, channel, checkpoint, checkpointFile);
+        }
+        logger.info("处理完成，{}", checkpoint);
+        return checkpoint;
+    }
+
+    private void process(CorpusReader reader, OutputStream out, FileChannel channel, CorpusCheckpoint checkpoint, Path checkpointFile)
+            throws IOException {
+        int concurrency = Math.max(1, properties.getConcurrency());
+        Deque<PendingRecord> window = new ArrayDeque<>(concurrency);
+        CorpusRecord record;
+        while (window.size() < concurrency && (record = reader.next()) != null) {
+            window.add(submit(record));
+        }
+        long unsaved = 0;
+        long lastSaved = System.currentTimeMillis();
+        boolean completed = false;
+        try {
+            while (!window.isEmpty()) {
+                PendingRecord head = window.peek();
+                ObjectNode line = head.join();
+                window.poll();
+                // 先读入下一条再写出，写出时请求不空闲
+                if ((record = reader.next()) != null) {
+                    window.add(submit(record));
+                }
+                byte[] bytes = (OBJECT_MAPPER.writeValueAsString(line) + "\n").getBytes(StandardCharsets.UTF_8);
+                out.write(bytes);
+                checkpoint.setOutputOffset(checkpoint.getOutputOffset() + bytes.length);
+                checkpoint.setInputOffset(head.record.getEndOffset());
+                checkpoint.setRecords(checkpoint.getRecords() + 1);
+                if (line.has("errors")) {
+                    checkpoint.setFailures(checkpoint.getFailures() + 1);
+                }
+                if (++unsaved >= properties.getCheckpointInterval()
+                        || System.currentTimeMillis() - lastSaved >= properties.getCheckpointPeriod()) {
+                    save(out, channel, checkpoint, checkpointFile);
+                    unsaved = 0;
+                    lastSaved = System.currentTimeMillis();
+                }
+            }
+            save(out, channel, checkpoint, checkpointFile);
+            completed = true;
+        } finally {
+            if (!completed) {
+                for (PendingRecord pending : window) {
+                    pending.cancel();
+                }
+                try {
+                    save(out, channel, checkpoint, checkpointFile);
+                    logger.warn("处理中止，{}", checkpoint);
+                } catch (IOException e) {
+                    // 输出没有刷到磁盘，保留上一个检查点
+                    logger.warn("处理中止，保存检查点失败: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 检查点中的位置之前的输出必须先落盘
+     */
+    private void save(OutputStream out, FileChannel channel, CorpusCheckpoint checkpoint, Path checkpointFile) throws IOException {
+        out.flush();
+        channel.force(false);
+        checkpoint.save(checkpointFile);
+    }
+
+    private PendingRecord submit(CorpusRecord record) {
+        Map<NeuhubEndpoint, CompletableFuture<ResponseEntity<String>>> calls = new LinkedHashMap<>();
+        if (record.getText() != null) {
+            for (NeuhubEndpoint endpoint : endpoints) {
+                calls.put(endpoint, call(endpoint, record.getText()));
+            }
+        }
+        return new PendingRecord(record, calls);
+    }
+
+    private CompletableFuture<ResponseEntity<String>> call(NeuhubEndpoint endpoint, String text) {
+        switch (endpoint) {
+            case SENTIMENT:
+                return client.sentiment(properties.getSentimentType(), text);
+            case LEXER:
+                return client.lexer(text, properties.getLexerType());
+            case COMMENT_TAG:
+                return client.comment(text);
+            default:
+                return client.textClassification(text);
+        }
+    }
+
+    /**
+     * 请求没有发出，继续处理后面的记录也会同样失败
+     */
+    private static boolean isAbort(Throwable cause) {
+        return NeuhubFailures.isRejected(cause) || NeuhubFailures.isNotSent(cause);
+    }
+
+    /**
+     * 正在处理的一条记录
+     */
+    private static class PendingRecord {
+
+        private final CorpusRecord record;
+        private final Map<NeuhubEndpoint, CompletableFuture<ResponseEntity<String>>> calls;
+
+        private PendingRecord(CorpusRecord record, Map<NeuhubEndpoint, CompletableFuture<ResponseEntity<String>>> calls) {
+            this.record = record;
+            this.calls = calls;
+        }
+
+        /**
+         * 等待所有接口返回，组装输出的一行
+         * @throws RestClientException - 请求没有发出，需要中止处理
+         */
+        ObjectNode join() {
+            ObjectNode line = OBJECT_MAPPER.createObjectNode();
+            line.put("id", record.getId());
+            ObjectNode results = line.putObject("results");
+            ObjectNode errors = OBJECT_MAPPER.createObjectNode();
+            if (record.getText() == null) {
+                errors.put("record", record.getError());
+            }
+            for (Map.Entry<NeuhubEndpoint, CompletableFuture<ResponseEntity<String>>> entry : calls.entrySet()) {
+                String name = entry.getKey().name();
+                try {
+                    NeuhubResponse<JsonNode> response = decode(entry.getValue().join().getBody());
+                    if (response.isSuccess()) {
+                        results.set(name, response.getResult());
+                    } else {
+                        errors.put(name, response.getCode() + " " + response.getMsg());
+                    }
+                } catch (CompletionException e) {
+                    Throwable cause = NeuhubFailures.unwrap(e);
+                    if (isAbort(cause)) {
+                        throw cause instanceof RestClientException ? (RestClientException) cause
+                                : new RestClientException("记录" + record.getId() + "的请求无法发出", cause);
+                    }
+                    errors.put(name, cause.toString());
+                } catch (IOException e) {
+                    errors.put(name, "无法解析的响应: " + e.getMessage());
+                }
+            }
+            if (errors.size() > 0) {
+                line.set("errors", errors);
+            }
+            return line;
+        }
+
+        void cancel() {
+            for (CompletableFuture<ResponseEntity<String>> future : calls.values()) {
+                future.cancel(true);
+            }
+        }
+
+        private static NeuhubResponse<JsonNode> decode(String body) throws IOException {
+            if (body == null) {
+                throw new IOException("响应体为空");
+            }
+            return NeuhubResponseDecoder.decode(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), JsonNode.class);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package neuhub.corpus;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 逐条读取语料文件，不把文件读入内存，记录每条记录的字节偏移，可以从任意记录的开头继续读取
+ * <ul>
+ * <li>jsonl: 每行一个json对象，文本和id从指定的字段读取</li>
+ * <li>csv: 第一行为表头，文本和id从指定的列读取，带引号的值中可以有逗号、换行和两个连续的引号</li>
+ * <li>文件使用UTF-8编码，空行跳过；无法解析的记录不中断读取，作为带error的记录返回</li>
+ * </ul>
+ */
+public class CorpusReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    public enum Format {
+        JSONL, CSV;
+
+        /**
+         * @param format - 配置的格式，为空时按文件扩展名判断，.csv为csv，其余为jsonl
+         * @param file - 语料文件
+         * @return - 格式
+         */
+        public static Format of(String format, Path file) {
+            if (format != null && !format.isEmpty()) {
+                return valueOf(format.toUpperCase(Locale.ROOT));
+            }
+            return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv") ? CSV : JSONL;
+        }
+    }
+
+    private final Format format;
+    private final String idField;
+    private final String textField;
+    private final InputStream in;
+    private byte[] line = new byte[1024];
+    private int lineLength;
+    private long position;
+    private int idColumn = -1;
+    private int textColumn = -1;
+
+    /**
+     * @param file - 语料文件
+     * @param format - 格式
+     * @param idField - id所在的字段或列
+     * @param textField - 文本所在的字段或列
+     * @param startOffset - 开始读取的字节偏移，必须是某条记录的开头，一般来自检查点
+     * @throws IOException - 打开文件失败
+     * @throws IllegalArgumentException - csv的表头中没有文本列
+     */
+    public CorpusReader(Path file, Format format, String idField, String textField, long startOffset) throws IOException {
+        this.format = format;
+        this.idField = idField;
+        this.textField = textField;
+        if (format == Format.CSV) {
+            readHeader(file);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        position = Math.max(startOffset, position);
+        channel.position(position);
+        this.in = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE);
+    }
+
+    /**
+     * @return - 下一条记录，没有更多记录时返回null
+     * @throws IOException - 读取失败
+     */
+    public CorpusRecord next() throws IOException {
+        while (true) {
+            long start = position;
+            String text = readLine();
+            if (text == null) {
+                return null;
+            }
+            if (text.trim().isEmpty()) {
+                continue;
+            }
+            return format == Format.JSONL ? parseJson(text, start) : parseCsv(text, start);
+        }
+    }
+
+    /**
+     * @return - 下一次读取开始的字节偏移
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    private void readHeader(Path file) throws IOException {
+        try (InputStream header = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+            String text = readLine(header);
+            List<String> columns = text == null ? new ArrayList<>() : parseCsvLine(text);
+            if (columns == null) {
+                throw new IllegalArgumentException("csv表头中的引号未闭合");
+            }
+            Map<String, Integer> indexes = new HashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                indexes.putIfAbsent(columns.get(i).trim(), i);
+            }
+            if (!indexes.containsKey(textField)) {
+                throw new IllegalArgumentException("csv表头中没有文本列: " + textField + "，表头为" + columns);
+            }
+            textColumn = indexes.get(textField);
+            idColumn = indexes.getOrDefault(idField, -1);
+        }
+    }
+
+    private CorpusRecord parseJson(String text, long start) {
+        JsonNode node;
+        try {
+            node = OBJECT_MAPPER.readTree(text);
+        } catch (JsonProcessingException e) {
+            return new CorpusRecord(Long.toString(start), null, "无法解析的json: " + e.getOriginalMessage(), start, position);
+        } catch (IOException e) {
+            return new CorpusRecord(Long.toString(start), null, "无法解析的json: " + e.getMessage(), start, position);
+        }
+        JsonNode id = node.get(idField);
+        String recordId = id == null || id.isNull() ? Long.toString(start) : id.asText();
+        JsonNode value = node.get(textField);
+        if (value == null || !value.isTextual()) {
+            return new CorpusRecord(recordId, null, "没有文本字段: " + textField, start, position);
+        }
+        return new CorpusRecord(recordId, value.asText(), null, start, position);
+    }
+
+    private CorpusRecord parseCsv(String text, long start) throws IOException {
+        List<String> fields;
+        while ((fields = parseCsvLine(text)) == null) {
+            // 带引号的值中有换行，继续读下一行
+            String next = readLine();
+            if (next == null) {
+                return new CorpusRecord(Long.toString(start), null, "引号未闭合", start, position);
+            }
+            text = text + "\n" + next;
+        }
+        String recordId = idColumn >= 0 && idColumn < fields.size() ? fields.get(idColumn) : Long.toString(start);
+        if (textColumn >= fields.size()) {
+            return new CorpusRecord(recordId, null, "缺少文本列: " + textField, start, position);
+        }
+        return new CorpusRecord(recordId, fields.get(textColumn), null, start, position);
+    }
+
+    /**
+     * @return - 各列的值，引号未闭合时返回null
+     */
+    static List<String> parseCsvLine(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private String readLine() throws IOException {
+        return readLine(in);
+    }
+
+    /**
+     * 读取一行，去掉行尾的\r\n和文件开头的BOM，同时前移position
+     * @return - 一行的内容，已经到文件末尾时返回null
+     */
+    private String readLine(InputStream input) throws IOException {
+        lineLength = 0;
+        int b;
+        long read = 0;
+        while ((b = input.read()) != -1) {
+            read++;
+            if (b == '\n') {
+                break;
+            }
+            if (lineLength == line.length) {
+                line = Arrays.copyOf(line, line.length * 2);
+            }
+            line[lineLength++] = (byte) b;
+        }
+        if (read == 0) {
+            return null;
+        }
+        int offset = 0;
+        if (position == 0 && lineLength >= 3 && (line[0] & 0xFF) == 0xEF && (line[1] & 0xFF) == 0xBB && (line[2] & 0xFF) == 0xBF) {
+            offset = 3;
+        }
+        position += read;
+        int length = lineLength > offset && line[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+        return new String(line, offset, length - offset, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
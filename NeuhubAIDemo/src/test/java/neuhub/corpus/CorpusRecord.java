@@ -0,0 +1,47 @@
+package neuhub.corpus;
+
+/**
+ * 语料中的一条记录，text为null时error为无法解析的原因
+ */
+public class CorpusRecord {
+
+    private final String id;
+    private final String text;
+    private final String error;
+    private final long offset;
+    private final long endOffset;
+
+    CorpusRecord(String id, String text, String error, long offset, long endOffset) {
+        this.id = id;
+        this.text = text;
+        this.error = error;
+        this.offset = offset;
+        this.endOffset = endOffset;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return - 记录在文件中开始的字节偏移
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return - 下一条记录开始的字节偏移，保存到检查点中
+     */
+    public long getEndOffset() {
+        return endOffset;
+    }
+}
@@ -0,0 +1,150 @@
+package neuhub.execution;
+
+import neuhub.configuration.NeuhubExecutorProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 在其他线程中执行同步客户端的调用，调用代码仍然是普通的阻塞写法
+ * <ul>
+ * <li>virtual模式每次调用一个虚拟线程，等待响应时不占用平台线程，同时进行的调用可以到数万个；虚拟线程通过反射创建，代码仍按Java 8编译</li>
+ * <li>platform模式使用固定大小的线程池，同时进行的调用数不超过线程数</li>
+ * <li>同时进行的调用数不超过maxConcurrency，达到上限时submit阻塞，提交的速度自然放缓</li>
+ * </ul>
+ * 同时进行的调用数还受同步连接池的maxTotal、maxPerRoute限制，超过时在连接池中等待，
+ * 等待超过connectionRequestTimeout会失败，使用virtual模式时需要一起调大，见{@link neuhub.configuration.NeuhubHttpProperties}
+ */
+public class BlockingCallExecutor implements Closeable {
+
+    public static final String PLATFORM = "platform";
+    public static final String VIRTUAL = "virtual";
+
+    private Logger logger = LoggerFactory.getLogger(BlockingCallExecutor.class);
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final boolean virtual;
+
+    public BlockingCallExecutor(NeuhubExecutorProperties properties) {
+        if (properties.getMaxConcurrency() < 1) {
+            throw new IllegalArgumentException("maxConcurrency必须大于0");
+        }
+        ExecutorService virtualExecutor = VIRTUAL.equalsIgnoreCase(properties.getMode()) ? newVirtualThreadExecutor() : null;
+        this.virtual = virtualExecutor != null;
+        this.executor = virtual ? virtualExecutor : Executors.newFixedThreadPool(properties.getPlatformThreads(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "neuhub-call-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.permits = new Semaphore(properties.getMaxConcurrency());
+        logger.info("同步调用使用{}线程，并发上限{}", virtual ? "虚拟" : "平台", properties.getMaxConcurrency());
+    }
+
+    /**
+     * @return - 是否使用虚拟线程
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * 提交一次调用，并发达到上限时阻塞到有调用结束
+     * @param call - 阻塞的调用，如 () -&gt; restTemplate.postForEntity(...)
+     * @return - 调用的结果，调用抛出的异常包装在CompletionException中
+     * @throws IllegalStateException - 等待时线程被中断
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> call) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待提交调用时线程被中断", e);
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        return future;
+    }
+
+    /**
+     * 对每个输入调用一次，阻塞到全部完成，结果与输入的顺序相同
+     * @param inputs - 输入
+     * @param call - 对单个输入的阻塞调用
+     * @return - 结果
+     * @throws CompletionException - 任一调用失败，其余调用仍会执行完
+     */
+    public <I, R> List<R> invokeAll(List<? extends I> inputs, Function<? super I, ? extends R> call) {
+        List<CompletableFuture<R>> futures = new ArrayList<>(inputs.size());
+        for (I input : inputs) {
+            futures.add(submit(() -> call.apply(input)));
+        }
+        List<R> results = new ArrayList<>(inputs.size());
+        for (CompletableFuture<R> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 相当于 Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("neuhub-vcall-", 1).factory())
+     * @return - 每个任务一个虚拟线程的执行器，JDK不支持虚拟线程时返回null
+     */
+    private ExecutorService newVirtualThreadExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "neuhub-vcall-", 1L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newExecutor.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            logger.warn("当前JDK {}不支持虚拟线程，使用平台线程", System.getProperty("java.version"));
+            return null;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package neuhub.face;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 批量创建人脸的日志，每创建成功一张人脸追加一行 groupId\touterId\tfaceId，重新运行时跳过日志中已有的outerId
+ * <ul>
+ * <li>只追加不修改，每行写入后立即交给操作系统，进程异常退出不会丢失已写入的行</li>
+ * <li>{@link #sync()}把日志刷到磁盘，机器掉电时最多丢失上次sync之后的行，这些人脸会重新创建</li>
+ * <li>打开时忽略最后一行不完整的内容，并从完整的行之后继续追加</li>
+ * </ul>
+ */
+public class EnrollmentJournal implements Closeable {
+
+    private final FileChannel channel;
+    private final Set<String> done = new HashSet<>();
+    private final String groupId;
+
+    /**
+     * @param file - 日志文件，不存在时创建
+     * @param groupId - 分组ID，只读取该分组的记录
+     * @throws IOException - 读取或打开失败
+     */
+    public EnrollmentJournal(Path file, String groupId) throws IOException {
+        this.groupId = groupId;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long complete = load();
+        channel.truncate(complete);
+        channel.position(complete);
+    }
+
+    /**
+     * @return - outerId已经在日志中
+     */
+    public boolean contains(String outerId) {
+        return done.contains(outerId);
+    }
+
+    /**
+     * @return - 日志中该分组已创建的人脸数
+     */
+    public int size() {
+        return done.size();
+    }
+
+    /**
+     * 记录创建成功的人脸
+     * @throws IOException - 写入失败
+     * @throws IllegalArgumentException - outerId为空或有制表符、换行
+     */
+    public void append(String outerId, String faceId) throws IOException {
+        if (!isValid(outerId)) {
+            throw new IllegalArgumentException("outerId不能为空，也不能有制表符或换行: " + outerId);
+        }
+        byte[] line = (groupId + "\t" + outerId + "\t" + (faceId == null ? "" : faceId) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        done.add(outerId);
+    }
+
+    /**
+     * @return - outerId能否写入日志，应在调用接口之前检查
+     */
+    static boolean isValid(String outerId) {
+        return outerId != null && !outerId.isEmpty() && outerId.indexOf('\t') < 0 && outerId.indexOf('\n') < 0
+                && outerId.indexOf('\r') < 0;
+    }
+
+    /**
+     * 把日志刷到磁盘
+     * @throws IOException - 刷新失败
+     */
+    public void sync() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * @return - 最后一个完整的行结束的位置
+     */
+    private long load() throws IOException {
+        long position = 0;
+        long complete = 0;
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        InputStream in = new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024);
+        int b;
+        while ((b = in.read()) != -1) {
+            position++;
+            if (b != '\n') {
+                line.write(b);
+                continue;
+            }
+            complete = position;
+            String[] fields = new String(line.toByteArray(), StandardCharsets.UTF_8).split("\t", -1);
+            if (fields.length == 3 && fields[0].equals(groupId)) {
+                done.add(fields[1]);
+            }
+            line.reset();
+        }
+        return complete;
+    }
+}
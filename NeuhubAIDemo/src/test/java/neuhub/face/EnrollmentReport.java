@@ -0,0 +1,85 @@
+package neuhub.face;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 批量创建人脸的结果
+ */
+public class EnrollmentReport {
+
+    private final int maxReportedFailures;
+    private final Map<String, String> failures = new LinkedHashMap<>();
+    private final long startMillis = System.currentTimeMillis();
+    private long endMillis;
+    private long skipped;
+    private long succeeded;
+    private long failed;
+
+    EnrollmentReport(int maxReportedFailures) {
+        this.maxReportedFailures = maxReportedFailures;
+    }
+
+    void skipped() {
+        skipped++;
+    }
+
+    void succeeded() {
+        succeeded++;
+    }
+
+    void failed(String outerId, String reason) {
+        failed++;
+        if (failures.size() < maxReportedFailures) {
+            failures.put(outerId, reason);
+        }
+    }
+
+    void finish() {
+        endMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * @return - 日志中已有、本次跳过的人脸数
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return - 前maxReportedFailures个失败的outerId和原因
+     */
+    public Map<String, String> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * @return - 耗时，未结束时为到现在的耗时
+     */
+    public long getElapsedMillis() {
+        return (endMillis == 0 ? System.currentTimeMillis() : endMillis) - startMillis;
+    }
+
+    /**
+     * @return - 每秒完成的调用数，包括失败的调用，不包括跳过的
+     */
+    public double getThroughput() {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0 : (succeeded + failed) * 1000.0 / elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("成功%d，失败%d，跳过%d，耗时%ds，%.1f次/秒",
+                succeeded, failed, skipped, getElapsedMillis() / 1000, getThroughput());
+    }
+}
@@ -0,0 +1,258 @@
+package neuhub.face;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import neuhub.bulk.BulkExecutor;
+import neuhub.bulk.BulkResult;
+import neuhub.client.NeuhubAsyncClient;
+import neuhub.client.NeuhubFailures;
+import neuhub.configuration.NeuhubEnrollmentProperties;
+import neuhub.response.FieldProjection;
+import neuhub.response.NeuhubResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * 批量创建人脸，可以中断后重新运行
+ * <ul>
+ * <li>输入为(outerId, 图片)，图片在需要时才读取，同时创建的人脸数不超过concurrency个</li>
+ * <li>创建成功的outerId追加到{@link EnrollmentJournal}，重新运行时跳过，同一次运行中重复的outerId也只创建一次</li>
+ * <li>单个人脸失败不影响其他人脸，失败的outerId不写入日志，重新运行时会再次创建</li>
+ * <li>outerId为空或有制表符、换行时无法写入日志，不发出请求，直接计为失败</li>
+ * <li>配额用尽、熔断或连接不上网关时不再发出新的请求，等已发出的请求全部返回并写入日志后，把日志刷到磁盘再抛出异常</li>
+ * <li>每隔progressInterval输出一次进度和速率</li>
+ * </ul>
+ * 参数见{@link NeuhubEnrollmentProperties}
+ */
+public class FaceEnrollment {
+
+    private static final FieldProjection RESULT = new FieldProjection("code", "msg", "result.status", "result.message", "result.faceId");
+
+    private Logger logger = LoggerFactory.getLogger(FaceEnrollment.class);
+
+    private final NeuhubAsyncClient client;
+    private final NeuhubEnrollmentProperties properties;
+    private final BulkExecutor bulkExecutor;
+
+    public FaceEnrollment(NeuhubAsyncClient client, NeuhubEnrollmentProperties properties) {
+        this.client = client;
+        this.properties = properties;
+        this.bulkExecutor = new BulkExecutor(properties.getConcurrency());
+    }
+
+    /**
+     * 把目录下的图片创建到分组中，outerId为去掉扩展名的文件名，不包含子目录
+     * @param groupId - 分组ID
+     * @param directory - 图片目录
+     * @param glob - 文件名匹配规则，如 *.jpg
+     * @param journal - 日志文件
+     * @return - 结果
+     * @throws IOException - 读写日志或打开目录失败
+     * @throws RestClientException - 请求无法发出，已创建的人脸已记录在日志中
+     */
+    public EnrollmentReport enroll(String groupId, Path directory, String glob, Path journal) throws IOException, RestClientException {
+        PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                entry -> Files.isRegularFile(entry) && matcher.matches(entry.getFileName()))) {
+            Iterator<Path> iterator = files.iterator();
+            return enroll(groupId, new Iterator<Item>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Item next() {
+                    Path file = iterator.next();
+                    String name = file.getFileName().toString();
+                    int dot = name.lastIndexOf('.');
+                    return new Item(dot > 0 ? name.substring(0, dot) : name, file);
+                }
+            }, journal);
+        }
+    }
+
+    /**
+     * 把图片创建到分组中，阻塞到全部完成
+     * @param groupId - 分组ID
+     * @param items - 要创建的人脸
+     * @param journal - 日志文件
+     * @return - 结果
+     * @throws IOException - 读写日志失败
+     * @throws RestClientException - 请求无法发出，已创建的人脸已记录在日志中
+     */
+    public EnrollmentReport enroll(String groupId, Iterator<Item> items, Path journal) throws IOException, RestClientException {
+        EnrollmentReport report = new EnrollmentReport(properties.getMaxReportedFailures());
+        try (EnrollmentJournal done = new EnrollmentJournal(journal, groupId)) {
+            logger.info("日志中分组{}已有{}张人脸", groupId, done.size());
+            PendingIterator pending = new PendingIterator(items, done, report);
+            Throwable abort = null;
+            try (Stream<BulkResult<Item, ResponseEntity<String>>> results = bulkExecutor.execute(pending,
+                    item -> client.faceCreate(groupId, item.getOuterId(), read(item.getImage())))) {
+                long lastSync = System.currentTimeMillis();
+                long lastProgress = lastSync;
+                Iterator<BulkResult<Item, ResponseEntity<String>>> iterator = results.iterator();
+                while (iterator.hasNext()) {
+                    BulkResult<Item, ResponseEntity<String>> result = iterator.next();
+                    String outerId = result.getInput().getOuterId();
+                    if (result.isSuccess()) {
+                        record(outerId, result.getResult(), done, report);
+                    } else {
+                        Throwable cause = result.getError();
+                        if (abort == null && (NeuhubFailures.isRejected(cause) || NeuhubFailures.isNotSent(cause))) {
+                            // 已发出的请求可能已经创建了人脸，等它们返回并写入日志后再停止
+                            abort = cause;
+                            pending.stop();
+                            logger.warn("请求无法发出，不再发出新的请求，等待已发出的请求返回，{}", report);
+                        }
+                        report.failed(outerId, cause.toString());
+                        logger.warn("{}创建失败: {}", outerId, cause.toString());
+                    }
+                    long now = System.currentTimeMillis();
+                    if (now - lastSync >= properties.getSyncInterval()) {
+                        done.sync();
+                        lastSync = now;
+                    }
+                    if (now - lastProgress >= properties.getProgressInterval()) {
+                        logger.info("进度: {}", report);
+                        lastProgress = now;
+                    }
+                }
+            }
+            if (abort != null) {
+                done.sync();
+                report.finish();
+                logger.warn("停止创建: {}", report);
+                throw abort instanceof RestClientException ? (RestClientException) abort
+                        : new RestClientException("创建人脸的请求无法发出", abort);
+            }
+        }
+        report.finish();
+        logger.info("创建完成: {}", report);
+        return report;
+    }
+
+    private void record(String outerId, ResponseEntity<String> response, EnrollmentJournal done, EnrollmentReport report)
+            throws IOException {
+        Map<String, JsonNode> fields;
+        try {
+            fields = RESULT.decode(new ByteArrayInputStream(String.valueOf(response.getBody()).getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            report.failed(outerId, "无法解析的响应: " + e.getMessage());
+            return;
+        }
+        JsonNode code = fields.get("code");
+        JsonNode status = fields.get("result.status");
+        if (code == null || !NeuhubResponse.SUCCESS_CODE.equals(code.asText())) {
+            report.failed(outerId, (code == null ? "" : code.asText()) + " " + text(fields.get("msg")));
+        } else if (status != null && status.asInt() != 0) {
+            report.failed(outerId, status.asText() + " " + text(fields.get("result.message")));
+        } else {
+            done.append(outerId, text(fields.get("result.faceId")));
+            report.succeeded();
+        }
+    }
+
+    private static String text(JsonNode node) {
+        return node == null ? "" : node.asText();
+    }
+
+    private static byte[] read(Path image) {
+        try {
+            return Files.readAllBytes(image);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 跳过日志中已有的和本次已经提交过的outerId，无法写入日志的outerId计为失败，停止后不再返回新的输入
+     */
+    private static class PendingIterator implements Iterator<Item> {
+
+        private final Iterator<Item> items;
+        private final EnrollmentJournal done;
+        private final EnrollmentReport report;
+        private final Set<String> submitted = new HashSet<>();
+        private Item next;
+        private boolean stopped;
+
+        private PendingIterator(Iterator<Item> items, EnrollmentJournal done, EnrollmentReport report) {
+            this.items = items;
+            this.done = done;
+            this.report = report;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!stopped && next == null && items.hasNext()) {
+                Item item = items.next();
+                if (!EnrollmentJournal.isValid(item.getOuterId())) {
+                    report.failed(String.valueOf(item.getOuterId()), "outerId为空或有制表符、换行，无法写入日志");
+                } else if (done.contains(item.getOuterId()) || !submitted.add(item.getOuterId())) {
+                    report.skipped();
+                } else {
+                    next = item;
+                }
+            }
+            return !stopped && next != null;
+        }
+
+        private void stop() {
+            stopped = true;
+            next = null;
+        }
+
+        @Override
+        public Item next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Item item = next;
+            next = null;
+            return item;
+        }
+    }
+
+    /**
+     * 要创建的一张人脸
+     */
+    public static class Item {
+
+        private final String outerId;
+        private final Path image;
+
+        /**
+         * @param outerId - 人脸图片的id值，由调用方生成
+         * @param image - 人脸图片
+         */
+        public Item(String outerId, Path image) {
+            this.outerId = outerId;
+            this.image = image;
+        }
+
+        public String getOuterId() {
+            return outerId;
+        }
+
+        public Path getImage() {
+            return image;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package neuhub.face;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import neuhub.cache.CachedResponse;
+import neuhub.client.NeuhubEndpoint;
+import neuhub.response.NeuhubResponse;
+import neuhub.response.NeuhubResponseDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 人脸分组和人脸的本地索引，判断分组和outerId是否存在时不需要调用网关
+ * <ul>
+ * <li>同步和异步客户端调用创建、删除分组和人脸的接口成功后，从请求参数和响应中更新索引</li>
+ * <li>{@link FaceIndexReconciler}定期分页查询分组列表，补上其他进程创建的分组，删掉已经不存在的分组</li>
+ * <li>网关没有查询分组内人脸的接口，分组内的outerId只来自本进程的调用；本进程创建的分组，或人脸数与网关一致的分组，
+ * 才能确定某个outerId不存在</li>
+ * <li>第一次同步分组列表完成之前，不知道网关上已有哪些分组，本地没有的分组和其中的人脸都返回{@link FaceMembership#UNKNOWN}</li>
+ * </ul>
+ */
+public class FaceIndex {
+
+    private static final Set<NeuhubEndpoint> TRACKED = Collections.unmodifiableSet(EnumSet.of(NeuhubEndpoint.FACE_GROUP_CREATE,
+            NeuhubEndpoint.FACE_GROUP_DELETE, NeuhubEndpoint.FACE_CREATE, NeuhubEndpoint.FACE_DELETE));
+
+    private Logger logger = LoggerFactory.getLogger(FaceIndex.class);
+
+    private final Map<String, Group> groups = new ConcurrentHashMap<>();
+    private volatile boolean reconciled;
+
+    /**
+     * @return - 是否需要把该接口的响应交给{@link #observe(NeuhubEndpoint, URI, ClientHttpResponse)}
+     */
+    public boolean isTracked(NeuhubEndpoint endpoint) {
+        return TRACKED.contains(endpoint);
+    }
+
+    /**
+     * @return - 本地没有该分组时，同步过分组列表才返回{@link FaceMembership#ABSENT}，否则返回{@link FaceMembership#UNKNOWN}
+     */
+    public FaceMembership containsGroup(String groupId) {
+        if (groups.containsKey(groupId)) {
+            return FaceMembership.PRESENT;
+        }
+        return reconciled ? FaceMembership.ABSENT : FaceMembership.UNKNOWN;
+    }
+
+    /**
+     * @return - 是否已经从网关同步过一次分组列表
+     */
+    public boolean isReconciled() {
+        return reconciled;
+    }
+
+    /**
+     * @return - 名称对应的分组ID，没有时返回null；没有同步过分组列表时，null不代表网关上没有该分组
+     */
+    public String findGroupId(String groupName) {
+        for (Map.Entry<String, Group> entry : groups.entrySet()) {
+            if (groupName.equals(entry.getValue().name)) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    public FaceMembership containsFace(String groupId, String outerId) {
+        Group group = groups.get(groupId);
+        if (group == null) {
+            return reconciled ? FaceMembership.ABSENT : FaceMembership.UNKNOWN;
+        }
+        if (group.outerIds.contains(outerId)) {
+            return FaceMembership.PRESENT;
+        }
+        return group.complete ? FaceMembership.ABSENT : FaceMembership.UNKNOWN;
+    }
+
+    public int groupCount() {
+        return groups.size();
+    }
+
+    /**
+     * @return - 分组中的人脸数，来自网关的统计加上之后本进程的增删，不知道时返回-1
+     */
+    public int faceCount(String groupId) {
+        Group group = groups.get(groupId);
+        if (group == null) {
+            return reconciled ? 0 : -1;
+        }
+        return group.complete ? group.outerIds.size() : group.faceCount;
+    }
+
+    public List<String> getGroupIds() {
+        return new ArrayList<>(groups.keySet());
+    }
+
+    /**
+     * 读取整个响应，调用成功时更新索引
+     * @param endpoint - 创建、删除分组和人脸的接口
+     * @param uri - 请求地址，分组ID、名称和outerId从中取出
+     * @param response - 网关返回的响应，由调用方关闭
+     * @return - 与原响应内容相同、可以再次读取的响应
+     * @throws IOException - 读取响应失败
+     */
+    public ClientHttpResponse observe(NeuhubEndpoint endpoint, URI uri, ClientHttpResponse response) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(response.getHeaders());
+        byte[] body = StreamUtils.copyToByteArray(response.getBody());
+        CachedResponse buffered = new CachedResponse(response.getRawStatusCode(), response.getStatusText(), headers, body, Long.MAX_VALUE);
+        if (response.getRawStatusCode() == HttpStatus.OK.value()) {
+            try {
+                NeuhubResponse<JsonNode> decoded = NeuhubResponseDecoder.decode(new ByteArrayInputStream(body), JsonNode.class);
+                if (decoded.isSuccess()) {
+                    apply(endpoint, UriComponentsBuilder.fromUri(uri).build().getQueryParams(), decoded.getResult());
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("{}的响应无法解析，人脸索引没有更新: {}", endpoint, e.toString());
+            }
+        }
+        return buffered.toClientHttpResponse();
+    }
+
+    /**
+     * 用网关的分组列表更新索引，reconcileStart之后本地有变化的分组保持不变
+     * @param remoteGroups - 网关上的全部分组
+     * @param reconcileStart - 开始查询分组列表的时间，System.nanoTime()
+     */
+    public void reconcile(List<RemoteGroup> remoteGroups, long reconcileStart) {
+        Map<String, RemoteGroup> remote = new HashMap<>();
+        for (RemoteGroup remoteGroup : remoteGroups) {
+            remote.put(remoteGroup.groupId, remoteGroup);
+        }
+        int removed = 0;
+        for (Map.Entry<String, Group> entry : groups.entrySet()) {
+            if (!remote.containsKey(entry.getKey()) && entry.getValue().updatedAt - reconcileStart < 0
+                    && groups.remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        int added = 0;
+        for (RemoteGroup remoteGroup : remoteGroups) {
+            Group group = groups.get(remoteGroup.groupId);
+            if (group == null) {
+                Group created = new Group(remoteGroup.groupName, false);
+                created.updatedAt = reconcileStart - 1;
+                group = groups.putIfAbsent(remoteGroup.groupId, created);
+                if (group == null) {
+                    group = created;
+                    added++;
+                }
+            }
+            synchronized (group) {
+                if (group.updatedAt - reconcileStart < 0 && remoteGroup.faceCount >= 0) {
+                    group.faceCount = remoteGroup.faceCount;
+                    group.complete = remoteGroup.faceCount == group.outerIds.size();
+                }
+            }
+        }
+        reconciled = true;
+        logger.info("人脸索引同步完成: {}个分组，新增{}个，删除{}个", groups.size(), added, removed);
+    }
+
+    private void apply(NeuhubEndpoint endpoint, MultiValueMap<String, String> params, JsonNode result) {
+        String groupId = param(params, "groupId");
+        String outerId = param(params, "outerId");
+        switch (endpoint) {
+            case FACE_GROUP_CREATE:
+                JsonNode createdId = result == null ? null : result.findValue("groupId");
+                if (createdId != null) {
+                    groups.put(createdId.asText(), new Group(param(params, "groupName"), true));
+                }
+                break;
+            case FACE_GROUP_DELETE:
+                groups.remove(groupId);
+                break;
+            case FACE_CREATE:
+                Group group = groups.computeIfAbsent(groupId, id -> new Group(null, false));
+                synchronized (group) {
+                    if (group.outerIds.add(outerId) && group.faceCount >= 0) {
+                        group.faceCount++;
+                    }
+                    group.updatedAt = System.nanoTime();
+                }
+                break;
+            case FACE_DELETE:
+                Group existing = groups.get(groupId);
+                if (existing != null) {
+                    synchronized (existing) {
+                        // 不在本地索引中的人脸也可能存在于网关
+                        if ((existing.outerIds.remove(outerId) || !existing.complete) && existing.faceCount > 0) {
+                            existing.faceCount--;
+                        }
+                        existing.updatedAt = System.nanoTime();
+                    }
+                }
+                break;
+            default:
+        }
+    }
+
+    private static String param(MultiValueMap<String, String> params, String name) {
+        String value = params.getFirst(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return UriUtils.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 分组列表中的一项
+     */
+    public static class RemoteGroup {
+        private final String groupId;
+        private final String groupName;
+        private final int faceCount;
+
+        /**
+         * @param faceCount - 分组中的人脸数，不知道时为-1
+         */
+        public RemoteGroup(String groupId, String groupName, int faceCount) {
+            this.groupId = groupId;
+            this.groupName = groupName;
+            this.faceCount = faceCount;
+        }
+    }
+
+    private static class Group {
+        private final String name;
+        private final Set<String> outerIds = ConcurrentHashMap.newKeySet();
+        private volatile boolean complete;
+        private volatile int faceCount;
+        private volatile long updatedAt = System.nanoTime();
+
+        private Group(String name, boolean created) {
+            this.name = name;
+            this.complete = created;
+            this.faceCount = created ? 0 : -1;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package neuhub.face;
+
+import neuhub.client.NeuhubEndpoint;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestExecution;
+import org.springframework.http.client.AsyncClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureAdapter;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 异步客户端调用创建、删除分组和人脸的接口后，把响应交给{@link FaceIndex}更新索引
+ */
+public class FaceIndexInterceptor implements AsyncClientHttpRequestInterceptor {
+
+    private final FaceIndex faceIndex;
+
+    public FaceIndexInterceptor(FaceIndex faceIndex) {
+        this.faceIndex = faceIndex;
+    }
+
+    @Override
+    public ListenableFuture<ClientHttpResponse> intercept(HttpRequest request, byte[] body, AsyncClientHttpRequestExecution execution)
+            throws IOException {
+        NeuhubEndpoint endpoint = NeuhubEndpoint.fromPath(request.getURI().getPath());
+        ListenableFuture<ClientHttpResponse> future = execution.executeAsync(request, body);
+        if (endpoint == null || !faceIndex.isTracked(endpoint)) {
+            return future;
+        }
+        return new ListenableFutureAdapter<ClientHttpResponse, ClientHttpResponse>(future) {
+            @Override
+            protected ClientHttpResponse adapt(ClientHttpResponse response) throws ExecutionException {
+                try {
+                    return faceIndex.observe(endpoint, request.getURI(), response);
+                } catch (IOException e) {
+                    throw new ExecutionException(e);
+                } finally {
+                    response.close();
+                }
+            }
+        };
+    }
+}
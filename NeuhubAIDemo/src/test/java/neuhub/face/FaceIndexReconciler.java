@@ -0,0 +1,144 @@
+package neuhub.face;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import neuhub.client.NeuhubEndpoint;
+import neuhub.client.NeuhubRestTemplate;
+import neuhub.configuration.NeuhubFaceIndexProperties;
+import neuhub.response.NeuhubResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分页查询网关上的分组列表，同步到{@link FaceIndex}
+ * <ul>
+ * <li>配置了reconcile-interval时在后台线程定期同步，也可以直接调用{@link #reconcile()}</li>
+ * <li>分组列表取自result中第一个元素带groupId的数组，每项的faceCount为分组中的人脸数，没有时视为未知</li>
+ * <li>没有这样的数组时取result中的空数组，表示账号下没有分组，索引清空后同样视为已同步</li>
+ * <li>result中没有数组、列表无法解析或调用失败时不修改索引</li>
+ * </ul>
+ */
+public class FaceIndexReconciler implements Closeable {
+
+    private static final ParameterizedTypeReference<NeuhubResponse<JsonNode>> RESPONSE_TYPE =
+            new ParameterizedTypeReference<NeuhubResponse<JsonNode>>() {
+            };
+
+    private Logger logger = LoggerFactory.getLogger(FaceIndexReconciler.class);
+
+    private final NeuhubRestTemplate restTemplate;
+    private final String gatewayUrl;
+    private final FaceIndex faceIndex;
+    private final NeuhubFaceIndexProperties properties;
+    private ScheduledExecutorService scheduler;
+
+    public FaceIndexReconciler(NeuhubRestTemplate restTemplate, String gatewayUrl, FaceIndex faceIndex,
+                               NeuhubFaceIndexProperties properties) {
+        this.restTemplate = restTemplate;
+        this.gatewayUrl = gatewayUrl;
+        this.faceIndex = faceIndex;
+        this.properties = properties;
+    }
+
+    /**
+     * 配置了reconcile-interval时启动后台同步，第一次同步立即开始
+     */
+    public void start() {
+        if (properties.getReconcileInterval() <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "neuhub-face-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                reconcile();
+            } catch (RuntimeException e) {
+                logger.warn("人脸索引同步失败: {}", e.toString());
+            }
+        }, 0, properties.getReconcileInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 查询全部分组并更新索引
+     * @return - 是否已更新，列表无法解析时返回false
+     */
+    public boolean reconcile() {
+        long reconcileStart = System.nanoTime();
+        NeuhubEndpoint endpoint = NeuhubEndpoint.FACE_GROUP_LIST;
+        int pageSize = properties.getPageSize();
+        List<FaceIndex.RemoteGroup> remoteGroups = new ArrayList<>();
+        for (int start = 0; ; start += pageSize) {
+            NeuhubResponse<JsonNode> response = restTemplate.exchange(gatewayUrl + endpoint.getUriTemplate(), endpoint.getMethod(),
+                    HttpEntity.EMPTY, RESPONSE_TYPE, start, pageSize).getBody();
+            if (response == null || !response.isSuccess()) {
+                logger.warn("查询分组列表失败: {}", response == null ? null : response.getMsg());
+                return false;
+            }
+            JsonNode groups = findGroups(response.getResult());
+            if (groups == null) {
+                if (start == 0) {
+                    logger.warn("分组列表中没有分组数组，不更新人脸索引");
+                    return false;
+                }
+                break;
+            }
+            for (JsonNode group : groups) {
+                JsonNode faceCount = group.get("faceCount");
+                remoteGroups.add(new FaceIndex.RemoteGroup(group.get("groupId").asText(), group.path("groupName").asText(null),
+                        faceCount != null && faceCount.canConvertToInt() ? faceCount.asInt() : -1));
+            }
+            if (groups.size() < pageSize) {
+                break;
+            }
+        }
+        faceIndex.reconcile(remoteGroups, reconcileStart);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * @return - 第一个元素带groupId的数组，没有时返回第一个空数组，都没有时返回null
+     */
+    private static JsonNode findGroups(JsonNode node) {
+        JsonNode groups = findArray(node, false);
+        return groups != null ? groups : findArray(node, true);
+    }
+
+    /**
+     * @param empty - 查找空数组，否则查找第一个元素带groupId的数组
+     */
+    private static JsonNode findArray(JsonNode node, boolean empty) {
+        if (node == null) {
+            return null;
+        }
+        if (node.isArray()) {
+            boolean matched = empty ? node.size() == 0 : node.size() > 0 && node.get(0).has("groupId");
+            return matched ? node : null;
+        }
+        for (Iterator<JsonNode> iterator = node.elements(); iterator.hasNext(); ) {
+            JsonNode groups = findArray(iterator.next(), empty);
+            if (groups != null) {
+                return groups;
+            }
+        }
+        return null;
+    }
+}
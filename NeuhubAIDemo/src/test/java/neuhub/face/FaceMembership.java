@@ -0,0 +1,19 @@
+package neuhub.face;
+
+/**
+ * 本地索引对人脸是否存在的判断
+ */
+public enum FaceMembership {
+    /**
+     * 人脸存在
+     */
+    PRESENT,
+    /**
+     * 人脸不存在，只有分组中的人脸全部已知时才能确定
+     */
+    ABSENT,
+    /**
+     * 本地索引不完整，需要调用网关确认
+     */
+    UNKNOWN
+}
@@ -0,0 +1,126 @@
+package neuhub.hedging;
+
+import neuhub.client.NeuhubEndpoint;
+import neuhub.configuration.NeuhubHedgingProperties;
+
+import java.io.Closeable;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲请求的策略：请求发出一段时间没有响应时，再发一个相同的请求，先返回的结果生效，另一个请求被取消
+ * <ul>
+ * <li>只对配置中启用且幂等的接口生效</li>
+ * <li>等待时间为固定的delay，或该接口最近请求延迟的分位数，样本不足时不对冲</li>
+ * <li>每个普通请求积累max-ratio个对冲额度，对冲一次消耗1个，对冲请求数不会超过总数的max-ratio</li>
+ * </ul>
+ * 由{@link neuhub.client.NeuhubAsyncClient}使用
+ */
+public class HedgingPolicy implements Closeable {
+
+    /**
+     * 对冲额度的上限，避免长时间空闲后连续对冲
+     */
+    private static final double MAX_BUDGET = 10;
+
+    private final NeuhubHedgingProperties properties;
+    private final Map<NeuhubEndpoint, LatencyWindow> windows = new EnumMap<>(NeuhubEndpoint.class);
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private double budget;
+
+    public HedgingPolicy(NeuhubHedgingProperties properties) {
+        this.properties = properties;
+        for (String name : properties.getEndpoints()) {
+            NeuhubEndpoint endpoint = NeuhubEndpoint.valueOf(name);
+            if (!endpoint.isIdempotent()) {
+                throw new IllegalArgumentException(endpoint + "不是幂等的接口，不能对冲");
+            }
+            windows.put(endpoint, new LatencyWindow(properties.getPercentile()));
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "neuhub-hedging");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled(NeuhubEndpoint endpoint) {
+        return windows.containsKey(endpoint);
+    }
+
+    public boolean isAlternateRegion() {
+        return properties.isAlternateRegion();
+    }
+
+    /**
+     * @return - 发出对冲请求前等待的时间，单位为纳秒，不对冲时返回-1
+     */
+    public long delayNanos(NeuhubEndpoint endpoint) {
+        long minDelay = TimeUnit.MILLISECONDS.toNanos(properties.getMinDelay());
+        if (properties.getDelay() > 0) {
+            return Math.max(minDelay, TimeUnit.MILLISECONDS.toNanos(properties.getDelay()));
+        }
+        long percentile = windows.get(endpoint).percentile();
+        return percentile < 0 ? -1 : Math.max(minDelay, percentile);
+    }
+
+    /**
+     * 记录一次请求的延迟
+     */
+    public void record(NeuhubEndpoint endpoint, long latencyNanos) {
+        windows.get(endpoint).record(latencyNanos);
+    }
+
+    /**
+     * 每发出一个普通请求调用一次
+     */
+    public synchronized void onRequest() {
+        budget = Math.min(MAX_BUDGET, budget + properties.getMaxRatio());
+    }
+
+    /**
+     * @return - 是否还有对冲额度，有则消耗1个
+     */
+    public synchronized boolean tryAcquire() {
+        if (budget < 1) {
+            return false;
+        }
+        budget -= 1;
+        hedges.incrementAndGet();
+        return true;
+    }
+
+    public void onHedgeWin() {
+        hedgeWins.incrementAndGet();
+    }
+
+    public ScheduledFuture<?> schedule(Runnable task, long delayNanos) {
+        return scheduler.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return - 发出的对冲请求数
+     */
+    public long getHedges() {
+        return hedges.get();
+    }
+
+    /**
+     * @return - 对冲请求先返回的次数
+     */
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,43 @@
+package neuhub.hedging;
+
+import java.util.Arrays;
+
+/**
+ * 最近若干次请求的延迟，用于估计分位数
+ * <ul>
+ * <li>固定大小的环形数组，不随请求数增长</li>
+ * <li>分位数每记录{@value #RECOMPUTE_INTERVAL}次重新计算一次，读取时不排序</li>
+ * </ul>
+ */
+class LatencyWindow {
+
+    static final int SIZE = 256;
+    static final int MIN_SAMPLES = 20;
+    private static final int RECOMPUTE_INTERVAL = 16;
+
+    private final double percentile;
+    private final long[] samples = new long[SIZE];
+    private long count;
+    private volatile long cachedPercentile = -1;
+
+    LatencyWindow(double percentile) {
+        this.percentile = percentile;
+    }
+
+    synchronized void record(long latencyNanos) {
+        samples[(int) (count++ % SIZE)] = latencyNanos;
+        if (count >= MIN_SAMPLES && count % RECOMPUTE_INTERVAL == 0) {
+            int size = (int) Math.min(count, SIZE);
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            cachedPercentile = sorted[Math.min(size - 1, (int) Math.ceil(percentile * size) - 1)];
+        }
+    }
+
+    /**
+     * @return - 延迟的分位数，单位为纳秒，样本不足时返回-1
+     */
+    long percentile() {
+        return cachedPercentile;
+    }
+}
@@ -0,0 +1,185 @@
+package neuhub.http;
+
+import org.springframework.util.StreamUtils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * name=value形式的表单请求体，文件字段的值是文件内容的Base64编码
+ * <ul>
+ * <li>文件内容在发送时边读边编码，直接写入连接的输出流，不会把文件或编码结果整个放进内存</li>
+ * <li>每次写出时重新读取文件，请求重发时可以重复使用</li>
+ * <li>只有同步客户端边读边发送；异步客户端的请求工厂会先把编码后的请求体整个写入byte[]</li>
+ * <li>urlEncoded为false时与原来String.format拼出的请求体完全相同；为true时对值做url编码，Base64中的+/=会被转义</li>
+ * </ul>
+ * 需要配合{@link Base64FormBodyHttpMessageConverter}使用
+ */
+public class Base64FormBody {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final boolean urlEncoded;
+    private final List<Field> fields = new ArrayList<>();
+
+    public Base64FormBody() {
+        this(false);
+    }
+
+    /**
+     * @param urlEncoded - 是否对值做url编码
+     */
+    public Base64FormBody(boolean urlEncoded) {
+        this.urlEncoded = urlEncoded;
+    }
+
+    /**
+     * 添加普通字段
+     * @param name - 字段名
+     * @param value - 字段值
+     * @return - 当前对象
+     */
+    public Base64FormBody addField(String name, String value) {
+        fields.add(new Field(name, urlEncoded ? urlEncode(value) : value, null));
+        return this;
+    }
+
+    /**
+     * 添加文件字段，值为文件内容的Base64编码
+     * @param name - 字段名
+     * @param file - 文件路径
+     * @return - 当前对象
+     */
+    public Base64FormBody addBase64File(String name, Path file) {
+        fields.add(new Field(name, null, file));
+        return this;
+    }
+
+    public boolean isUrlEncoded() {
+        return urlEncoded;
+    }
+
+    /**
+     * @return - 请求体的字节数，url编码时无法预先得知，返回-1
+     * @throws IOException - 读取文件大小失败
+     */
+    public long contentLength() throws IOException {
+        if (urlEncoded) {
+            return -1;
+        }
+        long length = 0;
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            length += (i > 0 ? 1 : 0) + field.name.length() + 1;
+            length += field.file == null ? field.value.length() : (Files.size(field.file) + 2) / 3 * 4;
+        }
+        return length;
+    }
+
+    /**
+     * 写出请求体，写完后不关闭输出流
+     * @param out - 连接的输出流
+     * @throws IOException - 读取文件或写出失败
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            if (i > 0) {
+                out.write('&');
+            }
+            out.write(field.name.getBytes(StandardCharsets.ISO_8859_1));
+            out.write('=');
+            if (field.file == null) {
+                out.write(field.value.getBytes(StandardCharsets.ISO_8859_1));
+            } else {
+                writeBase64(field.file, out);
+            }
+        }
+        out.flush();
+    }
+
+    private void writeBase64(Path file, OutputStream out) throws IOException {
+        OutputStream target = StreamUtils.nonClosing(out);
+        if (urlEncoded) {
+            target = new PercentEncodingOutputStream(target);
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file);
+             OutputStream encoder = Base64.getEncoder().wrap(target)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                encoder.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private static String urlEncode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Field {
+        private final String name;
+        private final String value;
+        private final Path file;
+
+        private Field(String name, String value, Path file) {
+            this.name = name;
+            this.value = value;
+            this.file = file;
+        }
+    }
+
+    /**
+     * 转义Base64字符集中在表单里有特殊含义的+/=
+     */
+    private static class PercentEncodingOutputStream extends FilterOutputStream {
+
+        private PercentEncodingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            switch (b) {
+                case '+':
+                    out.write(new byte[]{'%', '2', 'B'});
+                    break;
+                case '/':
+                    out.write(new byte[]{'%', '2', 'F'});
+                    break;
+                case '=':
+                    out.write(new byte[]{'%', '3', 'D'});
+                    break;
+                default:
+                    out.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            int start = off;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '+' || b[i] == '/' || b[i] == '=') {
+                    out.write(b, start, i - start);
+                    write(b[i]);
+                    start = i + 1;
+                }
+            }
+            out.write(b, start, off + len - start);
+        }
+    }
+}
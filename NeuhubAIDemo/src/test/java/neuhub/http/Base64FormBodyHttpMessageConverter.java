@@ -0,0 +1,57 @@
+package neuhub.http;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 写出{@link Base64FormBody}的消息转换器，只用于请求
+ * <ul>
+ * <li>Content-Type与原来直接发送String时相同，url编码时为application/x-www-form-urlencoded</li>
+ * <li>请求工厂不缓冲请求体时，内容直接写入连接；能算出长度时带Content-Length，否则使用chunked编码</li>
+ * </ul>
+ */
+public class Base64FormBodyHttpMessageConverter extends AbstractHttpMessageConverter<Base64FormBody> {
+
+    private static final MediaType TEXT_PLAIN = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.ISO_8859_1);
+
+    public Base64FormBodyHttpMessageConverter() {
+        super(TEXT_PLAIN, MediaType.APPLICATION_FORM_URLENCODED);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Base64FormBody.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected MediaType getDefaultContentType(Base64FormBody body) {
+        return body.isUrlEncoded() ? MediaType.APPLICATION_FORM_URLENCODED : TEXT_PLAIN;
+    }
+
+    @Override
+    protected Long getContentLength(Base64FormBody body, MediaType contentType) throws IOException {
+        long length = body.contentLength();
+        return length < 0 ? null : length;
+    }
+
+    @Override
+    protected Base64FormBody readInternal(Class<? extends Base64FormBody> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Base64FormBody只用于请求");
+    }
+
+    @Override
+    protected void writeInternal(Base64FormBody body, HttpOutputMessage outputMessage) throws IOException {
+        body.writeTo(outputMessage.getBody());
+    }
+}
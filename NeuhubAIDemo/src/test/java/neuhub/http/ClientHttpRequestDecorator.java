@@ -0,0 +1,68 @@
+package neuhub.http;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+
+/**
+ * 包装同步请求的基类，子类覆盖{@link #execute()}在请求前后加入处理
+ * <ul>
+ * <li>同时实现了{@link StreamingHttpOutputMessage}，被包装的请求不缓冲请求体时，消息转换器仍然把请求体直接写入连接</li>
+ * </ul>
+ */
+public class ClientHttpRequestDecorator implements ClientHttpRequest, StreamingHttpOutputMessage {
+
+    private final ClientHttpRequest delegate;
+
+    public ClientHttpRequestDecorator(ClientHttpRequest delegate) {
+        this.delegate = delegate;
+    }
+
+    public ClientHttpRequest getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public HttpMethod getMethod() {
+        return delegate.getMethod();
+    }
+
+    @Override
+    public URI getURI() {
+        return delegate.getURI();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return delegate.getHeaders();
+    }
+
+    @Override
+    public OutputStream getBody() throws IOException {
+        return delegate.getBody();
+    }
+
+    @Override
+    public void setBody(Body body) {
+        if (delegate instanceof StreamingHttpOutputMessage) {
+            ((StreamingHttpOutputMessage) delegate).setBody(body);
+        } else {
+            try {
+                body.writeTo(delegate.getBody());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Override
+    public ClientHttpResponse execute() throws IOException {
+        return delegate.execute();
+    }
+}
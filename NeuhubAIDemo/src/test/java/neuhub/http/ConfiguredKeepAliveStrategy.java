@@ -0,0 +1,27 @@
+package neuhub.http;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * 长连接的保持时间，优先使用服务端Keep-Alive头中的timeout，未返回时使用配置的时间
+ */
+public class ConfiguredKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+    private final long defaultKeepAlive;
+
+    /**
+     * @param defaultKeepAlive - 服务端未指定时连接保持的时间，单位为毫秒
+     */
+    public ConfiguredKeepAliveStrategy(long defaultKeepAlive) {
+        this.defaultKeepAlive = defaultKeepAlive;
+    }
+
+    @Override
+    public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+        long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        return duration > 0 ? duration : defaultKeepAlive;
+    }
+}
@@ -0,0 +1,48 @@
+package neuhub.http;
+
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 连接池的统计信息，可用于观察连接的复用情况
+ * <ul>
+ * <li>leased: 正在使用的连接数</li>
+ * <li>available: 空闲可复用的连接数</li>
+ * <li>pending: 正在等待连接的请求数，持续大于0说明连接池上限偏小</li>
+ * </ul>
+ */
+public class ConnectionPoolMonitor {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    public ConnectionPoolMonitor(PoolingHttpClientConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
+    }
+
+    /**
+     * @return - 整个连接池的统计
+     */
+    public PoolStats getTotalStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * @return - 按网关地址分组的统计，key为网关的scheme://host:port
+     */
+    public Map<String, PoolStats> getRouteStats() {
+        Map<String, PoolStats> stats = new LinkedHashMap<>();
+        for (HttpRoute route : connectionManager.getRoutes()) {
+            stats.put(route.getTargetHost().toURI(), connectionManager.getStats(route));
+        }
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return "total" + getTotalStats() + ", routes" + getRouteStats();
+    }
+}
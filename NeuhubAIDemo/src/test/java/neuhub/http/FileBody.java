@@ -0,0 +1,65 @@
+package neuhub.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 以文件原始内容作为请求体，用于直接上传图片、音频二进制的接口
+ * <ul>
+ * <li>发送时用{@link FileChannel#transferTo}分块复制到连接的输出流，不会把文件读成byte[]，堆内存占用与文件大小无关</li>
+ * <li>HttpClient只提供输出流，不是零拷贝，transferTo经过一个固定大小的缓冲区复制</li>
+ * <li>发送过程中文件被截断时抛出{@link EOFException}，不会按原来的大小一直等待</li>
+ * <li>每次写出时重新打开文件，请求重发时可以重复使用</li>
+ * <li>只有同步客户端边读边发送；异步客户端的请求工厂会先把请求体整个写入byte[]，堆内存占用与文件大小相同</li>
+ * </ul>
+ * 需要配合{@link FileBodyHttpMessageConverter}使用
+ */
+public class FileBody {
+
+    private final Path file;
+
+    public FileBody(Path file) {
+        this.file = file;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return - 文件的字节数
+     * @throws IOException - 读取文件大小失败
+     */
+    public long contentLength() throws IOException {
+        return Files.size(file);
+    }
+
+    /**
+     * 写出文件内容，写完后不关闭输出流
+     * @param out - 连接的输出流
+     * @throws IOException - 读取文件或写出失败
+     * @throws EOFException - 发送过程中文件被截断
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long transferred = channel.transferTo(position, size - position, target);
+                if (transferred == 0 && position >= channel.size()) {
+                    throw new EOFException("文件在发送过程中被截断: " + file + "，已发送" + position + "字节，应发送" + size + "字节");
+                }
+                position += transferred;
+            }
+        }
+        out.flush();
+    }
+}
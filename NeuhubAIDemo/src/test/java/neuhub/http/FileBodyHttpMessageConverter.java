@@ -0,0 +1,48 @@
+package neuhub.http;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * 写出{@link FileBody}的消息转换器，只用于请求
+ * <ul>
+ * <li>Content-Type与原来直接发送byte[]时相同，为application/octet-stream</li>
+ * <li>Content-Length为文件大小</li>
+ * </ul>
+ */
+public class FileBodyHttpMessageConverter extends AbstractHttpMessageConverter<FileBody> {
+
+    public FileBodyHttpMessageConverter() {
+        super(MediaType.APPLICATION_OCTET_STREAM, MediaType.ALL);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return FileBody.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Long getContentLength(FileBody body, MediaType contentType) throws IOException {
+        return body.contentLength();
+    }
+
+    @Override
+    protected FileBody readInternal(Class<? extends FileBody> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("FileBody只用于请求");
+    }
+
+    @Override
+    protected void writeInternal(FileBody body, HttpOutputMessage outputMessage) throws IOException {
+        body.writeTo(outputMessage.getBody());
+    }
+}
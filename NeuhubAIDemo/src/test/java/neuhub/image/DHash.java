@@ -0,0 +1,100 @@
+package neuhub.image;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * 图片的差值哈希，重新压缩、缩放、轻微调色后的图片哈希基本不变，两个哈希的汉明距离越小图片越像
+ * <ul>
+ * <li>图片缩成9x8的灰度，每行相邻两个像素比较亮度，左边比右边暗记为1，共64位</li>
+ * <li>解码时按整数倍隔行读取，短边约64像素即可，每个格子取所有像素亮度的平均值</li>
+ * <li>不按EXIF方向旋转，旋转、翻转、大幅裁剪后的图片不认为相同</li>
+ * <li>纯色、很暗或对比度很低的图片相邻格子亮度几乎相同，哈希接近全0或全1，见{@link #isDegenerate(long)}，不能用来判断是否相似</li>
+ * </ul>
+ */
+public final class DHash {
+
+    private static final int WIDTH = 9;
+    private static final int HEIGHT = 8;
+    private static final int MIN_DECODED = 64;
+    /**
+     * 为1或为0的位数不超过该值时，哈希中没有足够的信息
+     */
+    private static final int MIN_BITS = 4;
+
+    private DHash() {
+    }
+
+    /**
+     * @param image - 图片
+     * @return - 64位哈希
+     * @throws IOException - 图片无法解码
+     */
+    public static long compute(byte[] image) throws IOException {
+        ImageHeader header = ImageHeader.read(image);
+        int subsampling = header == null ? 1 : Math.max(1, Math.min(header.getWidth(), header.getHeight()) / MIN_DECODED);
+        BufferedImage decoded = ImagePreprocessor.decode(image, subsampling);
+        if (decoded == null) {
+            throw new IOException("无法解码的图片");
+        }
+        return compute(decoded);
+    }
+
+    /**
+     * @param image - 解码后的图片
+     * @return - 64位哈希
+     */
+    public static long compute(BufferedImage image) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, w, h, null, 0, w);
+        long[] sums = new long[WIDTH * HEIGHT];
+        int[] counts = new int[WIDTH * HEIGHT];
+        for (int y = 0; y < h; y++) {
+            int cy = y * HEIGHT / h;
+            for (int x = 0; x < w; x++) {
+                int cell = cy * WIDTH + x * WIDTH / w;
+                int rgb = pixels[y * w + x];
+                // ITU-R BT.601 亮度，乘以1000避免浮点
+                sums[cell] += 299 * ((rgb >> 16) & 0xFF) + 587 * ((rgb >> 8) & 0xFF) + 114 * (rgb & 0xFF);
+                counts[cell]++;
+            }
+        }
+        long hash = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH - 1; x++) {
+                int cell = y * WIDTH + x;
+                hash <<= 1;
+                if (mean(sums, counts, cell) < mean(sums, counts, cell + 1)) {
+                    hash |= 1;
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @return - 两个哈希不同的位数
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /**
+     * @return - 哈希几乎全为0或全为1，毫不相关的纯色、暗场、浅底细字图片之间的距离也很小
+     */
+    public static boolean isDegenerate(long hash) {
+        int bits = Long.bitCount(hash);
+        return bits <= MIN_BITS || bits >= Long.SIZE - MIN_BITS;
+    }
+
+    /**
+     * 图片比9x8还小时部分格子没有像素，取左边格子的值
+     */
+    private static long mean(long[] sums, int[] counts, int cell) {
+        while (counts[cell] == 0 && cell % WIDTH > 0) {
+            cell--;
+        }
+        return counts[cell] == 0 ? 0 : sums[cell] / counts[cell];
+    }
+}
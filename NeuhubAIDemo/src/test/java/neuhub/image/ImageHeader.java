@@ -0,0 +1,139 @@
+package neuhub.image;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * 只读取图片头得到的格式、尺寸和EXIF方向，不解码像素
+ * <ul>
+ * <li>格式和尺寸由ImageIO的ImageReader从文件头读取</li>
+ * <li>方向直接从jpeg的APP1段中读取，其他格式总是1</li>
+ * </ul>
+ */
+public final class ImageHeader {
+
+    private static final int EXIF_ORIENTATION = 0x0112;
+
+    private final String format;
+    private final int width;
+    private final int height;
+    private final int orientation;
+
+    private ImageHeader(String format, int width, int height, int orientation) {
+        this.format = format;
+        this.width = width;
+        this.height = height;
+        this.orientation = orientation;
+    }
+
+    /**
+     * @param image - 图片内容
+     * @return - 图片头，不是ImageIO支持的图片时返回null
+     * @throws IOException - 图片头损坏
+     */
+    public static ImageHeader read(byte[] image) throws IOException {
+        try (ImageInputStream input = new MemoryCacheImageInputStream(new ByteArrayInputStream(image))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                String format = reader.getFormatName().toLowerCase();
+                int orientation = format.equals("jpeg") ? readOrientation(image) : 1;
+                return new ImageHeader(format, reader.getWidth(0), reader.getHeight(0), orientation);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 依次查看jpeg的各个段，找到Exif的APP1段后读取IFD0中的方向，遇到图像数据(SOS)时停止
+     */
+    private static int readOrientation(byte[] jpeg) {
+        int offset = 2;
+        while (offset + 4 <= jpeg.length && (jpeg[offset] & 0xff) == 0xff) {
+            int marker = jpeg[offset + 1] & 0xff;
+            int length = ((jpeg[offset + 2] & 0xff) << 8) | (jpeg[offset + 3] & 0xff);
+            if (marker == 0xda || length < 2) {
+                return 1;
+            }
+            int start = offset + 4;
+            if (marker == 0xe1 && start + 6 <= jpeg.length && jpeg[start] == 'E' && jpeg[start + 1] == 'x'
+                    && jpeg[start + 2] == 'i' && jpeg[start + 3] == 'f') {
+                return readTiffOrientation(jpeg, start + 6, Math.min(jpeg.length, offset + 2 + length));
+            }
+            offset += 2 + length;
+        }
+        return 1;
+    }
+
+    private static int readTiffOrientation(byte[] data, int tiff, int end) {
+        if (tiff + 8 > end) {
+            return 1;
+        }
+        boolean littleEndian = data[tiff] == 'I';
+        int ifd = tiff + (int) readInt(data, tiff + 4, 4, littleEndian);
+        if (ifd < tiff || ifd + 2 > end) {
+            return 1;
+        }
+        int count = (int) readInt(data, ifd, 2, littleEndian);
+        for (int i = 0; i < count; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                break;
+            }
+            if (readInt(data, entry, 2, littleEndian) == EXIF_ORIENTATION) {
+                int orientation = (int) readInt(data, entry + 8, 2, littleEndian);
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static long readInt(byte[] data, int offset, int bytes, boolean littleEndian) {
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            int b = data[offset + (littleEndian ? bytes - 1 - i : i)] & 0xff;
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+
+    /**
+     * @return - ImageIO中的格式名，如jpeg、png
+     */
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * @return - 存储的宽度，没有按方向旋转
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return - EXIF方向，1到8，1表示不需要旋转
+     */
+    public int getOrientation() {
+        return orientation;
+    }
+
+    @Override
+    public String toString() {
+        return format + " " + width + "x" + height + (orientation == 1 ? "" : " orientation=" + orientation);
+    }
+}
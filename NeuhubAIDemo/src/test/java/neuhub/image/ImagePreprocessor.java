@@ -0,0 +1,304 @@
+package neuhub.image;
+
+import neuhub.client.NeuhubEndpoint;
+import neuhub.configuration.NeuhubImageProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 上传前缩小图片，减少上传的字节数，识别类接口的模型用不到原图的分辨率
+ * <ul>
+ * <li>只处理配置中启用的接口；先读图片头，长边不超过上限的图片原样返回，不解码</li>
+ * <li>只支持结果中没有坐标的接口，见{@link #SUPPORTED_ENDPOINTS}；人脸检测、人体检测、姿态估计、OCR等接口返回的矩形和关键点
+ * 是缩小、旋转后的图片上的坐标，调用方无法换算回原图，配置这些接口时构造失败</li>
+ * <li>超过上限时按比例缩小到长边等于上限，按EXIF方向旋转后重新编码为jpeg，结果不比原图小时仍使用原图</li>
+ * <li>解码时先按整数倍隔行读取，再逐次减半缩小，大图不需要以原始分辨率解码</li>
+ * <li>{@link #processAsync}在独立的线程池中处理，多张图片可以同时使用多个cpu核</li>
+ * <li>无法解码的图片原样返回，由网关判断是否有效</li>
+ * </ul>
+ * 参数见{@link NeuhubImageProperties}，处理的图片数和节省的字节数由{@link neuhub.metrics.NeuhubMetrics#bindImagePreprocessor}输出
+ */
+public class ImagePreprocessor implements Closeable {
+
+    /**
+     * 可以预处理的接口，结果只有类别和分数，与图片的尺寸和方向无关
+     */
+    public static final Set<NeuhubEndpoint> SUPPORTED_ENDPOINTS =
+            Collections.unmodifiableSet(EnumSet.of(NeuhubEndpoint.FOOD, NeuhubEndpoint.SEXY_POST));
+
+    private Logger logger = LoggerFactory.getLogger(ImagePreprocessor.class);
+
+    private final Map<NeuhubEndpoint, Integer> maxDimensions = new EnumMap<>(NeuhubEndpoint.class);
+    private final float quality;
+    private final ExecutorService executor;
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong inputBytes = new AtomicLong();
+    private final AtomicLong outputBytes = new AtomicLong();
+
+    public ImagePreprocessor(NeuhubImageProperties properties) {
+        for (Map.Entry<String, Integer> entry : properties.getEndpoints().entrySet()) {
+            if (entry.getValue() < 1) {
+                throw new IllegalArgumentException(entry.getKey() + "的像素上限必须大于0");
+            }
+            NeuhubEndpoint endpoint = NeuhubEndpoint.valueOf(entry.getKey());
+            if (!SUPPORTED_ENDPOINTS.contains(endpoint)) {
+                throw new IllegalArgumentException(endpoint + "的结果中有坐标，缩小图片后无法对应原图，只支持" + SUPPORTED_ENDPOINTS);
+            }
+            maxDimensions.put(endpoint, entry.getValue());
+        }
+        this.quality = properties.getQuality();
+        int threads = properties.getThreads() > 0 ? properties.getThreads() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "neuhub-image-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return - 接口是否启用了预处理
+     */
+    public boolean isEnabled(NeuhubEndpoint endpoint) {
+        return maxDimensions.containsKey(endpoint);
+    }
+
+    /**
+     * 在当前线程处理图片
+     * @param endpoint - 图片要上传的接口
+     * @param image - 原图
+     * @return - 缩小后的jpeg，不需要处理或处理失败时返回原图
+     */
+    public byte[] process(NeuhubEndpoint endpoint, byte[] image) {
+        Integer maxDimension = maxDimensions.get(endpoint);
+        if (maxDimension == null) {
+            return image;
+        }
+        byte[] output = null;
+        try {
+            ImageHeader header = ImageHeader.read(image);
+            if (header != null && Math.max(header.getWidth(), header.getHeight()) > maxDimension) {
+                output = resize(image, header, maxDimension);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("{}的图片预处理失败，使用原图: {}", endpoint, e.toString());
+        }
+        if (output == null || output.length >= image.length) {
+            skipped.incrementAndGet();
+            return image;
+        }
+        processed.incrementAndGet();
+        inputBytes.addAndGet(image.length);
+        outputBytes.addAndGet(output.length);
+        return output;
+    }
+
+    /**
+     * 在线程池中处理图片，接口没有启用时直接返回原图
+     */
+    public CompletableFuture<byte[]> processAsync(NeuhubEndpoint endpoint, byte[] image) {
+        if (!isEnabled(endpoint)) {
+            return CompletableFuture.completedFuture(image);
+        }
+        return CompletableFuture.supplyAsync(() -> process(endpoint, image), executor);
+    }
+
+    /**
+     * @return - 缩小过的图片数
+     */
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    /**
+     * @return - 启用了预处理，但不需要缩小或缩小后没有变小的图片数
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * @return - 缩小过的图片的原始字节数
+     */
+    public long getInputBytes() {
+        return inputBytes.get();
+    }
+
+    /**
+     * @return - 缩小后的字节数
+     */
+    public long getOutputBytes() {
+        return outputBytes.get();
+    }
+
+    /**
+     * @return - 少上传的字节数，不含Base64编码的膨胀
+     */
+    public long getBytesSaved() {
+        return inputBytes.get() - outputBytes.get();
+    }
+
+    /**
+     * 在图片处理的线程池中执行其他耗cpu的图片计算，如{@link DHash}
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private byte[] resize(byte[] image, ImageHeader header, int maxDimension) throws IOException {
+        int longSide = Math.max(header.getWidth(), header.getHeight());
+        double scale = (double) maxDimension / longSide;
+        int width = Math.max(1, (int) Math.round(header.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(header.getHeight() * scale));
+        BufferedImage source = decode(image, Math.max(1, longSide / (2 * maxDimension)));
+        if (source == null) {
+            return null;
+        }
+        BufferedImage scaled = orient(scale(source, width, height), header.getOrientation());
+        return encode(scaled);
+    }
+
+    /**
+     * @param subsampling - 每隔多少个像素读取一个，解码后的图片仍不小于目标尺寸的2倍
+     * @return - 解码后的图片，格式不支持时返回null
+     */
+    static BufferedImage decode(byte[] image, int subsampling) throws IOException {
+        try (ImageInputStream input = new MemoryCacheImageInputStream(new ByteArrayInputStream(image))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 每次最多缩小一半，双线性插值在缩小倍数很大时会丢失细节；透明部分填充为白色
+     */
+    private BufferedImage scale(BufferedImage source, int width, int height) {
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    /**
+     * 按EXIF方向旋转或翻转，重新编码后不再带EXIF，需要把方向体现在像素上
+     */
+    private BufferedImage orient(BufferedImage image, int orientation) {
+        if (orientation == 1) {
+            return image;
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        AffineTransform transform;
+        switch (orientation) {
+            case 2:
+                transform = new AffineTransform(-1, 0, 0, 1, w, 0);
+                break;
+            case 3:
+                transform = new AffineTransform(-1, 0, 0, -1, w, h);
+                break;
+            case 4:
+                transform = new AffineTransform(1, 0, 0, -1, 0, h);
+                break;
+            case 5:
+                transform = new AffineTransform(0, 1, 1, 0, 0, 0);
+                break;
+            case 6:
+                transform = new AffineTransform(0, 1, -1, 0, h, 0);
+                break;
+            case 7:
+                transform = new AffineTransform(0, -1, -1, 0, h, w);
+                break;
+            case 8:
+                transform = new AffineTransform(0, -1, 1, 0, 0, w);
+                break;
+            default:
+                return image;
+        }
+        boolean swap = orientation >= 5;
+        BufferedImage oriented = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = oriented.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return oriented;
+    }
+
+    private byte[] encode(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = new MemoryCacheImageOutputStream(output)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,135 @@
+package neuhub.image;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import neuhub.client.NeuhubAsyncClient;
+import neuhub.configuration.NeuhubModerationProperties;
+import neuhub.response.FieldProjection;
+import neuhub.response.NeuhubResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 智能鉴黄接口的近似重复图片去重，转发、重新压缩过的图片直接返回之前的审核结果，不再调用网关
+ * <ul>
+ * <li>每张图片计算{@link DHash}，在{@link PerceptualHashIndex}中查找汉明距离不超过maxDistance的图片</li>
+ * <li>找到时返回之前的响应，没有找到时调用网关，调用成功后保存响应</li>
+ * <li>哈希在{@link ImagePreprocessor}的线程池中计算；无法解码的图片不去重，直接调用网关</li>
+ * <li>纯色、暗场等哈希几乎全为0或全为1的图片彼此都很近，不查找也不保存，直接调用网关，见{@link DHash#isDegenerate(long)}</li>
+ * <li>同时上传的两张相同图片都会调用网关</li>
+ * </ul>
+ * 参数见{@link NeuhubModerationProperties}
+ */
+public class ModerationDeduplicator {
+
+    private static final FieldProjection CODE = new FieldProjection("code");
+
+    private Logger logger = LoggerFactory.getLogger(ModerationDeduplicator.class);
+
+    private final NeuhubAsyncClient client;
+    private final ImagePreprocessor imagePreprocessor;
+    private final PerceptualHashIndex<ResponseEntity<String>> index;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong undecodable = new AtomicLong();
+    private final AtomicLong degenerate = new AtomicLong();
+
+    public ModerationDeduplicator(NeuhubAsyncClient client, ImagePreprocessor imagePreprocessor, NeuhubModerationProperties properties) {
+        this.client = client;
+        this.imagePreprocessor = imagePreprocessor;
+        this.index = new PerceptualHashIndex<>(properties.getCapacity(), properties.getMaxDistance());
+    }
+
+    /**
+     * 审核图片，近似重复的图片返回之前的响应
+     * @param image - 图片
+     * @return - 鉴黄接口的响应
+     */
+    public CompletableFuture<ResponseEntity<String>> sexyPost(byte[] image) {
+        return imagePreprocessor.supplyAsync(() -> {
+            try {
+                return DHash.compute(image);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).handle((hash, ex) -> {
+            if (ex != null) {
+                undecodable.incrementAndGet();
+                logger.debug("无法计算图片哈希，直接调用网关: {}", ex.toString());
+                return client.sexyPost(image);
+            }
+            if (DHash.isDegenerate(hash)) {
+                degenerate.incrementAndGet();
+                return client.sexyPost(image);
+            }
+            ResponseEntity<String> previous = index.find(hash);
+            if (previous != null) {
+                hits.incrementAndGet();
+                return CompletableFuture.completedFuture(previous);
+            }
+            misses.incrementAndGet();
+            return client.sexyPost(image).thenApply(response -> {
+                if (isSuccess(response)) {
+                    index.put(hash, response);
+                }
+                return response;
+            });
+        }).thenCompose(future -> future);
+    }
+
+    /**
+     * @return - 返回之前审核结果的次数
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return - 没有找到相近图片、调用了网关的次数
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return - 无法计算哈希、直接调用网关的次数
+     */
+    public long getUndecodable() {
+        return undecodable.get();
+    }
+
+    /**
+     * @return - 哈希信息太少、直接调用网关的次数
+     */
+    public long getDegenerate() {
+        return degenerate.get();
+    }
+
+    /**
+     * @return - 保存的审核结果数
+     */
+    public int size() {
+        return index.size();
+    }
+
+    private boolean isSuccess(ResponseEntity<String> response) {
+        if (response.getBody() == null) {
+            return false;
+        }
+        try {
+            Map<String, JsonNode> fields = CODE.decode(new ByteArrayInputStream(response.getBody().getBytes(StandardCharsets.UTF_8)));
+            JsonNode code = fields.get("code");
+            return code != null && NeuhubResponse.SUCCESS_CODE.equals(code.asText());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
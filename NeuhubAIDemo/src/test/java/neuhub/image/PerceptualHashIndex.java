@@ -0,0 +1,152 @@
+package neuhub.image;
+
+import java.util.Arrays;
+
+/**
+ * 按汉明距离查找相近的64位图片哈希，容量固定，满了以后淘汰最早加入的项
+ * <ul>
+ * <li>多索引哈希：哈希分成maxDistance+1段，距离不超过maxDistance的两个哈希至少有一段完全相同，
+ * 每段建一个索引，查找时只比较至少一段相同的候选项</li>
+ * <li>所有数据在创建时一次分配，capacity项大约占用 capacity * (16 + 4 * 段数) 字节加上值本身</li>
+ * <li>淘汰按加入的顺序，命中不会延长保留时间，旧的结果会定期重新确认</li>
+ * </ul>
+ * 方法都是同步的，可以在多个线程中使用
+ */
+public class PerceptualHashIndex<V> {
+
+    private static final int NONE = -1;
+
+    private final int maxDistance;
+    private final int capacity;
+    private final int[] segmentStart;
+    private final long[] segmentMask;
+    private final int tableMask;
+    /**
+     * 每段的桶，保存桶中第一项的位置
+     */
+    private final int[][] heads;
+    /**
+     * 每段中同一个桶的下一项的位置
+     */
+    private final int[][] next;
+    private final long[] hashes;
+    private final Object[] values;
+    private int size;
+    private int oldest;
+
+    /**
+     * @param capacity - 最多保存的项数
+     * @param maxDistance - 认为相近的最大汉明距离，0到15
+     */
+    public PerceptualHashIndex(int capacity, int maxDistance) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity必须大于0");
+        }
+        if (maxDistance < 0 || maxDistance > 15) {
+            throw new IllegalArgumentException("maxDistance必须在0到15之间");
+        }
+        this.maxDistance = maxDistance;
+        this.capacity = capacity;
+        int segments = maxDistance + 1;
+        this.segmentStart = new int[segments];
+        this.segmentMask = new long[segments];
+        for (int i = 0; i < segments; i++) {
+            int start = i * 64 / segments;
+            int bits = (i + 1) * 64 / segments - start;
+            segmentStart[i] = start;
+            segmentMask[i] = bits == 64 ? -1L : (1L << bits) - 1;
+        }
+        int tableSize = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.tableMask = tableSize - 1;
+        this.heads = new int[segments][tableSize];
+        this.next = new int[segments][capacity];
+        for (int[] table : heads) {
+            Arrays.fill(table, NONE);
+        }
+        this.hashes = new long[capacity];
+        this.values = new Object[capacity];
+    }
+
+    /**
+     * @param hash - 要查找的哈希
+     * @return - 距离最近的项的值，没有距离不超过maxDistance的项时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V find(long hash) {
+        int best = NONE;
+        int bestDistance = maxDistance + 1;
+        for (int s = 0; s < heads.length && bestDistance > 0; s++) {
+            for (int slot = heads[s][bucket(s, hash)]; slot != NONE; slot = next[s][slot]) {
+                int distance = Long.bitCount(hashes[slot] ^ hash);
+                if (distance < bestDistance) {
+                    best = slot;
+                    bestDistance = distance;
+                }
+            }
+        }
+        return best == NONE ? null : (V) values[best];
+    }
+
+    /**
+     * 加入一项，已满时淘汰最早加入的项；相近的哈希可以重复加入
+     * @param hash - 哈希
+     * @param value - 值，不能为null
+     */
+    public synchronized void put(long hash, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value不能为null");
+        }
+        int slot;
+        if (size < capacity) {
+            slot = size++;
+        } else {
+            slot = oldest;
+            oldest = (oldest + 1) % capacity;
+            unlink(slot);
+        }
+        hashes[slot] = hash;
+        values[slot] = value;
+        for (int s = 0; s < heads.length; s++) {
+            int bucket = bucket(s, hash);
+            next[s][slot] = heads[s][bucket];
+            heads[s][bucket] = slot;
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    private void unlink(int slot) {
+        for (int s = 0; s < heads.length; s++) {
+            int bucket = bucket(s, hashes[slot]);
+            if (heads[s][bucket] == slot) {
+                heads[s][bucket] = next[s][slot];
+                continue;
+            }
+            int previous = heads[s][bucket];
+            while (next[s][previous] != slot) {
+                previous = next[s][previous];
+            }
+            next[s][previous] = next[s][slot];
+        }
+        values[slot] = null;
+    }
+
+    /**
+     * 段的值再混合一次，段较长时也能均匀地落到桶中
+     */
+    private int bucket(int segment, long hash) {
+        long value = (hash >>> segmentStart[segment]) & segmentMask[segment];
+        value *= 0x9E3779B97F4A7C15L;
+        return (int) (value ^ (value >>> 32)) & tableMask;
+    }
+}
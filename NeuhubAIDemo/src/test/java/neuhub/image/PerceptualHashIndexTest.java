@@ -0,0 +1,68 @@
+package neuhub.image;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class PerceptualHashIndexTest {
+
+    /**
+     * 高32位相同，maxDistance为1时分成两段，这些哈希在高位段落入同一个桶；两两之间相差4位，不会互相命中
+     */
+    private static long hash(int i) {
+        return 0x5A5A5A5A00000000L | (0xFL << (4 * i));
+    }
+
+    @Test
+    public void findsNearestWithinDistance() {
+        PerceptualHashIndex<String> index = new PerceptualHashIndex<>(4, 1);
+        index.put(hash(0), "a");
+        index.put(hash(1), "b");
+        assertEquals("a", index.find(hash(0)));
+        assertEquals("a", index.find(hash(0) ^ 1));
+        assertEquals("b", index.find(hash(1)));
+        assertNull(index.find(hash(2)));
+    }
+
+    @Test
+    public void evictsOldestEntryBehindNewerEntriesInBucket() {
+        PerceptualHashIndex<String> index = new PerceptualHashIndex<>(3, 1);
+        index.put(hash(0), "a");
+        index.put(hash(1), "b");
+        index.put(hash(2), "c");
+        // 桶中依次为c、b、a，淘汰排在最后的a，c和b的链不能断
+        index.put(hash(3), "d");
+        assertEquals(3, index.size());
+        assertNull(index.find(hash(0)));
+        assertEquals("b", index.find(hash(1)));
+        assertEquals("c", index.find(hash(2)));
+        assertEquals("d", index.find(hash(3)));
+    }
+
+    @Test
+    public void evictsInInsertionOrderAcrossManyRounds() {
+        int capacity = 3;
+        PerceptualHashIndex<Integer> index = new PerceptualHashIndex<>(capacity, 1);
+        for (int i = 0; i < 8; i++) {
+            index.put(hash(i), i);
+            for (int j = 0; j <= i; j++) {
+                if (j > i - capacity) {
+                    assertEquals(Integer.valueOf(j), index.find(hash(j)));
+                } else {
+                    assertNull(index.find(hash(j)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void evictsEntryWithSameHash() {
+        PerceptualHashIndex<String> index = new PerceptualHashIndex<>(2, 1);
+        index.put(hash(0), "old");
+        index.put(hash(0), "new");
+        index.put(hash(1), "b");
+        assertEquals("new", index.find(hash(0)));
+        assertEquals("b", index.find(hash(1)));
+    }
+}
@@ -0,0 +1,121 @@
+package neuhub.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * 按固定速率调用异步接口，统计延迟的分位数
+ * <ul>
+ * <li>请求按计划的时间点发出，不等上一个请求返回，压测期间速率不会因为服务变慢而降低</li>
+ * <li>延迟从计划发出的时间开始计算，因为在途请求达到上限或调度线程落后而晚发的时间也计入延迟，避免低估长尾</li>
+ * <li>成功请求的延迟记录在HdrHistogram中，单位为微秒，失败的请求只计数</li>
+ * <li>预热期间的请求不计入结果，压测期间每秒输出一次当前的速率和延迟</li>
+ * </ul>
+ * 异步接口一般使用{@link neuhub.client.NeuhubAsyncClient}，如 generator.run(() -&gt; client.lexer(...), 5, 30, TimeUnit.SECONDS)
+ */
+public class LoadGenerator {
+
+    private Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private static final long REPORT_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private final double rate;
+    private final int maxInFlight;
+
+    /**
+     * @param rate - 每秒发出的请求数
+     * @param maxInFlight - 在途请求数上限，达到上限时等待，防止服务无响应时耗尽内存
+     */
+    public LoadGenerator(double rate, int maxInFlight) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate必须大于0");
+        }
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight必须大于0");
+        }
+        this.rate = rate;
+        this.maxInFlight = maxInFlight;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * 在当前线程中发出请求，压测结束且所有在途请求返回后才返回
+     * @param call - 发起一次异步调用
+     * @param warmup - 预热时间
+     * @param duration - 压测时间，不含预热
+     * @param unit - 时间单位
+     * @return - 压测期间的统计结果
+     */
+    public LoadReport run(Supplier<? extends CompletableFuture<?>> call, long warmup, long duration, TimeUnit unit) {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        Semaphore permits = new Semaphore(maxInFlight);
+        Recorder recorder = new Recorder(3);
+        Histogram total = new Histogram(3);
+        LongAdder errors = new LongAdder();
+        long start = System.nanoTime();
+        long measureStart = start + unit.toNanos(warmup);
+        long end = measureStart + unit.toNanos(duration);
+        long nextReport = measureStart + REPORT_INTERVAL;
+        long sent = 0;
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended - end >= 0) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            permits.acquireUninterruptibly();
+            boolean measured = intended - measureStart >= 0;
+            if (measured) {
+                sent++;
+            }
+            CompletableFuture<?> future;
+            try {
+                future = call.get();
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            future.whenComplete((result, ex) -> {
+                long latency = System.nanoTime() - intended;
+                if (measured) {
+                    if (ex == null) {
+                        recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(latency));
+                    } else {
+                        errors.increment();
+                    }
+                }
+                permits.release();
+            });
+            if (System.nanoTime() - nextReport >= 0) {
+                Histogram interval = recorder.getIntervalHistogram();
+                total.add(interval);
+                logger.info("已发出{}个请求，最近1秒完成{}个，p50 {}ms，p99 {}ms，在途{}个", sent, interval.getTotalCount(),
+                        interval.getValueAtPercentile(50) / 1000.0, interval.getValueAtPercentile(99) / 1000.0,
+                        maxInFlight - permits.availablePermits());
+                nextReport += REPORT_INTERVAL;
+            }
+        }
+        permits.acquireUninterruptibly(maxInFlight);
+        total.add(recorder.getIntervalHistogram());
+        return new LoadReport(rate, sent, errors.sum(), unit.toNanos(duration), total);
+    }
+}
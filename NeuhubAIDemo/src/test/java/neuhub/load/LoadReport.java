@@ -0,0 +1,88 @@
+package neuhub.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LoadGenerator}一次压测的结果，延迟的单位均为毫秒
+ * <ul>
+ * <li>延迟只统计成功的请求，从计划发出的时间开始计算</li>
+ * <li>完整的分布可以通过{@link #outputPercentileDistribution(PrintStream)}输出，格式与HdrHistogram相同</li>
+ * </ul>
+ */
+public class LoadReport {
+
+    private final double targetRate;
+    private final long sent;
+    private final long errors;
+    private final long durationNanos;
+    private final Histogram histogram;
+
+    LoadReport(double targetRate, long sent, long errors, long durationNanos, Histogram histogram) {
+        this.targetRate = targetRate;
+        this.sent = sent;
+        this.errors = errors;
+        this.durationNanos = durationNanos;
+        this.histogram = histogram;
+    }
+
+    public double getTargetRate() {
+        return targetRate;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public long getSuccesses() {
+        return histogram.getTotalCount();
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return - 每秒成功的请求数
+     */
+    public double getThroughput() {
+        return getSuccesses() * (double) TimeUnit.SECONDS.toNanos(1) / durationNanos;
+    }
+
+    /**
+     * @param percentile - 分位数，如 99.9
+     * @return - 对应的延迟
+     */
+    public double getLatency(double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    public double getMaxLatency() {
+        return histogram.getMaxValue() / 1000.0;
+    }
+
+    public double getMeanLatency() {
+        return histogram.getMean() / 1000.0;
+    }
+
+    public Histogram getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * 输出延迟分布，单位为毫秒
+     * @param out - 输出流
+     */
+    public void outputPercentileDistribution(PrintStream out) {
+        histogram.outputPercentileDistribution(out, 1000.0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("目标速率 %.1f/s，发出 %d，成功 %d，失败 %d，吞吐 %.1f/s，延迟(ms) 平均 %.2f p50 %.2f p90 %.2f p99 %.2f p99.9 %.2f 最大 %.2f",
+                targetRate, sent, getSuccesses(), errors, getThroughput(), getMeanLatency(), getLatency(50), getLatency(90),
+                getLatency(99), getLatency(99.9), getMaxLatency());
+    }
+}
@@ -0,0 +1,58 @@
+package neuhub.metrics;
+
+import neuhub.client.NeuhubEndpoint;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestExecution;
+import org.springframework.http.client.AsyncClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureAdapter;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+
+/**
+ * 异步客户端记录请求指标的拦截器，应放在最后，不统计限流等待的时间；被取消的对冲请求记为CANCELLED
+ */
+public class MetricsInterceptor implements AsyncClientHttpRequestInterceptor {
+
+    private final NeuhubMetrics metrics;
+
+    public MetricsInterceptor(NeuhubMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ListenableFuture<ClientHttpResponse> intercept(HttpRequest request, byte[] body, AsyncClientHttpRequestExecution execution)
+            throws IOException {
+        NeuhubEndpoint endpoint = NeuhubEndpoint.fromPath(request.getURI().getPath());
+        if (endpoint == null) {
+            return execution.executeAsync(request, body);
+        }
+        NeuhubMetrics.RequestSample sample = metrics.start(NeuhubMetrics.ASYNC, endpoint);
+        ListenableFuture<ClientHttpResponse> future;
+        try {
+            future = execution.executeAsync(request, body);
+        } catch (IOException | RuntimeException e) {
+            sample.failed("IO_ERROR", body.length);
+            throw e;
+        }
+        future.addCallback(response -> {
+        }, ex -> sample.failed(ex instanceof CancellationException ? "CANCELLED" : "IO_ERROR", body.length));
+        return new ListenableFutureAdapter<ClientHttpResponse, ClientHttpResponse>(future) {
+            @Override
+            protected ClientHttpResponse adapt(ClientHttpResponse response) {
+                return new MetricsTrackingResponse(response, sample, body.length);
+            }
+
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                if (cancelled) {
+                    sample.failed("CANCELLED", body.length);
+                }
+                return cancelled;
+            }
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package neuhub.metrics;
+
+import neuhub.client.NeuhubEndpoint;
+import neuhub.http.ClientHttpRequestDecorator;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 包装同步请求，统计写出的请求体字节数，执行后返回{@link MetricsTrackingResponse}
+ */
+class MetricsTrackingRequest extends ClientHttpRequestDecorator {
+
+    private final NeuhubEndpoint endpoint;
+    private final NeuhubMetrics metrics;
+    private CountingOutputStream body;
+
+    MetricsTrackingRequest(ClientHttpRequest delegate, NeuhubEndpoint endpoint, NeuhubMetrics metrics) {
+        super(delegate);
+        this.endpoint = endpoint;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public OutputStream getBody() throws IOException {
+        if (body == null) {
+            body = new CountingOutputStream(super.getBody());
+        }
+        return body;
+    }
+
+    @Override
+    public void setBody(Body body) {
+        // 不缓冲请求体时，请求体在execute中才写出
+        super.setBody(out -> {
+            this.body = new CountingOutputStream(out);
+            body.writeTo(this.body);
+        });
+    }
+
+    @Override
+    public ClientHttpResponse execute() throws IOException {
+        NeuhubMetrics.RequestSample sample = metrics.start(NeuhubMetrics.SYNC, endpoint);
+        ClientHttpResponse response;
+        try {
+            response = super.execute();
+        } catch (IOException | RuntimeException e) {
+            sample.failed("IO_ERROR", bytesWritten());
+            throw e;
+        }
+        return new MetricsTrackingResponse(response, sample, bytesWritten());
+    }
+
+    private long bytesWritten() {
+        return body == null ? 0 : body.getCount();
+    }
+}
@@ -0,0 +1,74 @@
+package neuhub.metrics;
+
+import neuhub.response.EnvelopePrefix;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 包装响应，关闭时把状态码、返回码和响应体字节数交给{@link NeuhubMetrics}
+ * <ul>
+ * <li>只统计调用方读取过的响应体，不额外读取响应</li>
+ * <li>返回码由{@link EnvelopePrefix}从开头的字节中解析，与{@link neuhub.quota.QuotaRateLimiter}的解析方式相同</li>
+ * </ul>
+ */
+class MetricsTrackingResponse implements ClientHttpResponse {
+
+    private final ClientHttpResponse delegate;
+    private final NeuhubMetrics.RequestSample sample;
+    private final long requestBytes;
+    private final EnvelopePrefix prefix = new EnvelopePrefix();
+    private InputStream body;
+
+    MetricsTrackingResponse(ClientHttpResponse delegate, NeuhubMetrics.RequestSample sample, long requestBytes) {
+        this.delegate = delegate;
+        this.sample = sample;
+        this.requestBytes = requestBytes;
+    }
+
+    @Override
+    public HttpStatus getStatusCode() throws IOException {
+        return delegate.getStatusCode();
+    }
+
+    @Override
+    public int getRawStatusCode() throws IOException {
+        return delegate.getRawStatusCode();
+    }
+
+    @Override
+    public String getStatusText() throws IOException {
+        return delegate.getStatusText();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return delegate.getHeaders();
+    }
+
+    @Override
+    public InputStream getBody() throws IOException {
+        if (body == null) {
+            body = prefix.record(delegate.getBody());
+        }
+        return body;
+    }
+
+    @Override
+    public void close() {
+        try {
+            int status;
+            try {
+                status = delegate.getRawStatusCode();
+            } catch (IOException e) {
+                status = -1;
+            }
+            sample.complete(status, prefix.getCode(), requestBytes, prefix.getCount());
+        } finally {
+            delegate.close();
+        }
+    }
+}
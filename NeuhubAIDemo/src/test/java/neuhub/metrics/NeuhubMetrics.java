@@ -0,0 +1,248 @@
+package neuhub.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import neuhub.cache.ResponseCache;
+import neuhub.client.NeuhubEndpoint;
+import neuhub.image.ImagePreprocessor;
+import org.apache.http.pool.PoolStats;
+import org.springframework.http.client.ClientHttpRequest;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * neuhub客户端的指标，记录到{@link MeterRegistry}中，由actuator输出
+ * <ul>
+ * <li>neuhub.client.requests: 每次请求的耗时，从发出请求到响应读完，按client(sync/async)、endpoint、status、code分组，code为响应公共结构中的返回码；
+ * 输出p50、p95、p99，同时输出直方图，prometheus可以跨实例聚合分位数</li>
+ * <li>neuhub.client.request.size、neuhub.client.response.size: 请求体和响应体的字节数</li>
+ * <li>neuhub.client.requests.active: 每个接口正在进行的请求数</li>
+ * <li>neuhub.token.fetch: 获取token的耗时，按region、outcome分组，次数即刷新次数；neuhub.token.invalidated: token被网关拒绝的次数</li>
+ * <li>neuhub.http.pool.leased、available、pending、max: 连接池的统计，按client分组</li>
+ * <li>neuhub.cache.gets: 查询响应缓存的次数，按result(memory_hit/disk_hit/miss)分组；neuhub.cache.evictions: 淘汰次数，按tier分组；
+ * neuhub.cache.size: 内存中的响应数</li>
+ * <li>neuhub.image.preprocess.images: 启用预处理的图片数，按outcome(processed/skipped)分组；neuhub.image.preprocess.bytes: 缩小过的图片的字节数，
+ * 按stage(input/output)分组；neuhub.image.preprocess.bytes.saved: 少上传的字节数</li>
+ * </ul>
+ * 限流等待的时间不计入请求耗时，命中缓存的调用不发出请求，也不记录；每次重试都单独记录
+ */
+public class NeuhubMetrics {
+
+    public static final String REQUESTS = "neuhub.client.requests";
+    public static final String SYNC = "sync";
+    public static final String ASYNC = "async";
+
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(30);
+
+    private final MeterRegistry registry;
+    private final Map<NeuhubEndpoint, AtomicInteger> active = new ConcurrentHashMap<>();
+    /**
+     * gauge只弱引用读取的对象，需要在这里保留连接池统计的引用
+     */
+    private final List<Supplier<PoolStats>> pools = new CopyOnWriteArrayList<>();
+
+    public NeuhubMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * 包装同步请求，执行时开始计时，响应关闭时记录
+     * @param endpoint - 接口
+     * @param request - 请求
+     * @return - 包装后的请求
+     */
+    public ClientHttpRequest track(NeuhubEndpoint endpoint, ClientHttpRequest request) {
+        return new MetricsTrackingRequest(request, endpoint, this);
+    }
+
+    /**
+     * 统计连接池，同一个client只应调用一次
+     * @param client - sync或async
+     * @param stats - 读取连接池的整体统计
+     */
+    public void bindConnectionPool(String client, Supplier<PoolStats> stats) {
+        pools.add(stats);
+        Gauge.builder("neuhub.http.pool.leased", stats, s -> s.get().getLeased()).tag("client", client)
+                .description("正在使用的连接数").register(registry);
+        Gauge.builder("neuhub.http.pool.available", stats, s -> s.get().getAvailable()).tag("client", client)
+                .description("空闲可复用的连接数").register(registry);
+        Gauge.builder("neuhub.http.pool.pending", stats, s -> s.get().getPending()).tag("client", client)
+                .description("正在等待连接的请求数").register(registry);
+        Gauge.builder("neuhub.http.pool.max", stats, s -> s.get().getMax()).tag("client", client)
+                .description("连接数上限").register(registry);
+    }
+
+    /**
+     * 统计响应缓存，只应调用一次
+     * @param cache - 响应缓存
+     */
+    public void bindResponseCache(ResponseCache cache) {
+        FunctionCounter.builder("neuhub.cache.gets", cache, c -> c.getHits() - c.getDiskHits()).tag("result", "memory_hit")
+                .description("查询响应缓存的次数").register(registry);
+        FunctionCounter.builder("neuhub.cache.gets", cache, ResponseCache::getDiskHits).tag("result", "disk_hit")
+                .description("查询响应缓存的次数").register(registry);
+        FunctionCounter.builder("neuhub.cache.gets", cache, ResponseCache::getMisses).tag("result", "miss")
+                .description("查询响应缓存的次数").register(registry);
+        FunctionCounter.builder("neuhub.cache.evictions", cache, ResponseCache::getEvictions).tag("tier", "memory")
+                .description("淘汰的响应数").register(registry);
+        FunctionCounter.builder("neuhub.cache.evictions", cache, ResponseCache::getDiskEvictions).tag("tier", "disk")
+                .description("淘汰的响应数").register(registry);
+        Gauge.builder("neuhub.cache.size", cache, ResponseCache::getMemorySize).tag("tier", "memory")
+                .description("缓存的响应数").register(registry);
+    }
+
+    /**
+     * 统计图片预处理，只应调用一次
+     * @param preprocessor - 图片预处理
+     */
+    public void bindImagePreprocessor(ImagePreprocessor preprocessor) {
+        FunctionCounter.builder("neuhub.image.preprocess.images", preprocessor, ImagePreprocessor::getProcessed).tag("outcome", "processed")
+                .description("启用预处理的图片数").register(registry);
+        FunctionCounter.builder("neuhub.image.preprocess.images", preprocessor, ImagePreprocessor::getSkipped).tag("outcome", "skipped")
+                .description("启用预处理的图片数").register(registry);
+        FunctionCounter.builder("neuhub.image.preprocess.bytes", preprocessor, ImagePreprocessor::getInputBytes).tag("stage", "input")
+                .baseUnit("bytes").description("缩小过的图片的字节数").register(registry);
+        FunctionCounter.builder("neuhub.image.preprocess.bytes", preprocessor, ImagePreprocessor::getOutputBytes).tag("stage", "output")
+                .baseUnit("bytes").description("缩小过的图片的字节数").register(registry);
+        FunctionCounter.builder("neuhub.image.preprocess.bytes.saved", preprocessor, ImagePreprocessor::getBytesSaved)
+                .baseUnit("bytes").description("少上传的字节数，不含Base64编码的膨胀").register(registry);
+    }
+
+    /**
+     * @param region - token管理器的名称
+     * @param nanos - 获取token的耗时
+     * @param success - 是否成功
+     */
+    public void recordTokenFetch(String region, long nanos, boolean success) {
+        Timer.builder("neuhub.token.fetch")
+                .tag("region", region)
+                .tag("outcome", success ? "SUCCESS" : "FAILURE")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTokenInvalidated(String region) {
+        Counter.builder("neuhub.token.invalidated").tag("region", region).register(registry).increment();
+    }
+
+    /**
+     * @param unit - 时间单位
+     * @return - 各接口请求的累计耗时，从大到小排列，用于查看哪个接口占用的时间最多
+     */
+    public Map<String, Double> totalTimeByEndpoint(TimeUnit unit) {
+        Map<String, Double> totals = new HashMap<>();
+        for (Timer timer : registry.find(REQUESTS).timers()) {
+            totals.merge(timer.getId().getTag("endpoint"), timer.totalTime(unit), Double::sum);
+        }
+        Map<String, Double> sorted = new LinkedHashMap<>();
+        totals.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    /**
+     * 开始一次请求，之后必须调用返回对象的complete或failed
+     * @param client - sync或async
+     * @param endpoint - 接口
+     * @return - 本次请求的记录
+     */
+    RequestSample start(String client, NeuhubEndpoint endpoint) {
+        activeOf(endpoint).incrementAndGet();
+        return new RequestSample(client, endpoint);
+    }
+
+    private AtomicInteger activeOf(NeuhubEndpoint endpoint) {
+        return active.computeIfAbsent(endpoint, key -> {
+            AtomicInteger count = new AtomicInteger();
+            Gauge.builder("neuhub.client.requests.active", count, AtomicInteger::get).tag("endpoint", key.name()).register(registry);
+            return count;
+        });
+    }
+
+    /**
+     * 一次请求的记录，只能结束一次
+     */
+    class RequestSample {
+
+        private final String client;
+        private final NeuhubEndpoint endpoint;
+        private final long startNanos = System.nanoTime();
+        private boolean finished;
+
+        private RequestSample(String client, NeuhubEndpoint endpoint) {
+            this.client = client;
+            this.endpoint = endpoint;
+        }
+
+        /**
+         * @param status - http状态码
+         * @param code - 公共结构中的返回码，没有读取到时为null
+         * @param requestBytes - 请求体的字节数，未知时小于0
+         * @param responseBytes - 调用方读取的响应体字节数
+         */
+        synchronized void complete(int status, String code, long requestBytes, long responseBytes) {
+            if (finish(Integer.toString(status), code == null ? "NONE" : code, requestBytes)) {
+                summary("neuhub.client.response.size").record(responseBytes);
+            }
+        }
+
+        /**
+         * @param status - 请求没有得到响应的原因，如 IO_ERROR、CANCELLED
+         * @param requestBytes - 请求体的字节数，未知时小于0
+         */
+        synchronized void failed(String status, long requestBytes) {
+            finish(status, "NONE", requestBytes);
+        }
+
+        private boolean finish(String status, String code, long requestBytes) {
+            if (finished) {
+                return false;
+            }
+            finished = true;
+            activeOf(endpoint).decrementAndGet();
+            Timer.builder(REQUESTS)
+                    .tag("client", client)
+                    .tag("endpoint", endpoint.name())
+                    .tag("status", status)
+                    .tag("code", code)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(MIN_EXPECTED)
+                    .maximumExpectedValue(MAX_EXPECTED)
+                    .register(registry)
+                    .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            if (requestBytes >= 0) {
+                summary("neuhub.client.request.size").record(requestBytes);
+            }
+            return true;
+        }
+
+        private DistributionSummary summary(String name) {
+            return DistributionSummary.builder(name)
+                    .baseUnit("bytes")
+                    .tag("client", client)
+                    .tag("endpoint", endpoint.name())
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package neuhub.properties;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * 语音识别接口的请求头，各字段含义见{@link neuhub.NeuhubAIDemoTester#asr()}
+ */
+public class AsrHeaders {
+    private String domain;
+    private String applicationId;
+    private String requestId;
+    private int sequenceId;
+    private int asrProtocol;
+    private int netState;
+    private int applicator;
+    private AsrProperty property;
+
+    public AsrHeaders(String domain, String applicationId, String requestId, int sequenceId, int asrProtocol,
+                      int netState, int applicator, AsrProperty property) {
+        this.domain = domain;
+        this.applicationId = applicationId;
+        this.requestId = requestId;
+        this.sequenceId = sequenceId;
+        this.asrProtocol = asrProtocol;
+        this.netState = netState;
+        this.applicator = applicator;
+        this.property = property;
+    }
+
+    public HttpHeaders toHttpHeaders() {
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.set("Domain", domain);
+        httpHeaders.set("Application-Id", applicationId);
+        httpHeaders.set("Request-Id", requestId);
+        httpHeaders.set("Sequence-Id", Integer.toString(sequenceId));
+        httpHeaders.set("Asr-Protocol", Integer.toString(asrProtocol));
+        httpHeaders.set("Net-State", Integer.toString(netState));
+        httpHeaders.set("Applicator", Integer.toString(applicator));
+        httpHeaders.set("property", property.toString());
+        return httpHeaders;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public void setDomain(String domain) {
+        this.domain = domain;
+    }
+
+    public String getApplicationId() {
+        return applicationId;
+    }
+
+    public void setApplicationId(String applicationId) {
+        this.applicationId = applicationId;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+
+    public int getSequenceId() {
+        return sequenceId;
+    }
+
+    public void setSequenceId(int sequenceId) {
+        this.sequenceId = sequenceId;
+    }
+
+    public int getAsrProtocol() {
+        return asrProtocol;
+    }
+
+    public void setAsrProtocol(int asrProtocol) {
+        this.asrProtocol = asrProtocol;
+    }
+
+    public int getNetState() {
+        return netState;
+    }
+
+    public void setNetState(int netState) {
+        this.netState = netState;
+    }
+
+    public int getApplicator() {
+        return applicator;
+    }
+
+    public void setApplicator(int applicator) {
+        this.applicator = applicator;
+    }
+
+    public AsrProperty getProperty() {
+        return property;
+    }
+
+    public void setProperty(AsrProperty property) {
+        this.property = property;
+    }
+}
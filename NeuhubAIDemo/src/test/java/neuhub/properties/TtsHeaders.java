@@ -0,0 +1,95 @@
+package neuhub.properties;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * 语音合成接口的请求头，各字段含义见{@link neuhub.NeuhubAIDemoTester#tts()}
+ */
+public class TtsHeaders {
+    private String serviceType;
+    private String requestId;
+    private int sequenceId;
+    private int protocol;
+    private int netState;
+    private int applicator;
+    private TtsProperty property;
+
+    public TtsHeaders(String serviceType, String requestId, int sequenceId, int protocol, int netState,
+                      int applicator, TtsProperty property) {
+        this.serviceType = serviceType;
+        this.requestId = requestId;
+        this.sequenceId = sequenceId;
+        this.protocol = protocol;
+        this.netState = netState;
+        this.applicator = applicator;
+        this.property = property;
+    }
+
+    public HttpHeaders toHttpHeaders() {
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.set("Service-Type", serviceType);
+        httpHeaders.set("Request-Id", requestId);
+        httpHeaders.set("Sequence-Id", Integer.toString(sequenceId));
+        httpHeaders.set("Protocol", Integer.toString(protocol));
+        httpHeaders.set("Net-State", Integer.toString(netState));
+        httpHeaders.set("Applicator", Integer.toString(applicator));
+        httpHeaders.set("property", property.toString());
+        return httpHeaders;
+    }
+
+    public String getServiceType() {
+        return serviceType;
+    }
+
+    public void setServiceType(String serviceType) {
+        this.serviceType = serviceType;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+
+    public int getSequenceId() {
+        return sequenceId;
+    }
+
+    public void setSequenceId(int sequenceId) {
+        this.sequenceId = sequenceId;
+    }
+
+    public int getProtocol() {
+        return protocol;
+    }
+
+    public void setProtocol(int protocol) {
+        this.protocol = protocol;
+    }
+
+    public int getNetState() {
+        return netState;
+    }
+
+    public void setNetState(int netState) {
+        this.netState = netState;
+    }
+
+    public int getApplicator() {
+        return applicator;
+    }
+
+    public void setApplicator(int applicator) {
+        this.applicator = applicator;
+    }
+
+    public TtsProperty getProperty() {
+        return property;
+    }
+
+    public void setProperty(TtsProperty property) {
+        this.property = property;
+    }
+}
@@ -0,0 +1,21 @@
+package neuhub.quota;
+
+import neuhub.client.NeuhubEndpoint;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * 请求被客户端限流拒绝，请求没有发出，不消耗额度
+ */
+public class QuotaExceededException extends RestClientException {
+
+    private final NeuhubEndpoint endpoint;
+
+    public QuotaExceededException(NeuhubEndpoint endpoint, String msg) {
+        super(msg);
+        this.endpoint = endpoint;
+    }
+
+    public NeuhubEndpoint getEndpoint() {
+        return endpoint;
+    }
+}
@@ -0,0 +1,72 @@
+package neuhub.quota;
+
+import neuhub.client.NeuhubEndpoint;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestExecution;
+import org.springframework.http.client.AsyncClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 异步客户端的限流拦截器，需要等待时延迟发送，不阻塞调用线程，取消返回的future时同时取消实际的请求
+ */
+public class QuotaRateLimitInterceptor implements AsyncClientHttpRequestInterceptor {
+
+    private final QuotaRateLimiter rateLimiter;
+
+    public QuotaRateLimitInterceptor(QuotaRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public ListenableFuture<ClientHttpResponse> intercept(HttpRequest request, byte[] body, AsyncClientHttpRequestExecution execution)
+            throws IOException {
+        NeuhubEndpoint endpoint = NeuhubEndpoint.fromPath(request.getURI().getPath());
+        if (endpoint == null) {
+            return execution.executeAsync(request, body);
+        }
+        AtomicReference<ListenableFuture<ClientHttpResponse>> sent = new AtomicReference<>();
+        SettableListenableFuture<ClientHttpResponse> result = new SettableListenableFuture<ClientHttpResponse>() {
+            @Override
+            protected void interruptTask() {
+                // 取消时同时取消已经发出的请求
+                ListenableFuture<ClientHttpResponse> future = sent.get();
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+        };
+        long waitNanos;
+        try {
+            waitNanos = rateLimiter.reserve(endpoint);
+        } catch (QuotaExceededException e) {
+            result.setException(e);
+            return result;
+        }
+        Runnable send = () -> {
+            if (result.isCancelled()) {
+                return;
+            }
+            try {
+                ListenableFuture<ClientHttpResponse> future = execution.executeAsync(request, body);
+                sent.set(future);
+                if (result.isCancelled()) {
+                    future.cancel(true);
+                }
+                future.addCallback(response -> result.set(rateLimiter.track(endpoint, response)), result::setException);
+            } catch (IOException | RuntimeException e) {
+                result.setException(e);
+            }
+        };
+        if (waitNanos > 0) {
+            rateLimiter.schedule(send, waitNanos);
+        } else {
+            send.run();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,183 @@
+package neuhub.quota;
+
+import neuhub.client.NeuhubEndpoint;
+import neuhub.configuration.NeuhubRateLimitProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.Closeable;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按接口限流，请求发出前在客户端等待或拒绝，避免把额度用完或触发网关限流
+ * <ul>
+ * <li>每个接口一个令牌桶，速率来自{@link NeuhubRateLimitProperties}，未配置速率的接口不限速</li>
+ * <li>从响应的公共结构中读取remainTimes：低于low-remain-times时按比例降低速率，为0时暂停该接口exhausted-backoff</li>
+ * <li>网关返回429时按Retry-After暂停该接口</li>
+ * <li>需要等待的时间超过max-wait时抛出{@link QuotaExceededException}，请求不会发出</li>
+ * </ul>
+ * 同步客户端见{@link neuhub.client.NeuhubRestTemplate}，异步客户端见{@link QuotaRateLimitInterceptor}
+ */
+public class QuotaRateLimiter implements Closeable {
+
+    private Logger logger = LoggerFactory.getLogger(QuotaRateLimiter.class);
+
+    private final NeuhubRateLimitProperties properties;
+    private final Map<NeuhubEndpoint, EndpointQuota> quotas = new EnumMap<>(NeuhubEndpoint.class);
+    private final ScheduledExecutorService scheduler;
+
+    public QuotaRateLimiter(NeuhubRateLimitProperties properties) {
+        this.properties = properties;
+        for (String name : properties.getEndpoints().keySet()) {
+            NeuhubEndpoint.valueOf(name);
+        }
+        long now = System.nanoTime();
+        for (NeuhubEndpoint endpoint : NeuhubEndpoint.values()) {
+            Double rate = properties.getEndpoints().get(endpoint.name());
+            quotas.put(endpoint, new EndpointQuota(rate != null ? rate : properties.getPermitsPerSecond(), now));
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "neuhub-rate-limiter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 取得一个请求许可，需要等待时阻塞当前线程
+     * @param endpoint - 调用的接口
+     * @throws QuotaExceededException - 需要等待的时间超过max-wait
+     */
+    public void acquire(NeuhubEndpoint endpoint) {
+        long waitNanos = reserve(endpoint);
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new QuotaExceededException(endpoint, "等待限流时线程被中断");
+            }
+        }
+    }
+
+    /**
+     * 预约一个请求许可，不阻塞
+     * @param endpoint - 调用的接口
+     * @return - 发出请求前需要等待的时间，单位为纳秒
+     * @throws QuotaExceededException - 需要等待的时间超过max-wait
+     */
+    public long reserve(NeuhubEndpoint endpoint) {
+        EndpointQuota quota = quotas.get(endpoint);
+        long now = System.nanoTime();
+        long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(properties.getMaxWait());
+        long blockedNanos = Math.max(0, quota.blockedUntilNanos.get() - now);
+        if (blockedNanos > maxWaitNanos) {
+            throw new QuotaExceededException(endpoint, String.format("%s已暂停，%dms后恢复", endpoint,
+                    TimeUnit.NANOSECONDS.toMillis(blockedNanos)));
+        }
+        if (quota.bucket == null) {
+            return blockedNanos;
+        }
+        long waitNanos = quota.bucket.reserve(now + blockedNanos, maxWaitNanos - blockedNanos);
+        if (waitNanos < 0) {
+            throw new QuotaExceededException(endpoint, String.format("%s的请求速率超过%.2f次/秒", endpoint, quota.bucket.getRate()));
+        }
+        return blockedNanos + waitNanos;
+    }
+
+    /**
+     * @return - 接口当前的速率，不限速时返回0
+     */
+    public double getRate(NeuhubEndpoint endpoint) {
+        TokenBucket bucket = quotas.get(endpoint).bucket;
+        return bucket == null ? 0 : bucket.getRate();
+    }
+
+    /**
+     * 包装请求，响应关闭时从中读取额度信息
+     */
+    public ClientHttpRequest track(NeuhubEndpoint endpoint, ClientHttpRequest request) {
+        return new QuotaTrackingRequest(request, endpoint, this);
+    }
+
+    /**
+     * 包装响应，响应关闭时从中读取额度信息
+     */
+    public ClientHttpResponse track(NeuhubEndpoint endpoint, ClientHttpResponse response) {
+        return new QuotaTrackingResponse(response, endpoint, this);
+    }
+
+    void schedule(Runnable task, long delayNanos) {
+        scheduler.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 根据响应调整接口的速率
+     * @param remainTimes - 响应中的剩余调用次数，响应中没有时为-1
+     */
+    void observe(NeuhubEndpoint endpoint, int status, HttpHeaders headers, long remainTimes) {
+        EndpointQuota quota = quotas.get(endpoint);
+        long now = System.nanoTime();
+        if (status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            long backoff = retryAfter(headers);
+            logger.warn("{}被网关限流，暂停{}ms", endpoint, backoff);
+            quota.block(now + TimeUnit.MILLISECONDS.toNanos(backoff));
+        } else if (remainTimes == 0) {
+            logger.warn("{}的剩余调用次数已用完，暂停{}ms", endpoint, properties.getExhaustedBackoff());
+            quota.block(now + TimeUnit.MILLISECONDS.toNanos(properties.getExhaustedBackoff()));
+        } else if (remainTimes > 0 && quota.bucket != null) {
+            double factor = remainTimes < properties.getLowRemainTimes()
+                    ? Math.max(0.1, (double) remainTimes / properties.getLowRemainTimes()) : 1;
+            double rate = quota.configuredRate * factor;
+            if (rate != quota.bucket.getRate()) {
+                logger.info("{}的剩余调用次数为{}，速率调整为{}次/秒", endpoint, remainTimes, rate);
+                quota.bucket.setRate(rate, now);
+            }
+        }
+    }
+
+    private long retryAfter(HttpHeaders headers) {
+        String retryAfter = headers.getFirst("Retry-After");
+        if (retryAfter != null) {
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+            } catch (NumberFormatException e) {
+                logger.debug("无法解析Retry-After: {}", retryAfter);
+            }
+        }
+        return properties.getThrottledBackoff();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private static class EndpointQuota {
+        private final double configuredRate;
+        private final TokenBucket bucket;
+        /**
+         * 在这个时间之前暂停发送请求
+         */
+        private final AtomicLong blockedUntilNanos;
+
+        private EndpointQuota(double configuredRate, long nowNanos) {
+            this.configuredRate = configuredRate;
+            this.bucket = configuredRate > 0 ? new TokenBucket(configuredRate, nowNanos) : null;
+            this.blockedUntilNanos = new AtomicLong(nowNanos);
+        }
+
+        private void block(long untilNanos) {
+            blockedUntilNanos.accumulateAndGet(untilNanos, (current, update) -> update - current > 0 ? update : current);
+        }
+    }
+}
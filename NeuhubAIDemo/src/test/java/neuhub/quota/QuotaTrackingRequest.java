@@ -0,0 +1,28 @@
+package neuhub.quota;
+
+import neuhub.client.NeuhubEndpoint;
+import neuhub.http.ClientHttpRequestDecorator;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * 包装同步请求，执行后返回{@link QuotaTrackingResponse}
+ */
+class QuotaTrackingRequest extends ClientHttpRequestDecorator {
+
+    private final NeuhubEndpoint endpoint;
+    private final QuotaRateLimiter rateLimiter;
+
+    QuotaTrackingRequest(ClientHttpRequest delegate, NeuhubEndpoint endpoint, QuotaRateLimiter rateLimiter) {
+        super(delegate);
+        this.endpoint = endpoint;
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public ClientHttpResponse execute() throws IOException {
+        return rateLimiter.track(endpoint, super.execute());
+    }
+}
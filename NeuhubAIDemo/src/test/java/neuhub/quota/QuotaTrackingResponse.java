@@ -0,0 +1,75 @@
+package neuhub.quota;
+
+import neuhub.client.NeuhubEndpoint;
+import neuhub.response.EnvelopePrefix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 包装响应，关闭时把状态码和剩余调用次数交给{@link QuotaRateLimiter}
+ * <ul>
+ * <li>只记录调用方读取过的响应体的开头，不额外读取响应</li>
+ * <li>公共结构中remainTimes排在result之前，由{@link EnvelopePrefix}从开头的字节中解析</li>
+ * </ul>
+ */
+class QuotaTrackingResponse implements ClientHttpResponse {
+
+    private Logger logger = LoggerFactory.getLogger(QuotaTrackingResponse.class);
+
+    private final ClientHttpResponse delegate;
+    private final NeuhubEndpoint endpoint;
+    private final QuotaRateLimiter rateLimiter;
+    private final EnvelopePrefix prefix = new EnvelopePrefix();
+    private InputStream body;
+
+    QuotaTrackingResponse(ClientHttpResponse delegate, NeuhubEndpoint endpoint, QuotaRateLimiter rateLimiter) {
+        this.delegate = delegate;
+        this.endpoint = endpoint;
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public HttpStatus getStatusCode() throws IOException {
+        return delegate.getStatusCode();
+    }
+
+    @Override
+    public int getRawStatusCode() throws IOException {
+        return delegate.getRawStatusCode();
+    }
+
+    @Override
+    public String getStatusText() throws IOException {
+        return delegate.getStatusText();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return delegate.getHeaders();
+    }
+
+    @Override
+    public InputStream getBody() throws IOException {
+        if (body == null) {
+            body = prefix.record(delegate.getBody());
+        }
+        return body;
+    }
+
+    @Override
+    public void close() {
+        try {
+            rateLimiter.observe(endpoint, delegate.getRawStatusCode(), delegate.getHeaders(), prefix.getRemainTimes());
+        } catch (Exception e) {
+            logger.debug("读取{}的额度信息失败", endpoint, e);
+        } finally {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package neuhub.quota;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶，最多积攒1秒的令牌
+ * <ul>
+ * <li>令牌不足时不阻塞，而是预约下一个令牌并返回需要等待的时间，同步调用可以sleep，异步调用可以延迟发送</li>
+ * <li>速率可以随时调整，已经积攒的令牌保留</li>
+ * </ul>
+ */
+class TokenBucket {
+
+    private double permitsPerSecond;
+    private double storedPermits;
+    private double maxPermits;
+    private double intervalNanos;
+    /**
+     * 下一个令牌可用的时间，可能在将来，表示已经有请求预约了之后的令牌
+     */
+    private long nextFreeNanos;
+
+    TokenBucket(double permitsPerSecond, long nowNanos) {
+        this.nextFreeNanos = nowNanos;
+        setRate(permitsPerSecond, nowNanos);
+        this.storedPermits = maxPermits;
+    }
+
+    synchronized double getRate() {
+        return permitsPerSecond;
+    }
+
+    synchronized void setRate(double permitsPerSecond, long nowNanos) {
+        resync(nowNanos);
+        this.permitsPerSecond = permitsPerSecond;
+        this.maxPermits = Math.max(1, permitsPerSecond);
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.storedPermits = Math.min(storedPermits, maxPermits);
+    }
+
+    /**
+     * 预约一个令牌
+     * @param nowNanos - 当前时间
+     * @param maxWaitNanos - 最多等待的时间
+     * @return - 需要等待的时间，超过maxWaitNanos时不预约，返回-1
+     */
+    synchronized long reserve(long nowNanos, long maxWaitNanos) {
+        resync(nowNanos);
+        long waitNanos = Math.max(0, nextFreeNanos - nowNanos);
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        double stored = Math.min(1, storedPermits);
+        storedPermits -= stored;
+        nextFreeNanos += (long) ((1 - stored) * intervalNanos);
+        return waitNanos;
+    }
+
+    private void resync(long nowNanos) {
+        if (nowNanos > nextFreeNanos) {
+            storedPermits = Math.min(maxPermits, storedPermits + (nowNanos - nextFreeNanos) / intervalNanos);
+            nextFreeNanos = nowNanos;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package neuhub.quota;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long INTERVAL = SECOND / 10;
+
+    @Test
+    public void burstsUpToOneSecondOfPermits() {
+        TokenBucket bucket = new TokenBucket(10, 0);
+        // 积攒的10个令牌和预约的第11个都不需要等待，第12个等待一个间隔
+        for (int i = 0; i < 11; i++) {
+            assertEquals(0, bucket.reserve(0, 0));
+        }
+        assertEquals(INTERVAL, bucket.reserve(0, SECOND));
+        assertEquals(2 * INTERVAL, bucket.reserve(0, SECOND));
+    }
+
+    @Test
+    public void rejectionDoesNotReserve() {
+        TokenBucket bucket = new TokenBucket(1, 0);
+        assertEquals(0, bucket.reserve(0, 0));
+        assertEquals(0, bucket.reserve(0, 0));
+        assertEquals(-1, bucket.reserve(0, SECOND - 1));
+        assertEquals(SECOND, bucket.reserve(0, SECOND));
+    }
+
+    @Test
+    public void refillsWhileIdle() {
+        TokenBucket bucket = new TokenBucket(10, 0);
+        for (int i = 0; i < 11; i++) {
+            bucket.reserve(0, 0);
+        }
+        long now = 5 * SECOND;
+        for (int i = 0; i < 11; i++) {
+            assertEquals(0, bucket.reserve(now, 0));
+        }
+        assertEquals(-1, bucket.reserve(now, 0));
+    }
+
+    @Test
+    public void setRateKeepsStoredPermitsUpToNewMaximum() {
+        TokenBucket bucket = new TokenBucket(10, 0);
+        bucket.setRate(2, 0);
+        assertEquals(2, bucket.getRate(), 0);
+        // 积攒的令牌减到新上限2个，再加上预约的1个
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.reserve(0, 0));
+        }
+        assertEquals(SECOND / 2, bucket.reserve(0, SECOND));
+    }
+}
@@ -0,0 +1,119 @@
+package neuhub.resilience;
+
+/**
+ * 单个接口的熔断器，统计最近window-size次调用中网关错误的比例
+ * <ul>
+ * <li>关闭：请求正常发出，错误率达到阈值时打开</li>
+ * <li>打开：拒绝所有请求，open-time后转为半开</li>
+ * <li>半开：只放行一个试探请求，成功则关闭并清空统计，失败则重新打开</li>
+ * </ul>
+ */
+class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final boolean[] failures;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private State state = State.CLOSED;
+    private int next;
+    private int calls;
+    private int failureCount;
+    private long openUntil;
+    private boolean trialInFlight;
+
+    CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openNanos) {
+        this.failures = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openNanos;
+    }
+
+    /**
+     * @return - 是否放行这次请求，放行后必须调用{@link #record(boolean, long)}或{@link #release()}
+     */
+    synchronized boolean tryAcquire(long now) {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now - openUntil < 0) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            default:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    /**
+     * @param failure - 是否为网关错误
+     * @return - 这次记录是否使熔断器打开
+     */
+    synchronized boolean record(boolean failure, long now) {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+            if (failure) {
+                open(now);
+                return true;
+            }
+            reset();
+            return false;
+        }
+        if (state == State.OPEN) {
+            // 打开前已经放行的请求
+            return false;
+        }
+        if (calls == failures.length) {
+            if (failures[next]) {
+                failureCount--;
+            }
+        } else {
+            calls++;
+        }
+        failures[next] = failure;
+        if (failure) {
+            failureCount++;
+        }
+        next = (next + 1) % failures.length;
+        if (failure && calls >= minimumCalls && failureCount >= failureRateThreshold * calls) {
+            open(now);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 放行的请求被取消、没有结果时调用，半开状态下允许发出下一个试探请求，不计入统计
+     */
+    synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void open(long now) {
+        state = State.OPEN;
+        openUntil = now + openNanos;
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        next = 0;
+        calls = 0;
+        failureCount = 0;
+    }
+}
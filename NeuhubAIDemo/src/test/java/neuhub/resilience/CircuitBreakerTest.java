@@ -0,0 +1,94 @@
+package neuhub.resilience;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+
+    private static final long OPEN_NANOS = 100;
+
+    /**
+     * 窗口4次，至少2次调用，错误率50%时打开，在时间0打开
+     */
+    private CircuitBreaker open() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 2, 0.5, OPEN_NANOS);
+        assertTrue(breaker.tryAcquire(0));
+        assertFalse(breaker.record(true, 0));
+        assertTrue(breaker.tryAcquire(0));
+        assertTrue(breaker.record(true, 0));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+
+    @Test
+    public void staysClosedBelowMinimumCalls() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 2, 0.5, OPEN_NANOS);
+        assertFalse(breaker.record(true, 0));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void rejectsUntilOpenTimeElapses() {
+        CircuitBreaker breaker = open();
+        assertFalse(breaker.tryAcquire(OPEN_NANOS - 1));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void halfOpenAllowsSingleTrial() {
+        CircuitBreaker breaker = open();
+        assertTrue(breaker.tryAcquire(OPEN_NANOS));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(OPEN_NANOS + 1));
+    }
+
+    @Test
+    public void successfulTrialClosesAndClearsStatistics() {
+        CircuitBreaker breaker = open();
+        assertTrue(breaker.tryAcquire(OPEN_NANOS));
+        assertFalse(breaker.record(false, OPEN_NANOS));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        // 之前的两次错误已清空，一次错误低于最少调用数
+        assertFalse(breaker.record(true, OPEN_NANOS));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void failedTrialReopens() {
+        CircuitBreaker breaker = open();
+        assertTrue(breaker.tryAcquire(OPEN_NANOS));
+        assertTrue(breaker.record(true, OPEN_NANOS));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(2 * OPEN_NANOS - 1));
+        assertTrue(breaker.tryAcquire(2 * OPEN_NANOS));
+    }
+
+    @Test
+    public void releaseLetsNextTrialThrough() {
+        CircuitBreaker breaker = open();
+        assertTrue(breaker.tryAcquire(OPEN_NANOS));
+        breaker.release();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire(OPEN_NANOS + 1));
+        assertFalse(breaker.tryAcquire(OPEN_NANOS + 2));
+    }
+
+    @Test
+    public void releaseWhenClosedIsNotCounted() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 2, 0.5, OPEN_NANOS);
+        assertFalse(breaker.record(true, 0));
+        breaker.release();
+        assertTrue(breaker.record(true, 0));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void lateResultsWhileOpenAreIgnored() {
+        CircuitBreaker breaker = open();
+        assertFalse(breaker.record(false, 1));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
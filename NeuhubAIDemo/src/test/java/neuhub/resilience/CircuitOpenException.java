@@ -0,0 +1,21 @@
+package neuhub.resilience;
+
+import neuhub.client.NeuhubEndpoint;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * 接口处于熔断状态，请求没有发出
+ */
+public class CircuitOpenException extends RestClientException {
+
+    private final NeuhubEndpoint endpoint;
+
+    public CircuitOpenException(NeuhubEndpoint endpoint, String msg) {
+        super(msg);
+        this.endpoint = endpoint;
+    }
+
+    public NeuhubEndpoint getEndpoint() {
+        return endpoint;
+    }
+}
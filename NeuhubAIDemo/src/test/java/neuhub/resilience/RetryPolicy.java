@@ -0,0 +1,155 @@
+package neuhub.resilience;
+
+import neuhub.client.NeuhubEndpoint;
+import neuhub.client.NeuhubFailures;
+import neuhub.configuration.NeuhubRetryProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 按接口重试和熔断，避免偶发的5xx或超时导致整个调用失败，也避免网关故障时重试放大流量
+ * <ul>
+ * <li>能否重试由{@link NeuhubFailures#isRetryable}判断：请求没有发出时总是重试，发出后只重试幂等的接口</li>
+ * <li>重试前按指数退避等待，等待时间在0到上限之间随机，避免大量客户端同时重试</li>
+ * <li>每个请求积累budget-ratio个重试额度，重试一次消耗1个，额度用完时不再重试</li>
+ * <li>每个接口一个熔断器，最近的调用中网关错误过多时直接抛出{@link CircuitOpenException}，不再发出请求</li>
+ * </ul>
+ * 同步客户端见{@link neuhub.client.NeuhubRestTemplate}，异步客户端只使用熔断
+ */
+public class RetryPolicy {
+
+    /**
+     * 重试额度的上限，同时也是初始的额度，偶尔调用一次的接口也能重试
+     */
+    private static final double MAX_BUDGET = 10;
+
+    private Logger logger = LoggerFactory.getLogger(RetryPolicy.class);
+
+    private final NeuhubRetryProperties properties;
+    private final Map<NeuhubEndpoint, CircuitBreaker> breakers = new EnumMap<>(NeuhubEndpoint.class);
+    private final Map<NeuhubEndpoint, Integer> maxAttempts = new EnumMap<>(NeuhubEndpoint.class);
+    private final AtomicLong retries = new AtomicLong();
+    private double budget = MAX_BUDGET;
+
+    public RetryPolicy(NeuhubRetryProperties properties) {
+        this.properties = properties;
+        for (String name : properties.getEndpoints().keySet()) {
+            NeuhubEndpoint.valueOf(name);
+        }
+        long openNanos = TimeUnit.MILLISECONDS.toNanos(properties.getOpenTime());
+        for (NeuhubEndpoint endpoint : NeuhubEndpoint.values()) {
+            Integer attempts = properties.getEndpoints().get(endpoint.name());
+            maxAttempts.put(endpoint, Math.max(1, attempts != null ? attempts : properties.getMaxAttempts()));
+            breakers.put(endpoint, new CircuitBreaker(properties.getWindowSize(), properties.getMinimumCalls(),
+                    properties.getFailureRateThreshold(), openNanos));
+        }
+    }
+
+    /**
+     * 调用接口，失败时按策略重试，阻塞当前线程
+     * @param endpoint - 调用的接口
+     * @param call - 一次完整的调用，每次重试重新执行
+     * @return - 调用结果
+     * @throws CircuitOpenException - 接口处于熔断状态
+     */
+    public <T> T execute(NeuhubEndpoint endpoint, Supplier<T> call) {
+        onRequest();
+        for (int attempt = 1; ; attempt++) {
+            acquire(endpoint);
+            T result;
+            try {
+                result = call.get();
+            } catch (RuntimeException e) {
+                record(endpoint, e);
+                if (attempt >= maxAttempts.get(endpoint) || !NeuhubFailures.isRetryable(endpoint, e) || !tryRetry()) {
+                    throw e;
+                }
+                long backoff = backoffMillis(attempt);
+                logger.warn("{}第{}次调用失败，{}ms后重试: {}", endpoint, attempt, backoff, e.toString());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                continue;
+            } catch (Error e) {
+                record(endpoint, e);
+                throw e;
+            }
+            record(endpoint, null);
+            return result;
+        }
+    }
+
+    /**
+     * 发出请求前检查熔断状态，放行后必须调用{@link #record(NeuhubEndpoint, Throwable)}
+     * @throws CircuitOpenException - 接口处于熔断状态
+     */
+    public void acquire(NeuhubEndpoint endpoint) {
+        if (!breakers.get(endpoint).tryAcquire(System.nanoTime())) {
+            throw new CircuitOpenException(endpoint, endpoint + "错误过多，已熔断");
+        }
+    }
+
+    /**
+     * 记录一次调用的结果，只有网关错误计入熔断统计，被取消的调用不计入
+     * @param ex - 调用失败的异常，成功时为null
+     */
+    public void record(NeuhubEndpoint endpoint, Throwable ex) {
+        if (ex != null && NeuhubFailures.unwrap(ex) instanceof CancellationException) {
+            breakers.get(endpoint).release();
+            return;
+        }
+        boolean failure = ex != null && NeuhubFailures.isGatewayFailure(ex);
+        if (breakers.get(endpoint).record(failure, System.nanoTime())) {
+            logger.warn("{}错误过多，熔断{}ms", endpoint, properties.getOpenTime());
+        }
+    }
+
+    /**
+     * @return - 接口是否处于熔断状态
+     */
+    public boolean isOpen(NeuhubEndpoint endpoint) {
+        return breakers.get(endpoint).getState() != CircuitBreaker.State.CLOSED;
+    }
+
+    /**
+     * @return - 发出的重试次数
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    private synchronized void onRequest() {
+        budget = Math.min(MAX_BUDGET, budget + properties.getBudgetRatio());
+    }
+
+    private synchronized boolean tryRetry() {
+        if (budget < 1) {
+            return false;
+        }
+        budget -= 1;
+        retries.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @return - 第attempt次失败后的等待时间，上限从initial-backoff开始每次翻倍，不超过max-backoff
+     */
+    private long backoffMillis(int attempt) {
+        long ceiling = properties.getMaxBackoff();
+        if (attempt <= 30) {
+            ceiling = Math.min(ceiling, properties.getInitialBackoff() << (attempt - 1));
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
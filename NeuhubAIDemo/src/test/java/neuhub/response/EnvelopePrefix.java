@@ -0,0 +1,131 @@
+package neuhub.response;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 记录响应体开头的字节，从中解析公共结构中排在result之前的字段，如code、remainTimes
+ * <ul>
+ * <li>只记录调用方读取过的字节，不额外读取响应，同时统计读取的字节数</li>
+ * <li>公共结构中code、msg、remainTimes排在result之前，从开头的{@value #PREFIX_SIZE}个字节中即可解析出来</li>
+ * <li>解析到result或记录的字节不完整时停止，取不到的字段视为不存在</li>
+ * </ul>
+ * 限流和指标统计共用，保证两处对同一个响应的解析结果一致
+ */
+public class EnvelopePrefix {
+
+    public static final int PREFIX_SIZE = 256;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final byte[] prefix = new byte[PREFIX_SIZE];
+    private int prefixLength;
+    private long count;
+
+    /**
+     * @param in - 响应体
+     * @return - 读取时记录开头字节的响应体
+     */
+    public InputStream record(InputStream in) {
+        return new RecordingInputStream(in);
+    }
+
+    /**
+     * @return - 调用方读取的字节数
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return - 返回码，没有读取到时返回null
+     */
+    public String getCode() {
+        return field("code");
+    }
+
+    /**
+     * @return - 剩余调用次数，没有读取到时返回-1
+     */
+    public long getRemainTimes() {
+        String value = field("remainTimes");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return - result之前的字段的值，不是字符串或数字时返回null
+     */
+    private String field(String fieldName) {
+        try (JsonParser parser = JSON_FACTORY.createParser(prefix, 0, prefixLength)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (fieldName.equals(name)) {
+                    return value.isScalarValue() ? parser.getValueAsString() : null;
+                }
+                if ("result".equals(name)) {
+                    return null;
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            // 记录的字节不完整
+        }
+        return null;
+    }
+
+    private class RecordingInputStream extends FilterInputStream {
+
+        private RecordingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                if (prefixLength < PREFIX_SIZE) {
+                    prefix[prefixLength++] = (byte) b;
+                }
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                if (prefixLength < PREFIX_SIZE) {
+                    int copy = Math.min(read, PREFIX_SIZE - prefixLength);
+                    System.arraycopy(b, off, prefix, prefixLength, copy);
+                    prefixLength += copy;
+                }
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
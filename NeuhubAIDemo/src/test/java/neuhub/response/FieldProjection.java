@@ -0,0 +1,105 @@
+package neuhub.response;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResponseExtractor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 只从响应中取出指定字段，如 result.score、remain
+ * <ul>
+ * <li>边读边解析，路径以外的对象和数组直接跳过，不生成任何对象</li>
+ * <li>需要的字段都取到后立即停止解析</li>
+ * <li>路径用.分隔对象的字段，不支持数组下标，取到的值可以是任意json</li>
+ * <li>同时指定 result 和 result.score 时，result.score 从取到的 result 中取出</li>
+ * </ul>
+ * 可作为{@link ResponseExtractor}配合{@link neuhub.client.NeuhubRestTemplate}使用
+ */
+public class FieldProjection implements ResponseExtractor<Map<String, JsonNode>> {
+
+    private final Set<String> paths;
+    private final Set<String> parents = new HashSet<>();
+    private final Map<String, List<String>> descendants = new HashMap<>();
+
+    /**
+     * @param paths - 需要取出的字段路径
+     */
+    public FieldProjection(String... paths) {
+        this.paths = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(paths)));
+        for (String path : paths) {
+            for (int i = path.indexOf('.'); i > 0; i = path.indexOf('.', i + 1)) {
+                parents.add(path.substring(0, i));
+            }
+        }
+        for (String path : this.paths) {
+            for (String other : this.paths) {
+                if (other.startsWith(path + ".")) {
+                    descendants.computeIfAbsent(path, k -> new ArrayList<>()).add(other);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Map<String, JsonNode> extractData(ClientHttpResponse response) throws IOException {
+        return decode(response.getBody());
+    }
+
+    /**
+     * @param in - 响应流
+     * @return - 路径到值的映射，响应中不存在的路径没有对应的项
+     * @throws IOException - 读取或解析失败
+     */
+    public Map<String, JsonNode> decode(InputStream in) throws IOException {
+        Map<String, JsonNode> values = new LinkedHashMap<>();
+        try (JsonParser parser = NeuhubResponseDecoder.OBJECT_MAPPER.getFactory().createParser(in)) {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                walk(parser, "", values);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return - 是否已取到全部字段
+     */
+    private boolean walk(JsonParser parser, String prefix, Map<String, JsonNode> values) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String path = prefix + parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (paths.contains(path)) {
+                JsonNode value = parser.readValueAsTree();
+                values.put(path, value);
+                for (String descendant : descendants.getOrDefault(path, Collections.emptyList())) {
+                    JsonNode node = value.at("/" + descendant.substring(path.length() + 1).replace('.', '/'));
+                    if (!node.isMissingNode()) {
+                        values.put(descendant, node);
+                    }
+                }
+                if (values.size() == paths.size()) {
+                    return true;
+                }
+            } else if (token == JsonToken.START_OBJECT && parents.contains(path)) {
+                if (walk(parser, path + ".", values)) {
+                    return true;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,96 @@
+package neuhub.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * neuhub接口返回的公共结构
+ * <ul>
+ * <li>code: 网关返回码，10000表示调用成功</li>
+ * <li>charge: 本次调用是否计费</li>
+ * <li>remain、remainTimes、remainSeconds: 剩余的额度、调用次数和时长</li>
+ * <li>result: 接口自己的结果，类型由调用方指定，只声明需要的字段时其余字段在解析时直接跳过</li>
+ * </ul>
+ * @param <T> - result的类型，不关心具体结构时可以使用JsonNode
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class NeuhubResponse<T> {
+
+    public static final String SUCCESS_CODE = "10000";
+
+    private String code;
+    private boolean charge;
+    private long remain;
+    private long remainTimes;
+    private long remainSeconds;
+    private String msg;
+    private T result;
+
+    /**
+     * @return - 网关是否调用成功，接口自己的状态需要看result中的字段
+     */
+    public boolean isSuccess() {
+        return SUCCESS_CODE.equals(code);
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public boolean isCharge() {
+        return charge;
+    }
+
+    public void setCharge(boolean charge) {
+        this.charge = charge;
+    }
+
+    public long getRemain() {
+        return remain;
+    }
+
+    public void setRemain(long remain) {
+        this.remain = remain;
+    }
+
+    public long getRemainTimes() {
+        return remainTimes;
+    }
+
+    public void setRemainTimes(long remainTimes) {
+        this.remainTimes = remainTimes;
+    }
+
+    public long getRemainSeconds() {
+        return remainSeconds;
+    }
+
+    public void setRemainSeconds(long remainSeconds) {
+        this.remainSeconds = remainSeconds;
+    }
+
+    public String getMsg() {
+        return msg;
+    }
+
+    public void setMsg(String msg) {
+        this.msg = msg;
+    }
+
+    public T getResult() {
+        return result;
+    }
+
+    public void setResult(T result) {
+        this.result = result;
+    }
+
+    @Override
+    public String toString() {
+        return "NeuhubResponse{code='" + code + "', charge=" + charge + ", remain=" + remain + ", remainTimes=" + remainTimes
+                + ", remainSeconds=" + remainSeconds + ", msg='" + msg + "', result=" + result + "}";
+    }
+}
@@ -0,0 +1,58 @@
+package neuhub.response;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+
+/**
+ * 从响应流中直接解析{@link NeuhubResponse}，不先把响应体读成String
+ * <ul>
+ * <li>ObjectMapper是线程安全的，全局只创建一个</li>
+ * <li>result中没有声明的字段在解析时跳过，不会生成对象</li>
+ * </ul>
+ */
+public final class NeuhubResponseDecoder {
+
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private NeuhubResponseDecoder() {
+    }
+
+    /**
+     * @param in - 响应流
+     * @param resultType - result的类型
+     * @return - 解析结果
+     * @throws IOException - 读取或解析失败
+     */
+    public static <T> NeuhubResponse<T> decode(InputStream in, Class<T> resultType) throws IOException {
+        return decode(in, typeOf(resultType));
+    }
+
+    /**
+     * @param in - 响应流
+     * @param responseType - 完整的响应类型，如NeuhubResponse&lt;FaceCompareResult&gt;，不带泛型时result解析为JsonNode
+     * @return - 解析结果
+     * @throws IOException - 读取或解析失败
+     */
+    public static <T> NeuhubResponse<T> decode(InputStream in, Type responseType) throws IOException {
+        JavaType javaType = TypeFactory.defaultInstance().constructType(responseType);
+        if (javaType.containedTypeCount() == 0) {
+            javaType = typeOf(JsonNode.class);
+        }
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(in)) {
+            return OBJECT_MAPPER.readValue(parser, javaType);
+        }
+    }
+
+    private static JavaType typeOf(Class<?> resultType) {
+        return TypeFactory.defaultInstance().constructParametricType(NeuhubResponse.class, resultType);
+    }
+}
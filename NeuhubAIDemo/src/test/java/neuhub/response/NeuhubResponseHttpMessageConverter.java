@@ -0,0 +1,68 @@
+package neuhub.response;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 把响应直接解析为{@link NeuhubResponse}的消息转换器，只用于响应
+ * <ul>
+ * <li>不检查Content-Type，网关返回text/plain时同样可以解析</li>
+ * <li>通过ParameterizedTypeReference指定result的类型，如 new ParameterizedTypeReference&lt;NeuhubResponse&lt;JsonNode&gt;&gt;() {}</li>
+ * </ul>
+ */
+public class NeuhubResponseHttpMessageConverter implements GenericHttpMessageConverter<Object> {
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return canRead(ResolvableType.forType(type).resolve(), mediaType);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return clazz != null && NeuhubResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return NeuhubResponseDecoder.decode(inputMessage.getBody(), type);
+    }
+
+    @Override
+    public Object read(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return NeuhubResponseDecoder.decode(inputMessage.getBody(), (Type) clazz);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes() {
+        return Collections.singletonList(MediaType.ALL);
+    }
+
+    @Override
+    public void write(Object o, Type type, MediaType contentType, HttpOutputMessage outputMessage) {
+        throw new HttpMessageNotWritableException("NeuhubResponse只用于响应");
+    }
+
+    @Override
+    public void write(Object o, MediaType contentType, HttpOutputMessage outputMessage) {
+        throw new HttpMessageNotWritableException("NeuhubResponse只用于响应");
+    }
+}
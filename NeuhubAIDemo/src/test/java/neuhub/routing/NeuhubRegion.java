@@ -0,0 +1,127 @@
+package neuhub.routing;
+
+import neuhub.configuration.NeuhubRoutingProperties;
+import neuhub.token.AccessTokenManager;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个地域的网关，记录最近请求的延迟和错误率
+ * <ul>
+ * <li>延迟和错误率都是指数加权移动平均(EWMA)，没有请求过的地域延迟为0，会被优先尝试</li>
+ * <li>连续失败或错误率过高时摘除一段时间，到期后重新参与选择</li>
+ * </ul>
+ */
+public class NeuhubRegion {
+
+    private final String name;
+    private final String gatewayUrl;
+    private final URI gatewayUri;
+    private final AccessTokenManager accessTokenManager;
+    private final NeuhubRoutingProperties properties;
+
+    private double latencyMillis;
+    private double errorRate;
+    private int consecutiveFailures;
+    private long ejectedUntilNanos;
+    private boolean ejected;
+
+    /**
+     * @param name - 地域名称
+     * @param gatewayUrl - 网关地址
+     * @param accessTokenManager - 该地域的token管理器
+     * @param properties - 路由配置
+     */
+    public NeuhubRegion(String name, String gatewayUrl, AccessTokenManager accessTokenManager, NeuhubRoutingProperties properties) {
+        this.name = name;
+        this.gatewayUrl = gatewayUrl;
+        this.gatewayUri = URI.create(gatewayUrl);
+        this.accessTokenManager = accessTokenManager;
+        this.properties = properties;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getGatewayUrl() {
+        return gatewayUrl;
+    }
+
+    public AccessTokenManager getAccessTokenManager() {
+        return accessTokenManager;
+    }
+
+    /**
+     * @return - 请求地址是否指向该地域的网关
+     */
+    public boolean matches(URI uri) {
+        return gatewayUri.getScheme().equalsIgnoreCase(uri.getScheme())
+                && gatewayUri.getRawAuthority().equalsIgnoreCase(uri.getRawAuthority());
+    }
+
+    /**
+     * @param uri - 其他地域网关的请求地址
+     * @return - 路径和参数不变，网关换成该地域的地址
+     */
+    public URI resolve(URI uri) {
+        return UriComponentsBuilder.fromUri(uri)
+                .scheme(gatewayUri.getScheme())
+                .host(gatewayUri.getHost())
+                .port(gatewayUri.getPort())
+                .build(true)
+                .toUri();
+    }
+
+    /**
+     * 记录一次请求的结果
+     * @param latencyNanos - 从发出请求到收到响应的时间
+     * @param success - 网关是否正常，4xx这类请求本身的错误也算正常
+     */
+    public synchronized void record(long latencyNanos, boolean success) {
+        double alpha = properties.getEwmaAlpha();
+        double millis = latencyNanos / 1e6;
+        latencyMillis = latencyMillis == 0 ? millis : latencyMillis + alpha * (millis - latencyMillis);
+        errorRate += alpha * ((success ? 0 : 1) - errorRate);
+        consecutiveFailures = success ? 0 : consecutiveFailures + 1;
+        if (!success && (consecutiveFailures >= properties.getFailureThreshold() || errorRate > properties.getErrorRateThreshold())) {
+            ejected = true;
+            ejectedUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getEjectTime());
+        }
+    }
+
+    /**
+     * @return - 没有被摘除，或者摘除已经到期
+     */
+    public synchronized boolean isHealthy() {
+        if (ejected && System.nanoTime() - ejectedUntilNanos >= 0) {
+            // 到期后重新参与选择，错误率降到阈值的一半，再失败一次不会立即摘除
+            ejected = false;
+            consecutiveFailures = 0;
+            errorRate = Math.min(errorRate, properties.getErrorRateThreshold() / 2);
+        }
+        return !ejected;
+    }
+
+    /**
+     * @return - 越小越优先，错误率会放大延迟
+     */
+    public synchronized double score() {
+        return latencyMillis * (1 + 4 * errorRate);
+    }
+
+    public synchronized double getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public synchronized double getErrorRate() {
+        return errorRate;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s{latency=%.1fms, errorRate=%.3f, ejected=%s}", name, latencyMillis, errorRate, ejected);
+    }
+}
@@ -0,0 +1,122 @@
+package neuhub.routing;
+
+import neuhub.token.AccessTokenManager;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 在多个地域的网关之间选择
+ * <ul>
+ * <li>健康的地域按延迟和错误率排序，最优的排在最前面，被摘除的地域排在最后，全部被摘除时仍然可以尝试</li>
+ * <li>按explore-ratio的比例把一个其他的健康地域排在最前面，使不常用的地域的延迟保持更新</li>
+ * <li>负责启动和关闭各地域的token管理器</li>
+ * </ul>
+ */
+public class RegionRouter implements Closeable {
+
+    private final List<NeuhubRegion> regions;
+    private final double exploreRatio;
+
+    /**
+     * @param regions - 可以调用的地域，至少一个
+     * @param exploreRatio - 发往非最优地域的请求比例
+     */
+    public RegionRouter(List<NeuhubRegion> regions, double exploreRatio) {
+        if (regions.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个地域");
+        }
+        this.regions = Collections.unmodifiableList(new ArrayList<>(regions));
+        this.exploreRatio = exploreRatio;
+    }
+
+    /**
+     * 启动各地域的token管理器，已经取得token的管理器不会重复获取
+     */
+    public void start() {
+        for (AccessTokenManager manager : accessTokenManagers()) {
+            if (manager.peekAccessToken() == null) {
+                manager.start();
+            }
+        }
+    }
+
+    public List<NeuhubRegion> getRegions() {
+        return regions;
+    }
+
+    public boolean isMultiRegion() {
+        return regions.size() > 1;
+    }
+
+    /**
+     * @return - 本次调用依次尝试的地域
+     */
+    public List<NeuhubRegion> candidates() {
+        if (!isMultiRegion()) {
+            return regions;
+        }
+        List<NeuhubRegion> healthy = new ArrayList<>(regions.size());
+        List<NeuhubRegion> ejected = new ArrayList<>();
+        // 其他线程一直在更新统计，排序前先取一次分数，排序过程中比较的结果才能保持一致
+        Map<NeuhubRegion, Double> scores = new IdentityHashMap<>(regions.size());
+        for (NeuhubRegion region : regions) {
+            if (region.isHealthy()) {
+                healthy.add(region);
+                scores.put(region, region.score());
+            } else {
+                ejected.add(region);
+            }
+        }
+        healthy.sort(Comparator.comparingDouble(scores::get));
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (healthy.size() > 1 && random.nextDouble() < exploreRatio) {
+            Collections.swap(healthy, 0, 1 + random.nextInt(healthy.size() - 1));
+        }
+        healthy.addAll(ejected);
+        return healthy;
+    }
+
+    /**
+     * @return - 最优的地域
+     */
+    public NeuhubRegion select() {
+        return candidates().get(0);
+    }
+
+    /**
+     * @return - 请求地址所属的地域，不属于任何地域时返回null
+     */
+    public NeuhubRegion regionOf(URI uri) {
+        for (NeuhubRegion region : regions) {
+            if (region.matches(uri)) {
+                return region;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        for (AccessTokenManager manager : accessTokenManagers()) {
+            manager.close();
+        }
+    }
+
+    private List<AccessTokenManager> accessTokenManagers() {
+        List<AccessTokenManager> managers = new ArrayList<>();
+        for (NeuhubRegion region : regions) {
+            if (!managers.contains(region.getAccessTokenManager())) {
+                managers.add(region.getAccessTokenManager());
+            }
+        }
+        return managers;
+    }
+}
@@ -0,0 +1,41 @@
+package neuhub.routing;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestExecution;
+import org.springframework.http.client.AsyncClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.io.IOException;
+
+/**
+ * 异步客户端记录各地域延迟和错误率的拦截器，应放在限流拦截器之后，只统计网络和网关的耗时
+ */
+public class RegionStatsInterceptor implements AsyncClientHttpRequestInterceptor {
+
+    private final RegionRouter regionRouter;
+
+    public RegionStatsInterceptor(RegionRouter regionRouter) {
+        this.regionRouter = regionRouter;
+    }
+
+    @Override
+    public ListenableFuture<ClientHttpResponse> intercept(HttpRequest request, byte[] body, AsyncClientHttpRequestExecution execution)
+            throws IOException {
+        NeuhubRegion region = regionRouter.regionOf(request.getURI());
+        long start = System.nanoTime();
+        ListenableFuture<ClientHttpResponse> future = execution.executeAsync(request, body);
+        if (region != null) {
+            future.addCallback(response -> {
+                boolean success;
+                try {
+                    success = response.getRawStatusCode() < 500;
+                } catch (IOException e) {
+                    success = false;
+                }
+                region.record(System.nanoTime() - start, success);
+            }, ex -> region.record(System.nanoTime() - start, false));
+        }
+        return future;
+    }
+}
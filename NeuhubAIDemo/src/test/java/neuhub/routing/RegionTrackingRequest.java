@@ -0,0 +1,47 @@
+package neuhub.routing;
+
+import neuhub.http.ClientHttpRequestDecorator;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+
+import java.io.IOException;
+
+/**
+ * 同步客户端发往某个地域的请求，执行时记录该地域的延迟和错误率，网关返回401时作废该地域的token
+ */
+public class RegionTrackingRequest extends ClientHttpRequestDecorator {
+
+    private final NeuhubRegion region;
+    private final OAuth2AccessToken token;
+
+    /**
+     * @param delegate - 已经指向该地域网关的请求
+     * @param region - 地域
+     * @param token - 请求使用的token
+     */
+    public RegionTrackingRequest(ClientHttpRequest delegate, NeuhubRegion region, OAuth2AccessToken token) {
+        super(delegate);
+        this.region = region;
+        this.token = token;
+    }
+
+    @Override
+    public ClientHttpResponse execute() throws IOException {
+        long start = System.nanoTime();
+        ClientHttpResponse response;
+        try {
+            response = super.execute();
+        } catch (IOException | RuntimeException e) {
+            region.record(System.nanoTime() - start, false);
+            throw e;
+        }
+        int status = response.getRawStatusCode();
+        region.record(System.nanoTime() - start, status < 500);
+        if (status == HttpStatus.UNAUTHORIZED.value()) {
+            region.getAccessTokenManager().invalidate(token);
+        }
+        return response;
+    }
+}
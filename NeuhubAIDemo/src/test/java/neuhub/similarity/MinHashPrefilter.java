@@ -0,0 +1,83 @@
+package neuhub.similarity;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 按MinHash估计的字符片段Jaccard相似度排除文本对
+ * <ul>
+ * <li>每条文本切成长度为shingleSize的连续字符片段，中文一般使用2</li>
+ * <li>每条文本计算hashes个最小哈希，所有文本的签名保存在一个int数组中</li>
+ * <li>两条文本签名中相同的位置所占的比例即Jaccard相似度的估计值，低于minJaccard的文本对不调用接口</li>
+ * </ul>
+ * 只看字面的重合，改写程度大、字面不同的相似文本可能被排除，minJaccard不宜过高
+ */
+public class MinHashPrefilter implements SimilarityPrefilter {
+
+    private final int shingleSize;
+    private final int hashes;
+    private final int minMatches;
+
+    /**
+     * @param shingleSize - 字符片段的长度
+     * @param hashes - 最小哈希的个数，越多估计越准
+     * @param minJaccard - 估计的Jaccard相似度不低于该值时才调用接口
+     */
+    public MinHashPrefilter(int shingleSize, int hashes, double minJaccard) {
+        if (shingleSize < 1 || hashes < 1) {
+            throw new IllegalArgumentException("shingleSize和hashes必须大于0");
+        }
+        this.shingleSize = shingleSize;
+        this.hashes = hashes;
+        this.minMatches = (int) Math.ceil(minJaccard * hashes);
+    }
+
+    @Override
+    public Candidates prepare(List<String> texts) {
+        int[] signatures = new int[texts.size() * hashes];
+        for (int i = 0; i < texts.size(); i++) {
+            sign(texts.get(i), signatures, i * hashes);
+        }
+        return (u, v) -> {
+            int matches = 0;
+            for (int k = 0, a = u * hashes, b = v * hashes; k < hashes; k++) {
+                if (signatures[a + k] == signatures[b + k] && ++matches >= minMatches) {
+                    return true;
+                }
+            }
+            return matches >= minMatches;
+        };
+    }
+
+    /**
+     * 第k个哈希为 h1 + k * h2，两个基础哈希即可得到任意多个哈希
+     */
+    private void sign(String text, int[] signatures, int offset) {
+        Arrays.fill(signatures, offset, offset + hashes, Integer.MAX_VALUE);
+        // 比片段短的文本整体作为一个片段
+        int size = Math.min(shingleSize, text.length());
+        for (int start = 0; size > 0 && start + size <= text.length(); start++) {
+            int hash = 0;
+            for (int i = start; i < start + size; i++) {
+                hash = 31 * hash + text.charAt(i);
+            }
+            int h1 = mix(hash);
+            int h2 = mix(h1 ^ 0x9E3779B9) | 1;
+            for (int k = 0; k < hashes; k++) {
+                int value = h1 + k * h2;
+                if (value < signatures[offset + k]) {
+                    signatures[offset + k] = value;
+                }
+            }
+        }
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,139 @@
+package neuhub.similarity;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一组文本两两之间的相似度
+ * <ul>
+ * <li>规范化后相同的文本只保存一份，对角线和相同的文本之间相似度为1</li>
+ * <li>相似度是对称的，只保存去重后文本的上三角，不含对角线，m条文本占用 m(m-1)/2 个float</li>
+ * <li>没有调用接口的文本对，包括被预过滤排除的和调用失败的，相似度为NaN</li>
+ * </ul>
+ */
+public class SimilarityMatrix {
+
+    /**
+     * 上三角的元素数不能超过数组长度的上限，去重后的文本数最多约65000条
+     */
+    private static final long MAX_VALUES = Integer.MAX_VALUE - 8;
+
+    private final List<String> texts;
+    private final int[] uniqueIndex;
+    private final float[] values;
+    private long requested;
+    private long failed;
+
+    /**
+     * @param texts - 去重后的文本
+     * @param uniqueIndex - 每条输入文本对应的去重后文本的下标
+     */
+    SimilarityMatrix(List<String> texts, int[] uniqueIndex) {
+        long count = pairCount(texts.size());
+        if (count > MAX_VALUES) {
+            throw new IllegalArgumentException("去重后的文本过多: " + texts.size());
+        }
+        this.texts = Collections.unmodifiableList(texts);
+        this.uniqueIndex = uniqueIndex;
+        this.values = new float[(int) count];
+        Arrays.fill(values, Float.NaN);
+    }
+
+    /**
+     * @return - m条文本的文本对数
+     */
+    public static long pairCount(int m) {
+        return (long) m * (m - 1) / 2;
+    }
+
+    /**
+     * @return - 输入的文本数
+     */
+    public int size() {
+        return uniqueIndex.length;
+    }
+
+    /**
+     * @return - 去重后的文本数
+     */
+    public int uniqueCount() {
+        return texts.size();
+    }
+
+    /**
+     * @return - 去重后的文本，为相同文本中第一次出现的原文
+     */
+    public List<String> getUniqueTexts() {
+        return texts;
+    }
+
+    /**
+     * @param i - 输入文本的下标
+     * @return - 对应的去重后文本的下标
+     */
+    public int uniqueIndexOf(int i) {
+        return uniqueIndex[i];
+    }
+
+    /**
+     * @param i - 输入文本的下标
+     * @param j - 输入文本的下标
+     * @return - 相似度，没有调用接口时为NaN
+     */
+    public float get(int i, int j) {
+        return getUnique(uniqueIndex[i], uniqueIndex[j]);
+    }
+
+    /**
+     * @param u - 去重后文本的下标
+     * @param v - 去重后文本的下标
+     * @return - 相似度，没有调用接口时为NaN
+     */
+    public float getUnique(int u, int v) {
+        if (u == v) {
+            return 1f;
+        }
+        return u < v ? values[offset(u, v)] : values[offset(v, u)];
+    }
+
+    /**
+     * @return - 调用接口的文本对数
+     */
+    public long getRequested() {
+        return requested;
+    }
+
+    /**
+     * @return - 调用失败的文本对数
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    void set(int u, int v, float similarity) {
+        values[offset(u, v)] = similarity;
+    }
+
+    void requested() {
+        requested++;
+    }
+
+    void failed() {
+        failed++;
+    }
+
+    /**
+     * 第u行之前共有 u(2m-u-1)/2 个元素，u &lt; v
+     */
+    private int offset(int u, int v) {
+        long m = texts.size();
+        return (int) (u * (2 * m - u - 1) / 2 + (v - u - 1));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d条文本，去重后%d条，共%d对，调用接口%d次，失败%d次",
+                size(), uniqueCount(), pairCount(uniqueCount()), requested, failed);
+    }
+}
@@ -0,0 +1,196 @@
+package neuhub.similarity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import neuhub.bulk.BulkExecutor;
+import neuhub.bulk.BulkResult;
+import neuhub.client.NeuhubAsyncClient;
+import neuhub.client.NeuhubFailures;
+import neuhub.configuration.NeuhubSimilarityProperties;
+import neuhub.response.FieldProjection;
+import neuhub.response.NeuhubResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.regex.Pattern;
+
+/**
+ * 计算一组短文本两两之间的相似度，N条文本不需要N²次调用
+ * <ul>
+ * <li>文本先规范化：全角转半角、英文转小写、连续的空白合并为一个空格，规范化后相同的文本只算一次，相似度为1</li>
+ * <li>相似度是对称的，每对文本只调用一次接口</li>
+ * <li>调用之前由{@link SimilarityPrefilter}排除明显不相似的文本对，默认使用{@link MinHashPrefilter}</li>
+ * <li>文本对在需要时才生成，以有限的并发调用接口，结果保存在{@link SimilarityMatrix}中</li>
+ * <li>单个文本对调用失败时相似度为NaN；配额用尽、熔断或连接不上网关时抛出异常</li>
+ * </ul>
+ * 参数见{@link NeuhubSimilarityProperties}
+ */
+public class SimilarityMatrixEngine {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final FieldProjection SIMILARITY = new FieldProjection("code", "result.similarity");
+
+    private Logger logger = LoggerFactory.getLogger(SimilarityMatrixEngine.class);
+
+    private final NeuhubAsyncClient client;
+    private final BulkExecutor bulkExecutor;
+    private final SimilarityPrefilter prefilter;
+
+    public SimilarityMatrixEngine(NeuhubAsyncClient client, NeuhubSimilarityProperties properties) {
+        this.client = client;
+        this.bulkExecutor = new BulkExecutor(properties.getConcurrency());
+        this.prefilter = properties.getMinJaccard() > 0
+                ? new MinHashPrefilter(properties.getShingleSize(), properties.getHashes(), properties.getMinJaccard())
+                : SimilarityPrefilter.NONE;
+    }
+
+    /**
+     * 使用配置的预过滤计算相似度，阻塞到全部计算完
+     * @param texts - 文本
+     * @return - 相似度矩阵
+     * @throws RestClientException - 请求无法发出
+     */
+    public SimilarityMatrix compute(List<String> texts) throws RestClientException {
+        return compute(texts, prefilter);
+    }
+
+    /**
+     * 计算相似度，阻塞到全部计算完
+     * @param texts - 文本
+     * @param prefilter - 预过滤，{@link SimilarityPrefilter#NONE}表示每对文本都调用接口
+     * @return - 相似度矩阵
+     * @throws RestClientException - 请求无法发出
+     */
+    public SimilarityMatrix compute(List<String> texts, SimilarityPrefilter prefilter) throws RestClientException {
+        Map<String, Integer> normalized = new HashMap<>();
+        List<String> unique = new ArrayList<>();
+        List<String> uniqueNormalized = new ArrayList<>();
+        int[] uniqueIndex = new int[texts.size()];
+        for (int i = 0; i < texts.size(); i++) {
+            String key = normalize(texts.get(i));
+            Integer index = normalized.get(key);
+            if (index == null) {
+                index = unique.size();
+                normalized.put(key, index);
+                unique.add(texts.get(i));
+                uniqueNormalized.add(key);
+            }
+            uniqueIndex[i] = index;
+        }
+        SimilarityMatrix matrix = new SimilarityMatrix(unique, uniqueIndex);
+        PairIterator pairs = new PairIterator(unique.size(), prefilter.prepare(uniqueNormalized));
+        Iterator<BulkResult<Long, ResponseEntity<String>>> results = bulkExecutor.<Long, ResponseEntity<String>>execute(pairs,
+                pair -> client.similarity(unique.get(first(pair)), unique.get(second(pair)))).iterator();
+        while (results.hasNext()) {
+            BulkResult<Long, ResponseEntity<String>> result = results.next();
+            int u = first(result.getInput());
+            int v = second(result.getInput());
+            matrix.requested();
+            if (!result.isSuccess()) {
+                Throwable cause = result.getError();
+                if (NeuhubFailures.isRejected(cause) || NeuhubFailures.isNotSent(cause)) {
+                    throw cause instanceof RestClientException ? (RestClientException) cause
+                            : new RestClientException("相似度请求无法发出", cause);
+                }
+                logger.warn("文本{}和{}的相似度计算失败: {}", u, v, cause.toString());
+                matrix.failed();
+                continue;
+            }
+            float similarity = similarityOf(result.getResult());
+            if (Float.isNaN(similarity)) {
+                matrix.failed();
+            } else {
+                matrix.set(u, v, similarity);
+            }
+        }
+        logger.info("{}，预过滤排除{}对", matrix, SimilarityMatrix.pairCount(unique.size()) - matrix.getRequested());
+        return matrix;
+    }
+
+    /**
+     * @return - 规范化后的文本，用于去重和预过滤
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    private float similarityOf(ResponseEntity<String> response) {
+        try {
+            Map<String, JsonNode> fields = SIMILARITY.decode(new ByteArrayInputStream(response.getBody().getBytes(StandardCharsets.UTF_8)));
+            JsonNode code = fields.get("code");
+            JsonNode similarity = fields.get("result.similarity");
+            if (code == null || !NeuhubResponse.SUCCESS_CODE.equals(code.asText()) || similarity == null || !similarity.isNumber()) {
+                logger.warn("相似度接口返回错误: {}", response.getBody());
+                return Float.NaN;
+            }
+            return similarity.floatValue();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("无法解析相似度接口的响应: {}", e.toString());
+            return Float.NaN;
+        }
+    }
+
+    private static int first(long pair) {
+        return (int) (pair >>> 32);
+    }
+
+    private static int second(long pair) {
+        return (int) pair;
+    }
+
+    /**
+     * 按行依次生成上三角中通过预过滤的文本对，高32位为u，低32位为v
+     */
+    private static class PairIterator implements Iterator<Long> {
+
+        private final int size;
+        private final SimilarityPrefilter.Candidates candidates;
+        private int u;
+        private int v;
+        private boolean ready;
+
+        private PairIterator(int size, SimilarityPrefilter.Candidates candidates) {
+            this.size = size;
+            this.candidates = candidates;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!ready) {
+                if (++v >= size) {
+                    if (++u >= size - 1) {
+                        return false;
+                    }
+                    v = u + 1;
+                }
+                ready = candidates.mayBeSimilar(u, v);
+            }
+            return true;
+        }
+
+        @Override
+        public Long next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            return ((long) u << 32) | v;
+        }
+    }
+}
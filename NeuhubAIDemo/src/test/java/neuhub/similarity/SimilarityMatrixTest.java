@@ -0,0 +1,50 @@
+package neuhub.similarity;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SimilarityMatrixTest {
+
+    @Test
+    public void pairCount() {
+        assertEquals(0, SimilarityMatrix.pairCount(1));
+        assertEquals(1, SimilarityMatrix.pairCount(2));
+        assertEquals(3, SimilarityMatrix.pairCount(3));
+        assertEquals(2147450880L, SimilarityMatrix.pairCount(65536));
+    }
+
+    @Test
+    public void twoTexts() {
+        SimilarityMatrix matrix = new SimilarityMatrix(Arrays.asList("a", "b"), new int[]{0, 1});
+        assertTrue(Float.isNaN(matrix.getUnique(0, 1)));
+        matrix.set(0, 1, 0.5f);
+        assertEquals(0.5f, matrix.getUnique(0, 1), 0);
+        assertEquals(0.5f, matrix.getUnique(1, 0), 0);
+        assertEquals(1f, matrix.getUnique(1, 1), 0);
+    }
+
+    @Test
+    public void threeTextsUseDistinctOffsets() {
+        SimilarityMatrix matrix = new SimilarityMatrix(Arrays.asList("a", "b", "c"), new int[]{0, 1, 2});
+        matrix.set(0, 1, 0.1f);
+        matrix.set(0, 2, 0.2f);
+        matrix.set(1, 2, 0.3f);
+        assertEquals(0.1f, matrix.getUnique(0, 1), 0);
+        assertEquals(0.2f, matrix.getUnique(0, 2), 0);
+        assertEquals(0.3f, matrix.getUnique(1, 2), 0);
+        assertEquals(0.3f, matrix.getUnique(2, 1), 0);
+    }
+
+    @Test
+    public void duplicateInputsShareUniqueText() {
+        SimilarityMatrix matrix = new SimilarityMatrix(Arrays.asList("a", "b"), new int[]{0, 1, 0});
+        matrix.set(0, 1, 0.7f);
+        assertEquals(3, matrix.size());
+        assertEquals(1f, matrix.get(0, 2), 0);
+        assertEquals(0.7f, matrix.get(2, 1), 0);
+    }
+}
@@ -0,0 +1,30 @@
+package neuhub.similarity;
+
+import java.util.List;
+
+/**
+ * 调用相似度接口之前在本地排除明显不相似的文本对，减少调用次数，如{@link MinHashPrefilter}
+ */
+public interface SimilarityPrefilter {
+
+    /**
+     * 不排除任何文本对
+     */
+    SimilarityPrefilter NONE = texts -> (u, v) -> true;
+
+    /**
+     * @param texts - 去重后的文本
+     * @return - 判断两条文本是否需要调用接口，只在一个线程中使用
+     */
+    Candidates prepare(List<String> texts);
+
+    interface Candidates {
+
+        /**
+         * @param u - 文本的下标
+         * @param v - 文本的下标，大于u
+         * @return - 可能相似，需要调用接口
+         */
+        boolean mayBeSimilar(int u, int v);
+    }
+}
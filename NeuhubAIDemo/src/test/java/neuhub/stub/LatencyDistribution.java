@@ -0,0 +1,49 @@
+package neuhub.stub;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link StubGateway}响应前等待时间的分布，单位为毫秒
+ * <ul>
+ * <li>fixed: 固定延迟</li>
+ * <li>uniform: 在区间内均匀分布</li>
+ * <li>logNormal: 对数正态分布，由中位数和p99确定，接近真实网关的长尾延迟</li>
+ * </ul>
+ */
+public interface LatencyDistribution {
+
+    /**
+     * p99对应的标准正态分位数
+     */
+    double Z_99 = 2.3263;
+
+    /**
+     * @return - 下一次请求的延迟，单位为毫秒
+     */
+    long nextMillis();
+
+    static LatencyDistribution fixed(long millis) {
+        return () -> millis;
+    }
+
+    static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        if (maxMillis <= minMillis) {
+            return fixed(minMillis);
+        }
+        return () -> ThreadLocalRandom.current().nextLong(minMillis, maxMillis + 1);
+    }
+
+    /**
+     * @param medianMillis - 延迟的中位数
+     * @param p99Millis - 延迟的p99，不大于中位数时退化为固定延迟
+     * @return - 对数正态分布
+     */
+    static LatencyDistribution logNormal(long medianMillis, long p99Millis) {
+        if (medianMillis <= 0 || p99Millis <= medianMillis) {
+            return fixed(Math.max(medianMillis, 0));
+        }
+        double mu = Math.log(medianMillis);
+        double sigma = Math.log((double) p99Millis / medianMillis) / Z_99;
+        return () -> Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+}
@@ -0,0 +1,323 @@
+package neuhub.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import neuhub.client.NeuhubEndpoint;
+import neuhub.configuration.NeuhubStubProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地模拟的neuhub网关和token服务，用于离线调试和压测，不需要真实的clientId和clientSecret
+ * <ul>
+ * <li>/oauth/token 发放随机token，/neuhub/* 只接受未过期的token，否则返回401</li>
+ * <li>每个接口返回固定的结构与真实网关相同的响应，语音合成接口返回二进制音频</li>
+ * <li>响应按{@link LatencyDistribution}延迟后发出，等待期间不占用线程，可以模拟大量并发的慢请求</li>
+ * <li>按错误率返回503，每个接口可以单独设置延迟、错误率和响应内容</li>
+ * </ul>
+ * 默认参数见{@link NeuhubStubProperties}，启动后通过{@link #getUrl()}取得网关地址，token地址为 getUrl() + /oauth/token
+ */
+public class StubGateway implements Closeable {
+
+    private Logger logger = LoggerFactory.getLogger(StubGateway.class);
+
+    public static final String TOKEN_PATH = "/oauth/token";
+    private static final String JSON = "application/json;charset=UTF-8";
+    private static final byte[] EMPTY = new byte[0];
+
+    private static final Map<String, NeuhubEndpoint> ENDPOINTS = new HashMap<>();
+    private static final Map<NeuhubEndpoint, String> RESULTS = new EnumMap<>(NeuhubEndpoint.class);
+
+    static {
+        for (NeuhubEndpoint endpoint : NeuhubEndpoint.values()) {
+            ENDPOINTS.put(endpoint.getPath(), endpoint);
+        }
+        RESULTS.put(NeuhubEndpoint.ASR, "{\"status\":0,\"index\":1,\"content\":[{\"text\":\"今天天气怎么样\"}]}");
+        RESULTS.put(NeuhubEndpoint.COMMENT_TAG, "{\"status\":0,\"message\":\"success\",\"tags\":[{\"tag\":\"质量不错\",\"polarity\":1}]}");
+        RESULTS.put(NeuhubEndpoint.FACE_COMPARE, "{\"status\":0,\"message\":\"success\",\"score\":0.93}");
+        RESULTS.put(NeuhubEndpoint.FACE_DETECT_ATTR, "{\"status\":0,\"message\":\"success\",\"faces\":[{\"rect\":"
+                + "{\"left\":120,\"top\":80,\"width\":160,\"height\":160},\"age\":28,\"gender\":\"male\",\"beauty\":72.5}]}");
+        RESULTS.put(NeuhubEndpoint.FACE_ANTI_SPOOF, "{\"status\":0,\"message\":\"success\",\"score\":0.98,\"isLive\":true}");
+        RESULTS.put(NeuhubEndpoint.FOOD, "{\"status\":0,\"message\":\"success\",\"dishes\":[{\"name\":\"宫保鸡丁\",\"probability\":0.91}]}");
+        RESULTS.put(NeuhubEndpoint.HUMAN_DETECT, "{\"status\":0,\"message\":\"success\",\"humans\":[{\"x\":40,\"y\":30,"
+                + "\"width\":200,\"height\":420,\"score\":0.97}]}");
+        RESULTS.put(NeuhubEndpoint.OCR_IDCARD, "{\"status\":0,\"message\":\"success\",\"name\":\"张三\",\"sex\":\"男\","
+                + "\"nation\":\"汉\",\"birth\":\"19900101\",\"address\":\"北京市朝阳区\",\"id\":\"110105199001010000\"}");
+        RESULTS.put(NeuhubEndpoint.OCR_INVOICE, "{\"status\":0,\"message\":\"success\",\"invoiceCode\":\"1100000000\","
+                + "\"invoiceNumber\":\"00000000\",\"totalAmount\":\"100.00\"}");
+        RESULTS.put(NeuhubEndpoint.LEADER_REC, "{\"status\":0,\"message\":\"success\",\"persons\":[]}");
+        RESULTS.put(NeuhubEndpoint.LEXER, "{\"status\":0,\"message\":\"success\",\"tokens\":[{\"word\":\"质量\",\"pos\":\"n\"},"
+                + "{\"word\":\"不错\",\"pos\":\"a\"}]}");
+        RESULTS.put(NeuhubEndpoint.POSE_ESTIMATION, "{\"status\":0,\"message\":\"success\",\"persons\":[{\"keypoints\":"
+                + "[[120,80,0.9],[125,120,0.88]]}]}");
+        RESULTS.put(NeuhubEndpoint.FACE_SEARCH, "{\"status\":0,\"message\":\"success\",\"faceItems\":[{\"outerId\":\"0726testFace1\",\"score\":0.95}]}");
+        RESULTS.put(NeuhubEndpoint.FACE_GROUP_CREATE, "{\"status\":0,\"message\":\"success\",\"groupId\":\"c0a0ed2b-a355-48c7-a4f7-c702fda26308\"}");
+        RESULTS.put(NeuhubEndpoint.FACE_GROUP_DELETE, "{\"status\":0,\"message\":\"success\"}");
+        RESULTS.put(NeuhubEndpoint.FACE_CREATE, "{\"status\":0,\"message\":\"success\",\"faceId\":\"8d3f5c1e-4a7b-4c2d-9e6f-0a1b2c3d4e5f\"}");
+        RESULTS.put(NeuhubEndpoint.FACE_DELETE, "{\"status\":0,\"message\":\"success\"}");
+        RESULTS.put(NeuhubEndpoint.FACE_GROUP_LIST, "{\"status\":0,\"message\":\"success\",\"groups\":[{\"groupId\":"
+                + "\"c0a0ed2b-a355-48c7-a4f7-c702fda26308\",\"groupName\":\"stub\",\"faceCount\":1}]}");
+        RESULTS.put(NeuhubEndpoint.SELFIE_SEGMENTATION, "{\"status\":0,\"message\":\"success\",\"foreground\":\"\"}");
+        RESULTS.put(NeuhubEndpoint.SENTIMENT, "{\"status\":0,\"message\":\"success\",\"sentiment\":1,\"positive\":0.86,\"negative\":0.14}");
+        RESULTS.put(NeuhubEndpoint.SEXY_GET, "{\"status\":0,\"message\":\"success\",\"label\":\"normal\",\"score\":0.99}");
+        RESULTS.put(NeuhubEndpoint.SEXY_POST, "{\"status\":0,\"message\":\"success\",\"label\":\"normal\",\"score\":0.99}");
+        RESULTS.put(NeuhubEndpoint.SIMILARITY, "{\"status\":0,\"message\":\"success\",\"similarity\":0.78}");
+        RESULTS.put(NeuhubEndpoint.SNAPSHOP, "{\"status\":0,\"message\":\"success\",\"skus\":[{\"skuId\":\"100000000\",\"score\":0.88}]}");
+        RESULTS.put(NeuhubEndpoint.TEXT_CLASSIFICATION, "{\"status\":0,\"message\":\"success\",\"categories\":[{\"name\":\"科技\",\"score\":0.82}]}");
+        RESULTS.put(NeuhubEndpoint.SYNTAX, "{\"status\":0,\"message\":\"success\",\"words\":[{\"word\":\"质量\",\"head\":2,\"deprel\":\"SBV\"}]}");
+        RESULTS.put(NeuhubEndpoint.OCR_UNIVERSAL, "{\"status\":0,\"message\":\"success\",\"words\":[{\"text\":\"示例文字\",\"rect\":[10,10,200,40]}]}");
+        RESULTS.put(NeuhubEndpoint.OCR_VEHICLE, "{\"status\":0,\"message\":\"success\",\"plateNo\":\"京A00000\",\"owner\":\"张三\"}");
+    }
+
+    private final NeuhubStubProperties properties;
+    private final Map<NeuhubEndpoint, LatencyDistribution> latencies = new ConcurrentHashMap<>();
+    private final Map<NeuhubEndpoint, Double> errorRates = new ConcurrentHashMap<>();
+    private final Map<NeuhubEndpoint, byte[]> responses = new ConcurrentHashMap<>();
+    /**
+     * 已发放的token及其过期时间
+     */
+    private final Map<String, Long> tokens = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder unauthorized = new LongAdder();
+    private final LongAdder tokensIssued = new LongAdder();
+    private volatile LatencyDistribution defaultLatency;
+    private volatile byte[] audio;
+    private HttpServer server;
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduler;
+
+    public StubGateway(NeuhubStubProperties properties) {
+        this.properties = properties;
+        this.defaultLatency = LatencyDistribution.logNormal(properties.getLatencyMedian(), properties.getLatencyP99());
+        for (Map.Entry<NeuhubEndpoint, String> entry : RESULTS.entrySet()) {
+            setResult(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, NeuhubStubProperties.Endpoint> entry : properties.getEndpoints().entrySet()) {
+            NeuhubEndpoint endpoint = NeuhubEndpoint.valueOf(entry.getKey());
+            NeuhubStubProperties.Endpoint config = entry.getValue();
+            if (config.getLatencyMedian() >= 0) {
+                long p99 = config.getLatencyP99() >= 0 ? config.getLatencyP99() : config.getLatencyMedian();
+                setLatency(endpoint, LatencyDistribution.logNormal(config.getLatencyMedian(), p99));
+            }
+            if (config.getErrorRate() >= 0) {
+                setErrorRate(endpoint, config.getErrorRate());
+            }
+        }
+        setTtsAudioBytes(properties.getTtsAudioBytes());
+    }
+
+    /**
+     * 开始监听，只监听127.0.0.1
+     * @throws IOException - 端口被占用
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        int threads = properties.getThreads() > 0 ? properties.getThreads() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "neuhub-stub-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "neuhub-stub-delay-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), properties.getPort()), 1024);
+        server.setExecutor(executor);
+        server.createContext(TOKEN_PATH, this::handleToken);
+        server.createContext("/neuhub/", this::handleNeuhub);
+        server.start();
+        logger.info("模拟网关已启动: {}", getUrl());
+    }
+
+    /**
+     * @return - 网关地址，如 http://127.0.0.1:18080，未启动时返回null
+     */
+    public String getUrl() {
+        HttpServer current = server;
+        return current == null ? null : "http://127.0.0.1:" + current.getAddress().getPort();
+    }
+
+    /**
+     * 所有接口的默认延迟，单独设置过的接口不受影响
+     * @param latency - 延迟分布
+     */
+    public void setDefaultLatency(LatencyDistribution latency) {
+        this.defaultLatency = latency;
+    }
+
+    public void setLatency(NeuhubEndpoint endpoint, LatencyDistribution latency) {
+        latencies.put(endpoint, latency);
+    }
+
+    public void setErrorRate(NeuhubEndpoint endpoint, double errorRate) {
+        errorRates.put(endpoint, errorRate);
+    }
+
+    /**
+     * 替换接口返回的result部分，外层的code、remain等字段不变
+     * @param endpoint - 接口
+     * @param resultJson - result的json
+     */
+    public void setResult(NeuhubEndpoint endpoint, String resultJson) {
+        String body = "{\"code\":\"10000\",\"charge\":false,\"remain\":1000000,\"remainTimes\":1000000,\"remainSeconds\":-1,"
+                + "\"msg\":\"查询成功\",\"result\":" + resultJson + "}";
+        responses.put(endpoint, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param ttsAudioBytes - 语音合成接口返回的音频字节数，内容为随机数据
+     */
+    public void setTtsAudioBytes(int ttsAudioBytes) {
+        byte[] data = new byte[ttsAudioBytes];
+        ThreadLocalRandom.current().nextBytes(data);
+        this.audio = data;
+    }
+
+    /**
+     * @return - /neuhub/* 收到的请求数，包含失败的请求
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * @return - 按错误率返回503的请求数
+     */
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    /**
+     * @return - token无效返回401的请求数
+     */
+    public long getUnauthorizedCount() {
+        return unauthorized.sum();
+    }
+
+    public long getTokensIssued() {
+        return tokensIssued.sum();
+    }
+
+    private void handleToken(HttpExchange exchange) throws IOException {
+        drain(exchange);
+        long now = System.currentTimeMillis();
+        tokens.values().removeIf(expiresAt -> expiresAt <= now);
+        String token = UUID.randomUUID().toString();
+        tokens.put(token, now + properties.getTokenExpiresIn() * 1000L);
+        tokensIssued.increment();
+        String body = "{\"access_token\":\"" + token + "\",\"token_type\":\"bearer\",\"expires_in\":"
+                + properties.getTokenExpiresIn() + ",\"scope\":\"read\"}";
+        respond(exchange, 200, JSON, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void handleNeuhub(HttpExchange exchange) throws IOException {
+        drain(exchange);
+        requests.increment();
+        NeuhubEndpoint endpoint = ENDPOINTS.get(exchange.getRequestURI().getPath());
+        if (endpoint == null) {
+            respond(exchange, 404, JSON, error("10004", "接口不存在"));
+            return;
+        }
+        if (!authorized(exchange)) {
+            unauthorized.increment();
+            respond(exchange, 401, JSON, "{\"error\":\"invalid_token\",\"error_description\":\"Invalid access token\"}"
+                    .getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        boolean fail = ThreadLocalRandom.current().nextDouble() < errorRates.getOrDefault(endpoint, properties.getErrorRate());
+        long delay = latencies.getOrDefault(endpoint, defaultLatency).nextMillis();
+        scheduler.schedule(() -> {
+            try {
+                if (fail) {
+                    errors.increment();
+                    respond(exchange, 503, JSON, error("10050", "服务暂时不可用"));
+                } else if (endpoint == NeuhubEndpoint.TTS) {
+                    respond(exchange, 200, "application/octet-stream", audio);
+                } else {
+                    respond(exchange, 200, JSON, responses.get(endpoint));
+                }
+            } catch (IOException e) {
+                logger.debug("写出{}的响应失败", endpoint, e);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private boolean authorized(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return false;
+        }
+        Long expiresAt = tokens.get(authorization.substring(7).trim());
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    private static byte[] error(String code, String msg) {
+        return ("{\"code\":\"" + code + "\",\"charge\":false,\"remain\":-1,\"remainTimes\":-1,\"remainSeconds\":-1,\"msg\":\""
+                + msg + "\",\"result\":null}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 读完请求体，否则连接不能复用
+     */
+    private static void drain(HttpExchange exchange) throws IOException {
+        byte[] buffer = new byte[8192];
+        try (InputStream in = exchange.getRequestBody()) {
+            while (in.read(buffer) != -1) {
+                // 丢弃
+            }
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        try {
+            byte[] content = body == null ? EMPTY : body;
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.sendResponseHeaders(status, content.length == 0 ? -1 : content.length);
+            if (content.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(content);
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+        server = null;
+        logger.info("模拟网关已停止，共收到{}个请求，其中{}个返回503，{}个返回401", getRequestCount(), getErrorCount(), getUnauthorizedCount());
+    }
+}
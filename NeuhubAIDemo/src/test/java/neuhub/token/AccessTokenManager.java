@@ -0,0 +1,224 @@
+package neuhub.token;
+
+import neuhub.configuration.NeuhubTokenProperties;
+import neuhub.metrics.NeuhubMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.client.resource.OAuth2ProtectedResourceDetails;
+import org.springframework.security.oauth2.client.token.AccessTokenProvider;
+import org.springframework.security.oauth2.client.token.AccessTokenRequest;
+import org.springframework.security.oauth2.client.token.DefaultAccessTokenRequest;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 管理一个oauth2客户端(即一个地域)的access token
+ * <ul>
+ * <li>token缓存在原子引用中，读取时不加锁</li>
+ * <li>后台线程在token过期前主动刷新，请求线程不会因为token过期而等待</li>
+ * <li>同一时刻最多只有一个获取token的请求，并发的调用方共用同一个结果</li>
+ * </ul>
+ * 同时实现了{@link AccessTokenProvider}，配合{@link ManagedOAuth2ClientContext}交给OAuth2RestTemplate使用
+ */
+public class AccessTokenManager implements AccessTokenProvider, Closeable {
+
+    private Logger logger = LoggerFactory.getLogger(AccessTokenManager.class);
+
+    private final String name;
+    private final OAuth2ProtectedResourceDetails resource;
+    private final AccessTokenProvider delegate;
+    private final NeuhubTokenProperties properties;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicReference<OAuth2AccessToken> accessToken = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<OAuth2AccessToken>> inFlight = new AtomicReference<>();
+    private volatile long retryInterval;
+    private NeuhubMetrics metrics;
+    /**
+     * 下一次后台刷新的任务，只在刷新线程中读写
+     */
+    private ScheduledFuture<?> nextRefresh;
+
+    /**
+     * @param name - 名称，用于日志和线程名，如地域名
+     * @param resource - oauth2 客户端详情
+     * @param delegate - 实际向token地址发起请求的provider
+     * @param properties - 刷新配置
+     */
+    public AccessTokenManager(String name, OAuth2ProtectedResourceDetails resource, AccessTokenProvider delegate, NeuhubTokenProperties properties) {
+        this.name = name;
+        this.resource = resource;
+        this.delegate = delegate;
+        this.properties = properties;
+        this.retryInterval = properties.getRetryInterval();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "neuhub-token-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 立即在后台获取第一个token，之后按过期时间自动刷新
+     */
+    public void start() {
+        refresh();
+    }
+
+    /**
+     * @param metrics - 记录获取token的耗时和token被作废的次数，可以为null
+     */
+    public void setMetrics(NeuhubMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return - 未过期的缓存token，没有时返回null，不会阻塞
+     */
+    public OAuth2AccessToken peekAccessToken() {
+        OAuth2AccessToken token = accessToken.get();
+        return token == null || token.isExpired() ? null : token;
+    }
+
+    /**
+     * @return - 未过期的token，缓存中没有时等待正在进行的获取
+     */
+    public OAuth2AccessToken getAccessToken() {
+        OAuth2AccessToken token = peekAccessToken();
+        if (token != null) {
+            return token;
+        }
+        try {
+            return refresh().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("获取token时被中断", e);
+        } catch (ExecutionException e) {
+            throw propagate(e.getCause());
+        }
+    }
+
+    /**
+     * @return - 未过期的token，缓存中没有时返回正在进行的获取，不会阻塞调用线程
+     */
+    public CompletableFuture<OAuth2AccessToken> getAccessTokenAsync() {
+        OAuth2AccessToken token = peekAccessToken();
+        return token != null ? CompletableFuture.completedFuture(token) : refresh();
+    }
+
+    /**
+     * 作废指定的token，一般在网关返回token无效时调用，token已被刷新过时不做处理
+     * @param token - 被拒绝的token
+     */
+    public void invalidate(OAuth2AccessToken token) {
+        if (token != null && accessToken.compareAndSet(token, null)) {
+            logger.info("{} 的token被作废，重新获取", name);
+            if (metrics != null) {
+                metrics.recordTokenInvalidated(name);
+            }
+            refresh();
+        }
+    }
+
+    /**
+     * 获取新的token，已有进行中的获取时直接返回它
+     * @return - 获取的结果
+     */
+    public CompletableFuture<OAuth2AccessToken> refresh() {
+        CompletableFuture<OAuth2AccessToken> future = new CompletableFuture<>();
+        while (!inFlight.compareAndSet(null, future)) {
+            CompletableFuture<OAuth2AccessToken> existing = inFlight.get();
+            if (existing != null) {
+                return existing;
+            }
+        }
+        scheduler.execute(() -> fetch(future));
+        return future;
+    }
+
+    private void fetch(CompletableFuture<OAuth2AccessToken> future) {
+        long start = System.nanoTime();
+        try {
+            OAuth2AccessToken token = delegate.obtainAccessToken(resource, new DefaultAccessTokenRequest());
+            if (metrics != null) {
+                metrics.recordTokenFetch(name, System.nanoTime() - start, true);
+            }
+            accessToken.set(token);
+            retryInterval = properties.getRetryInterval();
+            scheduleRefresh(token);
+            inFlight.set(null);
+            future.complete(token);
+        } catch (RuntimeException e) {
+            if (metrics != null) {
+                metrics.recordTokenFetch(name, System.nanoTime() - start, false);
+            }
+            logger.warn("{} 获取token失败，{}秒后重试", name, retryInterval, e);
+            reschedule(retryInterval);
+            retryInterval = Math.min(retryInterval * 2, properties.getMaxRetryInterval());
+            inFlight.set(null);
+            future.completeExceptionally(e);
+        }
+    }
+
+    private void scheduleRefresh(OAuth2AccessToken token) {
+        int expiresIn = token.getExpiresIn();
+        if (token.getExpiration() == null || expiresIn <= 0) {
+            return;
+        }
+        long delay = expiresIn - Math.min(properties.getRefreshAhead(), expiresIn / 2);
+        reschedule(delay);
+        logger.debug("{} 的token将在{}秒后刷新", name, delay);
+    }
+
+    private void reschedule(long delay) {
+        if (nextRefresh != null) {
+            nextRefresh.cancel(false);
+        }
+        nextRefresh = scheduler.schedule(this::refresh, delay, TimeUnit.SECONDS);
+    }
+
+    private RuntimeException propagate(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+    }
+
+    @Override
+    public OAuth2AccessToken obtainAccessToken(OAuth2ProtectedResourceDetails details, AccessTokenRequest request) {
+        return getAccessToken();
+    }
+
+    @Override
+    public boolean supportsResource(OAuth2ProtectedResourceDetails resource) {
+        return this.resource.equals(resource);
+    }
+
+    @Override
+    public OAuth2AccessToken refreshAccessToken(OAuth2ProtectedResourceDetails resource, OAuth2RefreshToken refreshToken, AccessTokenRequest request) {
+        return getAccessToken();
+    }
+
+    @Override
+    public boolean supportsRefresh(OAuth2ProtectedResourceDetails resource) {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,57 @@
+package neuhub.token;
+
+import org.springframework.security.oauth2.client.OAuth2ClientContext;
+import org.springframework.security.oauth2.client.token.AccessTokenRequest;
+import org.springframework.security.oauth2.client.token.DefaultAccessTokenRequest;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 把OAuth2RestTemplate的token读写转交给{@link AccessTokenManager}
+ * <ul>
+ * <li>读取token时直接返回管理器中的缓存，不加锁</li>
+ * <li>OAuth2RestTemplate在token被网关拒绝时会写入null，此时作废当前token</li>
+ * </ul>
+ */
+public class ManagedOAuth2ClientContext implements OAuth2ClientContext {
+
+    private final AccessTokenManager accessTokenManager;
+    private final AccessTokenRequest accessTokenRequest = new DefaultAccessTokenRequest();
+    private final Map<String, Object> state = new ConcurrentHashMap<>();
+
+    public ManagedOAuth2ClientContext(AccessTokenManager accessTokenManager) {
+        this.accessTokenManager = accessTokenManager;
+    }
+
+    @Override
+    public OAuth2AccessToken getAccessToken() {
+        return accessTokenManager.peekAccessToken();
+    }
+
+    @Override
+    public void setAccessToken(OAuth2AccessToken accessToken) {
+        // 新获取的token已由管理器缓存，这里只处理作废
+        if (accessToken == null) {
+            accessTokenManager.invalidate(accessTokenManager.peekAccessToken());
+        }
+    }
+
+    @Override
+    public AccessTokenRequest getAccessTokenRequest() {
+        return accessTokenRequest;
+    }
+
+    @Override
+    public void setPreservedState(String stateKey, Object preservedState) {
+        if (stateKey != null && preservedState != null) {
+            state.put(stateKey, preservedState);
+        }
+    }
+
+    @Override
+    public Object removePreservedState(String stateKey) {
+        return stateKey == null ? null : state.remove(stateKey);
+    }
+}
@@ -0,0 +1,151 @@
+package neuhub.tts;
+
+import neuhub.client.NeuhubAsyncClient;
+import neuhub.client.NeuhubFailures;
+import neuhub.configuration.NeuhubTtsProperties;
+import neuhub.properties.TtsHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 长文本语音合成，文本按{@link TextSegmenter}切分后并发合成，音频按分段顺序写出
+ * <ul>
+ * <li>所有分段使用同一个TtsProperty，每个分段是一次独立的合成，Request-Id为原Request-Id加上-分段号</li>
+ * <li>同时合成的分段不超过concurrency个，第1段返回后立即写出，之后每写出一段再发出下一段</li>
+ * <li>网关返回json时与{@link TtsStreamer}的处理相同</li>
+ * <li>音频直接按顺序拼接，适用于pcm、mp3这类可以直接拼接的格式，wav每段都带文件头，不能直接拼接</li>
+ * <li>任一分段失败时取消未完成的分段，中止这些分段的http请求；已经写出部分音频时抛出{@link TtsStreamException}</li>
+ * </ul>
+ * 分段参数见{@link NeuhubTtsProperties}
+ */
+public class LongTextSynthesizer {
+
+    private final NeuhubAsyncClient client;
+    private final NeuhubTtsProperties properties;
+
+    public LongTextSynthesizer(NeuhubAsyncClient client, NeuhubTtsProperties properties) {
+        this.client = client;
+        this.properties = properties;
+    }
+
+    /**
+     * 合成长文本并按顺序写入通道，阻塞到音频全部写出
+     * @param headers - 请求头
+     * @param text - 要合成的文本
+     * @param target - 音频写入的通道，写完后不关闭
+     * @return - 写出的字节数
+     * @throws RestClientException - 调用失败
+     * @throws IllegalArgumentException - 文本为空
+     */
+    public long synthesize(TtsHeaders headers, String text, WritableByteChannel target) throws RestClientException {
+        List<String> segments = TextSegmenter.split(text, properties.getMaxSegmentChars());
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("没有可合成的文本");
+        }
+        String requestId = headers.getRequestId() == null ? UUID.randomUUID().toString() : headers.getRequestId();
+        int concurrency = Math.max(1, properties.getConcurrency());
+        @SuppressWarnings("unchecked")
+        CompletableFuture<ResponseEntity<byte[]>>[] futures = new CompletableFuture[segments.size()];
+        int submitted = 0;
+        while (submitted < Math.min(concurrency, segments.size())) {
+            futures[submitted] = submit(headers, requestId, segments, submitted++);
+        }
+        long written = 0;
+        boolean completed = false;
+        try {
+            for (int i = 0; i < segments.size(); i++) {
+                ResponseEntity<byte[]> response;
+                try {
+                    response = futures[i].join();
+                } catch (CompletionException e) {
+                    throw failure(i, written, NeuhubFailures.unwrap(e));
+                } catch (RuntimeException e) {
+                    throw failure(i, written, e);
+                }
+                futures[i] = null;
+                // 先发出下一段再写出，写出时网络不空闲
+                if (submitted < segments.size()) {
+                    futures[submitted] = submit(headers, requestId, segments, submitted++);
+                }
+                written += writeAudio(i, response, target, written);
+            }
+            completed = true;
+            return written;
+        } finally {
+            if (!completed) {
+                for (CompletableFuture<ResponseEntity<byte[]>> future : futures) {
+                    if (future != null) {
+                        future.cancel(true);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 合成长文本并写入输出流，每写出一段就flush一次，与{@link #synthesize(TtsHeaders, String, WritableByteChannel)}相同
+     */
+    public long synthesize(TtsHeaders headers, String text, OutputStream target) throws RestClientException {
+        return synthesize(headers, text, new FlushingChannel(target));
+    }
+
+    private CompletableFuture<ResponseEntity<byte[]>> submit(TtsHeaders headers, String requestId, List<String> segments, int index) {
+        TtsHeaders segmentHeaders = new TtsHeaders(headers.getServiceType(), requestId + "-" + (index + 1), headers.getSequenceId(),
+                headers.getProtocol(), headers.getNetState(), headers.getApplicator(), headers.getProperty());
+        return client.tts(segmentHeaders, segments.get(index));
+    }
+
+    /**
+     * 写出一段的音频，json响应与{@link TtsStreamer}使用同一个解析方法
+     * @return - 写出的字节数
+     */
+    private long writeAudio(int index, ResponseEntity<byte[]> response, WritableByteChannel target, long written) {
+        byte[] body = response.getBody();
+        if (body == null) {
+            return 0;
+        }
+        if (!TtsStreamer.isJson(response.getHeaders().getContentType())) {
+            write(ByteBuffer.wrap(body), target, written);
+            return body.length;
+        }
+        try {
+            return TtsStreamer.copyJson(new ByteArrayInputStream(body), target, written);
+        } catch (TtsStreamException e) {
+            throw e;
+        } catch (IOException e) {
+            throw failure(index, written, new RestClientException("解析语音合成的响应失败: " + e.getMessage(), e));
+        } catch (RuntimeException e) {
+            throw failure(index, written, e);
+        }
+    }
+
+    private RuntimeException failure(int index, long written, Throwable ex) {
+        if (written > 0) {
+            return new TtsStreamException(String.format("第%d段合成失败，已写出%d字节", index + 1, written), written, ex);
+        }
+        if (ex instanceof RuntimeException) {
+            return (RuntimeException) ex;
+        }
+        return new RestClientException(String.format("第%d段合成失败", index + 1), ex);
+    }
+
+    private void write(ByteBuffer buffer, WritableByteChannel target, long written) {
+        try {
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new TtsStreamException("写出音频失败，已写出" + written + "字节", written, e);
+        }
+    }
+}
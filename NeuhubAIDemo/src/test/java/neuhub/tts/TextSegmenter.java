@@ -0,0 +1,86 @@
+package neuhub.tts;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把长文本切成不超过指定字符数的分段，尽量在句子边界切分
+ * <ul>
+ * <li>优先在句末标点(。！？；.和换行)之后切分，前后都是数字的句点和逗号不切分，避免切开2.0、1,000这样的数字</li>
+ * <li>一句话超过上限时在逗号、顿号、冒号之后切分，其次在空白处切分，仍然没有时按字符数硬切，不切开代理对</li>
+ * <li>标点后面紧跟的右引号、右括号留在前一段，放不下时改在更前面的位置切分</li>
+ * <li>分段去掉首尾空白，空白分段被丢弃</li>
+ * </ul>
+ */
+public final class TextSegmenter {
+
+    private static final String SENTENCE_ENDS = "。！？；!?;.\n";
+    private static final String CLAUSE_ENDS = "，、：,:";
+    private static final String WHITESPACE = " \t\u3000";
+    private static final String CLOSING = "”’」』）)\"'";
+
+    private TextSegmenter() {
+    }
+
+    /**
+     * @param text - 要切分的文本
+     * @param maxChars - 每段的字符数上限
+     * @return - 按顺序排列的分段
+     */
+    public static List<String> split(String text, int maxChars) {
+        if (maxChars < 2) {
+            throw new IllegalArgumentException("maxChars必须大于1");
+        }
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        while (start < text.length()) {
+            int limit = start + maxChars;
+            int end;
+            if (limit >= text.length()) {
+                end = text.length();
+            } else {
+                end = lastBreak(text, start, limit, SENTENCE_ENDS);
+                if (end < 0) {
+                    end = lastBreak(text, start, limit, CLAUSE_ENDS);
+                }
+                if (end < 0) {
+                    end = lastBreak(text, start, limit, WHITESPACE);
+                }
+                if (end < 0) {
+                    end = Character.isHighSurrogate(text.charAt(limit - 1)) ? limit - 1 : limit;
+                }
+            }
+            String segment = text.substring(start, end).trim();
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+            start = end;
+        }
+        return segments;
+    }
+
+    /**
+     * @return - limit之前最后一个切分点，即标点及其后的右引号之后的位置，没有时返回-1
+     */
+    private static int lastBreak(String text, int start, int limit, String marks) {
+        for (int i = limit - 1; i > start; i--) {
+            char c = text.charAt(i);
+            if (marks.indexOf(c) < 0 || isInsideNumber(text, i)) {
+                continue;
+            }
+            int end = i + 1;
+            while (end < limit && CLOSING.indexOf(text.charAt(end)) >= 0) {
+                end++;
+            }
+            if (end == limit && end < text.length() && CLOSING.indexOf(text.charAt(end)) >= 0) {
+                continue;
+            }
+            return end;
+        }
+        return -1;
+    }
+
+    private static boolean isInsideNumber(String text, int i) {
+        return i > 0 && i + 1 < text.length() && Character.isDigit(text.charAt(i - 1)) && Character.isDigit(text.charAt(i + 1));
+    }
+}
@@ -0,0 +1,59 @@
+package neuhub.tts;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TextSegmenterTest {
+
+    @Test
+    public void splitsAtSentenceEnd() {
+        assertEquals(Arrays.asList("今天天气很好。", "我们去公园吧！"), TextSegmenter.split("今天天气很好。我们去公园吧！", 10));
+    }
+
+    @Test
+    public void keepsShortTextWhole() {
+        assertEquals(Arrays.asList("你好。"), TextSegmenter.split("  你好。  ", 10));
+    }
+
+    @Test
+    public void doesNotSplitDecimalPoint() {
+        // 没有数字规则时会切成"好的，价格是2."和"0元"
+        assertEquals(Arrays.asList("好的，", "价格是2.0元"), TextSegmenter.split("好的，价格是2.0元", 9));
+    }
+
+    @Test
+    public void doesNotSplitThousandsSeparator() {
+        assertEquals(Arrays.asList("好的", "价格是1,000元"), TextSegmenter.split("好的 价格是1,000元", 10));
+    }
+
+    @Test
+    public void keepsClosingQuoteWithSentence() {
+        assertEquals(Arrays.asList("“你好。”", "然后走了。"), TextSegmenter.split("“你好。”然后走了。", 6));
+    }
+
+    @Test
+    public void movesBreakBackWhenClosingQuoteFallsAtLimit() {
+        // 句号在上限前的最后一个字符，右引号放不下，改在冒号之后切分
+        assertEquals(Arrays.asList("他说：", "“你好。”", "然后走了。"), TextSegmenter.split("他说：“你好。”然后走了。", 7));
+    }
+
+    @Test
+    public void hardCutDoesNotSplitSurrogatePair() {
+        List<String> segments = TextSegmenter.split("abc😀def", 4);
+        assertEquals(Arrays.asList("abc", "😀de", "f"), segments);
+        for (String segment : segments) {
+            assertFalse(Character.isHighSurrogate(segment.charAt(segment.length() - 1)));
+            assertFalse(Character.isLowSurrogate(segment.charAt(0)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsLimitBelowTwo() {
+        TextSegmenter.split("你好", 1);
+    }
+}
@@ -0,0 +1,23 @@
+package neuhub.tts;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * 音频已经写出一部分后失败，重发会让调用方收到重复的音频，所以不会重试
+ */
+public class TtsStreamException extends RestClientException {
+
+    private final long bytesWritten;
+
+    public TtsStreamException(String msg, long bytesWritten, Throwable ex) {
+        super(msg, ex);
+        this.bytesWritten = bytesWritten;
+    }
+
+    /**
+     * @return - 失败前已经写出的字节数
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+}
@@ -0,0 +1,199 @@
+package neuhub.tts;
+
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import neuhub.client.NeuhubEndpoint;
+import neuhub.client.NeuhubRestTemplate;
+import neuhub.properties.TtsHeaders;
+import neuhub.response.NeuhubResponse;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 语音合成，音频收到一段就写出一段，不转成String，也不在内存中保存整段音频
+ * <ul>
+ * <li>音频的格式和采样率由请求中的TtsParameters的aue和sr决定，这里只原样写出响应体</li>
+ * <li>网关返回json时按NeuhubResponse的结构流式解析，code不是10000时抛出异常；result中Base64编码的audio边解码边写出</li>
+ * <li>音频写出一部分后失败时抛出{@link TtsStreamException}，不会重试</li>
+ * </ul>
+ * 写完后不关闭调用方传入的通道或输出流
+ */
+public class TtsStreamer {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final NeuhubRestTemplate restTemplate;
+    private final String url;
+
+    public TtsStreamer(NeuhubRestTemplate restTemplate, String gatewayUrl) {
+        this.restTemplate = restTemplate;
+        this.url = gatewayUrl + NeuhubEndpoint.TTS.getUriTemplate();
+    }
+
+    /**
+     * 合成语音并写入通道，阻塞到音频全部写出
+     * @param headers - 请求头
+     * @param text - 要合成的文本
+     * @param target - 音频写入的通道
+     * @return - 写出的字节数
+     * @throws RestClientException - 调用失败
+     */
+    public long synthesize(TtsHeaders headers, String text, WritableByteChannel target) throws RestClientException {
+        HttpEntity<String> requestEntity = new HttpEntity<>(text, headers.toHttpHeaders());
+        return restTemplate.execute(url, HttpMethod.POST, requestEntity, response -> copy(response, target));
+    }
+
+    /**
+     * 合成语音并写入输出流，每写出一段就flush一次，与{@link #synthesize(TtsHeaders, String, WritableByteChannel)}相同
+     */
+    public long synthesize(TtsHeaders headers, String text, OutputStream target) throws RestClientException {
+        return synthesize(headers, text, new FlushingChannel(target));
+    }
+
+    private long copy(ClientHttpResponse response, WritableByteChannel target) throws IOException {
+        if (isJson(response.getHeaders().getContentType())) {
+            return copyJson(response.getBody(), target, 0);
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long written = 0;
+        InputStream body = response.getBody();
+        while (true) {
+            int read;
+            try {
+                read = body.read(buffer);
+            } catch (IOException e) {
+                if (written == 0) {
+                    throw e;
+                }
+                throw new TtsStreamException("读取音频失败，已写出" + written + "字节", written, e);
+            }
+            if (read == -1) {
+                return written;
+            }
+            write(ByteBuffer.wrap(buffer, 0, read), target, written);
+            written += read;
+        }
+    }
+
+    /**
+     * @return - 响应是json，而不是音频
+     */
+    static boolean isJson(MediaType contentType) {
+        return contentType != null && (contentType.isCompatibleWith(MediaType.APPLICATION_JSON) || "text".equals(contentType.getType()));
+    }
+
+    /**
+     * 流式解析json响应，读到result中的audio时边Base64解码边写入通道，不在内存中保存整段音频
+     * @param body - json响应体
+     * @param target - 音频写入的通道
+     * @param written - 之前已经写入通道的字节数，用于失败时的{@link TtsStreamException}
+     * @return - 本次写出的字节数
+     * @throws RestClientException - code不是10000，或响应中没有音频
+     * @throws TtsStreamException - 已经写出音频后读取或写出失败
+     * @throws IOException - 写出音频之前读取或解析失败
+     */
+    static long copyJson(InputStream body, WritableByteChannel target, long written) throws IOException {
+        ChannelOutputStream out = new ChannelOutputStream(target, written);
+        String code = null;
+        String msg = null;
+        boolean audio = false;
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new RestClientException("语音合成的响应不是json对象");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("code".equals(name)) {
+                    code = value.isScalarValue() ? parser.getValueAsString() : null;
+                } else if ("msg".equals(name)) {
+                    msg = value.isScalarValue() ? parser.getValueAsString() : null;
+                } else if ("result".equals(name) && value == JsonToken.START_OBJECT
+                        && (code == null || NeuhubResponse.SUCCESS_CODE.equals(code))) {
+                    audio |= copyAudio(parser, out);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            if (written + out.count == 0) {
+                throw e;
+            }
+            throw new TtsStreamException("读取音频失败，已写出" + (written + out.count) + "字节", written + out.count, e);
+        }
+        if (!NeuhubResponse.SUCCESS_CODE.equals(code)) {
+            throw new RestClientException(String.format("语音合成失败: %s %s", code, msg));
+        }
+        if (!audio) {
+            throw new RestClientException("响应中没有音频");
+        }
+        return out.count;
+    }
+
+    /**
+     * @return - result中是否有audio
+     */
+    private static boolean copyAudio(JsonParser parser, OutputStream out) throws IOException {
+        boolean audio = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("audio".equals(name) && value == JsonToken.VALUE_STRING) {
+                parser.readBinaryValue(Base64Variants.MIME_NO_LINEFEEDS, out);
+                audio = true;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return audio;
+    }
+
+    private static void write(ByteBuffer buffer, WritableByteChannel target, long written) {
+        try {
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new TtsStreamException("写出音频失败，已写出" + written + "字节", written, e);
+        }
+    }
+
+    /**
+     * 把Base64解码后的音频写入通道，统计写出的字节数
+     */
+    private static class ChannelOutputStream extends OutputStream {
+
+        private final WritableByteChannel target;
+        private final long base;
+        private long count;
+
+        private ChannelOutputStream(WritableByteChannel target, long base) {
+            this.target = target;
+            this.base = base;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            TtsStreamer.write(ByteBuffer.wrap(b, off, len), target, base + count);
+            count += len;
+        }
+    }
+}